@@ -0,0 +1,153 @@
+package com.fitlife.app.backup;
+
+import android.content.Context;
+import android.util.JsonReader;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.fitlife.app.database.AppDatabase;
+import com.fitlife.app.database.entities.Equipment;
+import com.fitlife.app.database.entities.Exercise;
+import com.fitlife.app.database.entities.User;
+import com.fitlife.app.database.entities.Workout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class WorkoutExporterTest {
+
+    private AppDatabase db;
+    private int userId;
+    private int otherUserId;
+
+    @Before
+    public void createDb() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+            .addCallback(AppDatabase.CALLBACK)
+            .build();
+        userId = (int) db.userDao().insert(new User("Test User", "test@example.com", "hash"));
+        otherUserId = (int) db.userDao().insert(new User("Other User", "other@example.com", "hash"));
+    }
+
+    @After
+    public void closeDb() throws IOException {
+        db.close();
+    }
+
+    private int insertWorkout(int owner, String name, long createdAt, String... exerciseNames) {
+        Workout workout = new Workout(owner, name, "", null);
+        workout.setCreatedAt(createdAt);
+        int workoutId = (int) db.workoutDao().insert(workout);
+        for (int i = 0; i < exerciseNames.length; i++) {
+            db.exerciseDao().insert(new Exercise(workoutId, exerciseNames[i], 3, 10, null, i));
+        }
+        return workoutId;
+    }
+
+    private String export(WorkoutExporter exporter) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exporter.export(userId, output, null);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testExportGroupsRowsByWorkoutAndExercise() throws Exception {
+        int first = insertWorkout(userId, "Legs", 1000, "Squat", "Lunge");
+        insertWorkout(userId, "Rest day", 2000);
+        insertWorkout(otherUserId, "Not mine", 1500, "Plank");
+        int squatId = db.exerciseDao().getExercisesByWorkoutId(first).get(0).getExerciseId();
+        db.equipmentDao().insertAll(Arrays.asList(
+            new Equipment(squatId, "Barbell"), new Equipment(squatId, "Rack")));
+
+        WorkoutExporter exporter = new WorkoutExporter(db.backupDao());
+        String json = export(exporter);
+        assertEquals(2, exporter.getWorkoutCount());
+        assertEquals(2, exporter.getExerciseCount());
+
+        List<String> workouts = new ArrayList<>();
+        List<String> exercises = new ArrayList<>();
+        List<String> equipment = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (BackupFormat.KEY_FORMAT.equals(name)) {
+                    assertEquals(BackupFormat.FORMAT, reader.nextString());
+                } else if (BackupFormat.KEY_WORKOUTS.equals(name)) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        readWorkout(reader, workouts, exercises, equipment);
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+
+        assertEquals(Arrays.asList("Legs", "Rest day"), workouts);
+        assertEquals(Arrays.asList("Squat", "Lunge"), exercises);
+        assertEquals(Arrays.asList("Barbell", "Rack"), equipment);
+    }
+
+    @Test(expected = CancellationException.class)
+    public void testCancelledExportStops() throws Exception {
+        insertWorkout(userId, "Legs", 1000, "Squat");
+        WorkoutExporter exporter = new WorkoutExporter(db.backupDao());
+        exporter.cancel();
+        export(exporter);
+    }
+
+    private static void readWorkout(JsonReader reader, List<String> workouts,
+                                    List<String> exercises, List<String> equipment) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (BackupFormat.KEY_NAME.equals(name)) {
+                workouts.add(reader.nextString());
+            } else if (BackupFormat.KEY_EXERCISES.equals(name)) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String field = reader.nextName();
+                        if (BackupFormat.KEY_NAME.equals(field)) {
+                            exercises.add(reader.nextString());
+                        } else if (BackupFormat.KEY_EQUIPMENT.equals(field)) {
+                            reader.beginArray();
+                            while (reader.hasNext()) {
+                                equipment.add(reader.nextString());
+                            }
+                            reader.endArray();
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+}
@@ -0,0 +1,119 @@
+package com.fitlife.app.backup;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.fitlife.app.database.AppDatabase;
+import com.fitlife.app.database.entities.Equipment;
+import com.fitlife.app.database.entities.Exercise;
+import com.fitlife.app.database.entities.User;
+import com.fitlife.app.database.entities.Workout;
+import com.fitlife.app.models.WorkoutWithExerciseDetails;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class WorkoutImporterTest {
+    private static final int WORKOUTS = 25;
+
+    private AppDatabase db;
+    private int sourceUserId;
+    private int targetUserId;
+
+    @Before
+    public void createDb() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+            .addCallback(AppDatabase.CALLBACK)
+            .build();
+        sourceUserId = (int) db.userDao().insert(new User("Source", "source@example.com", "hash"));
+        targetUserId = (int) db.userDao().insert(new User("Target", "target@example.com", "hash"));
+    }
+
+    @After
+    public void closeDb() throws IOException {
+        db.close();
+    }
+
+    private byte[] exportSource() throws IOException {
+        for (int w = 0; w < WORKOUTS; w++) {
+            Workout workout = new Workout(sourceUserId, "Workout " + w, "", null);
+            workout.setCreatedAt(1000L + w);
+            int workoutId = (int) db.workoutDao().insert(workout);
+            for (int i = 0; i < 3; i++) {
+                int exerciseId = (int) db.exerciseDao().insert(
+                    new Exercise(workoutId, "Exercise " + i, 3, 10, null, i));
+                db.equipmentDao().insert(new Equipment(exerciseId, "Mat"));
+            }
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new WorkoutExporter(db.backupDao()).export(sourceUserId, output, null);
+        return output.toByteArray();
+    }
+
+    private WorkoutImporter.Result importArchive(byte[] archive, int chunkSize) throws IOException {
+        return new WorkoutImporter(db, chunkSize)
+            .importArchive(targetUserId, new ByteArrayInputStream(archive), null);
+    }
+
+    @Test
+    public void testRoundTripKeepsContent() throws Exception {
+        WorkoutImporter.Result result = importArchive(exportSource(), 10);
+        assertEquals(WORKOUTS, result.imported);
+        assertEquals(0, result.skipped);
+        // One workout, three exercises and three equipment rows each
+        assertEquals(WORKOUTS * 7L, result.rows);
+
+        List<Workout> imported = db.workoutDao().getWorkoutsByUserId(targetUserId);
+        assertEquals(WORKOUTS, imported.size());
+        for (Workout workout : imported) {
+            WorkoutWithExerciseDetails details = db.workoutDao().getWorkoutWithDetails(workout.getWorkoutId());
+            assertEquals(3, details.exercises.size());
+            assertEquals(Collections.singletonList("Mat"), details.getUniqueEquipmentNames());
+            // The stored hash matches one recomputed from the rows
+            assertEquals(details.computeContentHash(), workout.getContentHash());
+        }
+    }
+
+    @Test
+    public void testReimportSkipsExistingWorkouts() throws Exception {
+        byte[] archive = exportSource();
+        importArchive(archive, 7);
+
+        WorkoutImporter.Result again = importArchive(archive, 7);
+        assertEquals(0, again.imported);
+        assertEquals(WORKOUTS, again.skipped);
+        assertEquals(0, again.rows);
+        assertEquals(WORKOUTS, db.workoutDao().getTotalWorkoutCount(targetUserId));
+    }
+
+    @Test
+    public void testParseErrorKeepsEarlierChunks() throws Exception {
+        String json = new String(exportSource(), StandardCharsets.UTF_8);
+        // Cut the archive off in the middle of the last workout
+        byte[] truncated = json.substring(0, json.lastIndexOf("\"name\"")).getBytes(StandardCharsets.UTF_8);
+
+        try {
+            importArchive(truncated, 5);
+            fail("Truncated archive was accepted");
+        } catch (IOException expected) {
+            // Earlier chunks stay committed
+        }
+        assertEquals(WORKOUTS - 5, db.workoutDao().getTotalWorkoutCount(targetUserId));
+    }
+}
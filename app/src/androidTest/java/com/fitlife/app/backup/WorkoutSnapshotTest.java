@@ -0,0 +1,265 @@
+package com.fitlife.app.backup;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.fitlife.app.database.AppDatabase;
+import com.fitlife.app.database.entities.Equipment;
+import com.fitlife.app.database.entities.Exercise;
+import com.fitlife.app.database.entities.User;
+import com.fitlife.app.database.entities.Workout;
+import com.fitlife.app.models.WorkoutWithExerciseDetails;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class WorkoutSnapshotTest {
+    private static final int WORKOUTS = 100;
+    private static final int EXERCISES_PER_WORKOUT = 10;
+    private static final String[] EXERCISE_NAMES = {"Squat", "Lunge", "Plank", "Push-up", "Row"};
+
+    private Context context;
+    private AppDatabase source;
+    private AppDatabase target;
+    private File file;
+    private int userId;
+
+    @Before
+    public void createDb() {
+        context = ApplicationProvider.getApplicationContext();
+        source = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+            .addCallback(AppDatabase.CALLBACK)
+            .build();
+        target = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+            .addCallback(AppDatabase.CALLBACK)
+            .build();
+        file = new File(context.getCacheDir(), "test.snapshot");
+        userId = (int) source.userDao().insert(new User("Test User", "test@example.com", "hash"));
+    }
+
+    @After
+    public void closeDb() throws IOException {
+        source.close();
+        target.close();
+        file.delete();
+    }
+
+    private void populate() {
+        source.runInTransaction(() -> {
+            for (int w = 0; w < WORKOUTS; w++) {
+                Workout workout = new Workout(userId, "Workout " + w, "Description " + w, null);
+                workout.setCreatedAt(1_700_000_000_000L + w * 60_000L);
+                workout.setContentHash(
+                    "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef");
+                int workoutId = (int) source.workoutDao().insert(workout);
+                for (int i = 0; i < EXERCISES_PER_WORKOUT; i++) {
+                    Exercise exercise = new Exercise(workoutId, EXERCISE_NAMES[i % EXERCISE_NAMES.length],
+                        3, 10, null, (i + 1) * 1024);
+                    int exerciseId = (int) source.exerciseDao().insert(exercise);
+                    source.equipmentDao().insert(new Equipment(exerciseId, "Mat"));
+                    // Completing every exercise of even workouts records a completion
+                    if (w % 2 == 0) {
+                        source.exerciseDao().updateCompletionStatus(exerciseId, true);
+                    }
+                }
+            }
+        });
+    }
+
+    private void writeSnapshot() throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            WorkoutSnapshot.write(source.getOpenHelper().getWritableDatabase(), out);
+        }
+    }
+
+    @Test
+    public void testRestoreReproducesData() throws Exception {
+        populate();
+        writeSnapshot();
+        WorkoutSnapshot.restore(file, target.getOpenHelper().getWritableDatabase());
+
+        User user = target.userDao().getUserById(userId);
+        assertNotNull(user);
+        assertEquals("test@example.com", user.getEmail());
+
+        List<Workout> expected = source.workoutDao().getWorkoutsByUserId(userId);
+        List<Workout> restored = target.workoutDao().getWorkoutsByUserId(userId);
+        assertEquals(expected.size(), restored.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Workout a = expected.get(i);
+            Workout b = restored.get(i);
+            assertEquals(a.getWorkoutId(), b.getWorkoutId());
+            assertEquals(a.getWorkoutName(), b.getWorkoutName());
+            assertEquals(a.getCreatedAt(), b.getCreatedAt());
+            assertEquals(a.getUpdatedAt(), b.getUpdatedAt());
+            assertEquals(a.isCompleted(), b.isCompleted());
+            assertEquals(a.getContentHash(), b.getContentHash());
+
+            WorkoutWithExerciseDetails details = target.workoutDao().getWorkoutWithDetails(b.getWorkoutId());
+            assertEquals(EXERCISES_PER_WORKOUT, details.exercises.size());
+        }
+
+        // History is restored and the rollups are rebuilt from it
+        assertEquals(WORKOUTS / 2, target.completionDao().getCompletions(userId, 0, Long.MAX_VALUE).size());
+        assertEquals(source.workoutDao().getCompletedWorkoutCount(userId),
+            target.workoutDao().getCompletedWorkoutCount(userId));
+
+        // Triggers are back after the restore
+        Workout completed = null;
+        for (Workout workout : restored) {
+            if (workout.isCompleted()) {
+                completed = workout;
+                break;
+            }
+        }
+        assertNotNull(completed);
+        Exercise exercise = target.exerciseDao().getExercisesByWorkoutId(completed.getWorkoutId()).get(0);
+        target.exerciseDao().updateCompletionStatus(exercise.getExerciseId(), false);
+        assertFalse(target.workoutDao().getWorkoutById(completed.getWorkoutId()).isCompleted());
+    }
+
+    @Test
+    public void testSnapshotIsSmallerThanJsonExport() throws Exception {
+        populate();
+        writeSnapshot();
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        new WorkoutExporter(source.backupDao()).export(userId, json, null);
+        assertTrue("snapshot " + file.length() + " bytes, JSON " + json.size() + " bytes",
+            file.length() * 3 < json.size());
+    }
+
+    @Test
+    public void testCorruptSnapshotLeavesDatabaseUnchanged() throws Exception {
+        populate();
+        writeSnapshot();
+        WorkoutSnapshot.restore(file, target.getOpenHelper().getWritableDatabase());
+
+        // Cut the file in the middle of the exercises
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.getChannel().truncate(file.length() / 2);
+        }
+        try {
+            WorkoutSnapshot.restore(file, target.getOpenHelper().getWritableDatabase());
+            fail("Truncated snapshot was accepted");
+        } catch (IOException expected) {
+            // Rolled back
+        }
+        assertEquals(WORKOUTS, target.workoutDao().getTotalWorkoutCount(userId));
+    }
+
+    /**
+     * Snapshot as written before workouts had image_renditions: one user with one workout
+     * and one exercise
+     */
+    private void writeVersion1Snapshot(String imagePath) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[]{'F', 'L', 'S', '1'});
+        Varint.write(out, 1);
+        Varint.write(out, 1);
+        writeUtf8(out, "Squat");
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        // users
+        Varint.writeSigned(record, 7);
+        writeString(record, "Old User");
+        writeString(record, "old@example.com");
+        writeString(record, "hash");
+        Varint.writeSigned(record, 1_700_000_000_000L);
+        Varint.writeSigned(record, 1_700_000_000_000L);
+        writeRecords(out, record);
+        // workouts, ending after content_hash
+        Varint.writeSigned(record, 3);
+        Varint.writeSigned(record, 7);
+        writeString(record, "Legs");
+        writeString(record, null);
+        writeString(record, imagePath);
+        Varint.writeSigned(record, 1_700_000_000_000L);
+        Varint.writeSigned(record, 1_700_000_060_000L);
+        Varint.writeSigned(record, 0);
+        Varint.write(record, 0);
+        writeRecords(out, record);
+        // exercises
+        Varint.writeSigned(record, 11);
+        Varint.writeSigned(record, 3);
+        Varint.write(record, 0);
+        Varint.writeSigned(record, 3);
+        Varint.writeSigned(record, 10);
+        writeString(record, null);
+        Varint.writeSigned(record, 0);
+        Varint.writeSigned(record, 1024);
+        writeRecords(out, record);
+        // equipment, workout_completions
+        writeRecords(out, record);
+        writeRecords(out, record);
+
+        try (OutputStream fileOut = new FileOutputStream(file)) {
+            out.writeTo(fileOut);
+        }
+    }
+
+    /**
+     * Write the record in progress (if any) followed by the end of the table
+     */
+    private static void writeRecords(OutputStream out, ByteArrayOutputStream record) throws IOException {
+        if (record.size() > 0) {
+            Varint.write(out, record.size());
+            record.writeTo(out);
+            record.reset();
+        }
+        Varint.write(out, 0);
+    }
+
+    private static void writeUtf8(OutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        Varint.write(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            Varint.write(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        Varint.write(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    @Test
+    public void testRestoresSnapshotWithoutLaterColumns() throws Exception {
+        String imagePath = "/files/workout_images/workout_3_1700000000000.jpg";
+        writeVersion1Snapshot(imagePath);
+        WorkoutSnapshot.restore(file, target.getOpenHelper().getWritableDatabase());
+
+        Workout workout = target.workoutDao().getWorkoutById(3);
+        assertNotNull(workout);
+        assertEquals(7, workout.getUserId());
+        assertEquals("Legs", workout.getWorkoutName());
+        assertEquals(imagePath, workout.getImagePath());
+        assertNull(workout.getContentHash());
+        // Missing trailing column restored as its default
+        assertEquals(0, workout.getImageRenditions());
+        assertEquals(1, target.imageDao().getRefCount(imagePath));
+
+        List<Exercise> exercises = target.exerciseDao().getExercisesByWorkoutId(3);
+        assertEquals(1, exercises.size());
+        assertEquals("Squat", exercises.get(0).getExerciseName());
+    }
+}
@@ -0,0 +1,125 @@
+package com.fitlife.app.database;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.fitlife.app.database.dao.CompletionDao;
+import com.fitlife.app.database.dao.WorkoutDao;
+import com.fitlife.app.database.entities.CompletionRollup;
+import com.fitlife.app.database.entities.User;
+import com.fitlife.app.database.entities.Workout;
+import com.fitlife.app.models.CompletionBucket;
+import com.fitlife.app.utils.CompletionPeriods;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class CompletionDaoTest {
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private WorkoutDao workoutDao;
+    private CompletionDao completionDao;
+    private AppDatabase db;
+    private int userId;
+
+    @Before
+    public void createDb() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+            .addCallback(AppDatabase.CALLBACK)
+            .build();
+        workoutDao = db.workoutDao();
+        completionDao = db.completionDao();
+        userId = (int) db.userDao().insert(new User("Test User", "test@example.com", "hash"));
+    }
+
+    @After
+    public void closeDb() throws IOException {
+        db.close();
+    }
+
+    private void completeAt(long time) {
+        int workoutId = (int) workoutDao.insert(new Workout(userId, "Workout", "", null));
+        workoutDao.updateCompletionStatus(workoutId, true, time);
+    }
+
+    @Test
+    public void testCompletionsRollUpIntoBuckets() throws Exception {
+        long now = System.currentTimeMillis();
+        completeAt(now);
+        completeAt(now);
+        completeAt(now - 2 * DAY);
+        completeAt(now - 40 * DAY);
+
+        assertEquals(2, completionDao.getCompletedCount(userId, CompletionRollup.PERIOD_DAY,
+            CompletionPeriods.dayKey(now)));
+        assertEquals(4, completionDao.getCompletions(userId, 0, Long.MAX_VALUE).size());
+
+        int lastMonths = 0;
+        for (CompletionBucket bucket : completionDao.getBucketsSince(userId,
+                CompletionRollup.PERIOD_MONTH, CompletionPeriods.monthKey(now - 40 * DAY))) {
+            lastMonths += bucket.completedCount;
+        }
+        assertEquals(4, lastMonths);
+
+        List<CompletionBucket> weeks = completionDao.getBucketsSince(userId,
+            CompletionRollup.PERIOD_WEEK, CompletionPeriods.weekKeyBefore(now, 11));
+        int lastTwelveWeeks = 0;
+        for (CompletionBucket bucket : weeks) {
+            lastTwelveWeeks += bucket.completedCount;
+        }
+        assertEquals(4, lastTwelveWeeks);
+        assertEquals(CompletionPeriods.weekKey(now), weeks.get(weeks.size() - 1).bucketStart);
+    }
+
+    @Test
+    public void testRetickingOnTheSameDayIsOneCompletion() throws Exception {
+        long now = System.currentTimeMillis();
+        int workoutId = (int) workoutDao.insert(new Workout(userId, "Workout", "", null));
+        workoutDao.updateCompletionStatus(workoutId, true, now);
+        workoutDao.updateCompletionStatus(workoutId, true, now + 1);
+        assertEquals(1, completionDao.getCompletions(userId, 0, Long.MAX_VALUE).size());
+
+        workoutDao.updateCompletionStatus(workoutId, false, now + 2);
+        workoutDao.updateCompletionStatus(workoutId, true, now + 3);
+        assertEquals(1, completionDao.getCompletions(userId, 0, Long.MAX_VALUE).size());
+        assertEquals(1, completionDao.getCompletedCount(userId, CompletionRollup.PERIOD_DAY,
+            CompletionPeriods.dayKey(now)));
+    }
+
+    @Test
+    public void testCompletingAgainOnAnotherDayIsRecorded() throws Exception {
+        long now = System.currentTimeMillis();
+        int workoutId = (int) workoutDao.insert(new Workout(userId, "Workout", "", null));
+        workoutDao.updateCompletionStatus(workoutId, true, now - DAY);
+        workoutDao.resetAllWorkouts(userId);
+        workoutDao.updateCompletionStatus(workoutId, true, now);
+
+        assertEquals(2, completionDao.getCompletions(userId, 0, Long.MAX_VALUE).size());
+        List<String> days = completionDao.getRecentActiveDays(userId, CompletionPeriods.dayKey(now), 366);
+        assertEquals(2, CompletionPeriods.countStreak(days, now));
+    }
+
+    @Test
+    public void testStreakFromDailyRollup() throws Exception {
+        long now = System.currentTimeMillis();
+        completeAt(now);
+        completeAt(now - DAY);
+        completeAt(now - 2 * DAY);
+        completeAt(now - 4 * DAY);
+
+        List<String> days = completionDao.getRecentActiveDays(userId, CompletionPeriods.dayKey(now), 366);
+        assertEquals(3, CompletionPeriods.countStreak(days, now));
+    }
+}
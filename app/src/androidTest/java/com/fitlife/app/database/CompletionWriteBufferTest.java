@@ -0,0 +1,154 @@
+package com.fitlife.app.database;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.fitlife.app.database.entities.Exercise;
+import com.fitlife.app.database.entities.User;
+import com.fitlife.app.database.entities.Workout;
+import com.fitlife.app.utils.AppExecutors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class CompletionWriteBufferTest {
+    private AppDatabase db;
+    private File journal;
+    private int workoutId;
+    private int firstExerciseId;
+    private int secondExerciseId;
+
+    @Before
+    public void createDb() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+            .addCallback(AppDatabase.CALLBACK)
+            .build();
+        journal = new File(context.getCacheDir(), "completion_journal_test");
+        journal.delete();
+
+        int userId = (int) db.userDao().insert(new User("Test User", "test@example.com", "hash"));
+        workoutId = (int) db.workoutDao().insert(new Workout(userId, "Workout", "", null));
+        firstExerciseId = (int) db.exerciseDao().insert(new Exercise(workoutId, "Squat", 3, 10));
+        secondExerciseId = (int) db.exerciseDao().insert(new Exercise(workoutId, "Lunge", 3, 10));
+    }
+
+    @After
+    public void closeDb() throws IOException {
+        db.close();
+        journal.delete();
+    }
+
+    private boolean exerciseCompleted(int exerciseId) {
+        return db.exerciseDao().getExerciseById(exerciseId).isCompleted();
+    }
+
+    @Test
+    public void testCoalescesRepeatedToggles() {
+        CompletionWriteBuffer buffer = new CompletionWriteBuffer(db, journal);
+        buffer.setExerciseCompleted(firstExerciseId, true);
+        buffer.setExerciseCompleted(firstExerciseId, false);
+        buffer.setExerciseCompleted(firstExerciseId, true);
+        assertEquals(Boolean.TRUE, buffer.getPendingExerciseCompletion(firstExerciseId));
+        assertFalse(exerciseCompleted(firstExerciseId));
+
+        buffer.flushBlocking();
+        assertTrue(exerciseCompleted(firstExerciseId));
+        assertNull(buffer.getPendingExerciseCompletion(firstExerciseId));
+        assertFalse(journal.exists());
+    }
+
+    @Test
+    public void testFlushKeepsOrderOfToggles() {
+        CompletionWriteBuffer buffer = new CompletionWriteBuffer(db, journal);
+        // Ticking off an exercise after the workout lets the triggers decide: one is still open
+        buffer.setWorkoutCompleted(workoutId, true);
+        buffer.setExerciseCompleted(firstExerciseId, true);
+        buffer.flushBlocking();
+        assertTrue(exerciseCompleted(firstExerciseId));
+        assertFalse(db.workoutDao().getWorkoutById(workoutId).isCompleted());
+
+        // The other way round the explicit workout toggle is the last word
+        buffer.setExerciseCompleted(firstExerciseId, false);
+        buffer.setWorkoutCompleted(workoutId, true);
+        buffer.flushBlocking();
+        assertTrue(db.workoutDao().getWorkoutById(workoutId).isCompleted());
+    }
+
+    @Test
+    public void testFailedFlushKeepsTogglesPending() {
+        CompletionWriteBuffer buffer = new CompletionWriteBuffer(db, journal);
+        db.getOpenHelper().getWritableDatabase().execSQL("CREATE TEMP TRIGGER `fail_exercise_update` " +
+            "BEFORE UPDATE ON `exercises` BEGIN SELECT RAISE(ABORT, 'write failed'); END");
+        buffer.setWorkoutCompleted(workoutId, true);
+        buffer.setExerciseCompleted(secondExerciseId, true);
+
+        buffer.flushBlocking();
+        // Rolled back as a whole
+        assertFalse(db.workoutDao().getWorkoutById(workoutId).isCompleted());
+        assertEquals(Boolean.TRUE, buffer.getPendingWorkoutCompletion(workoutId));
+        assertEquals(Boolean.TRUE, buffer.getPendingExerciseCompletion(secondExerciseId));
+        buffer.awaitJournal();
+        assertTrue(journal.exists());
+
+        db.getOpenHelper().getWritableDatabase().execSQL("DROP TRIGGER `fail_exercise_update`");
+        buffer.flushBlocking();
+        assertTrue(exerciseCompleted(secondExerciseId));
+        assertNull(buffer.getPendingWorkoutCompletion(workoutId));
+        assertFalse(journal.exists());
+    }
+
+    @Test
+    public void testReplaysJournalAfterKill() {
+        CompletionWriteBuffer killed = new CompletionWriteBuffer(db, journal);
+        killed.setExerciseCompleted(firstExerciseId, true);
+        killed.setExerciseCompleted(secondExerciseId, true);
+        killed.setExerciseCompleted(secondExerciseId, false);
+        killed.awaitJournal();
+        assertTrue(journal.exists());
+
+        // A new process loads the journal in the background; flushBlocking waits for it
+        CompletionWriteBuffer restarted = new CompletionWriteBuffer(db, journal);
+        restarted.flushBlocking();
+        assertTrue(exerciseCompleted(firstExerciseId));
+        assertFalse(exerciseCompleted(secondExerciseId));
+        assertNull(restarted.getPendingExerciseCompletion(firstExerciseId));
+    }
+
+    @Test
+    public void testToggleDoesNotWaitForJournal() throws Exception {
+        CompletionWriteBuffer buffer = new CompletionWriteBuffer(db, journal);
+        CountDownLatch release = new CountDownLatch(1);
+        // Hold the journal thread, as a slow disk or a long rewrite would
+        AppExecutors.getInstance().journalIO().execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        buffer.setExerciseCompleted(firstExerciseId, true);
+        assertEquals(Boolean.TRUE, buffer.getPendingExerciseCompletion(firstExerciseId));
+        assertFalse(journal.exists());
+
+        release.countDown();
+        buffer.awaitJournal();
+        assertTrue(journal.exists());
+        buffer.flushBlocking();
+        assertTrue(exerciseCompleted(firstExerciseId));
+        assertFalse(journal.exists());
+    }
+}
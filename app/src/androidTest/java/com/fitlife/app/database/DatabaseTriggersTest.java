@@ -0,0 +1,183 @@
+package com.fitlife.app.database;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.fitlife.app.database.dao.ExerciseDao;
+import com.fitlife.app.database.dao.ImageDao;
+import com.fitlife.app.database.dao.WorkoutDao;
+import com.fitlife.app.database.entities.Exercise;
+import com.fitlife.app.database.entities.User;
+import com.fitlife.app.database.entities.Workout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class DatabaseTriggersTest {
+    private static final int WORKOUTS = 200;
+    private static final int EXERCISES_PER_WORKOUT = 50;
+
+    private WorkoutDao workoutDao;
+    private ExerciseDao exerciseDao;
+    private AppDatabase db;
+    private int userId;
+
+    @Before
+    public void createDb() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+            .addCallback(AppDatabase.CALLBACK)
+            .build();
+        workoutDao = db.workoutDao();
+        exerciseDao = db.exerciseDao();
+        userId = (int) db.userDao().insert(new User("Test User", "test@example.com", "hash"));
+    }
+
+    @After
+    public void closeDb() throws IOException {
+        db.close();
+    }
+
+    private int insertWorkout(int exerciseCount) {
+        int workoutId = (int) workoutDao.insert(new Workout(userId, "Workout", "", null));
+        List<Exercise> exercises = new ArrayList<>();
+        for (int i = 0; i < exerciseCount; i++) {
+            exercises.add(new Exercise(workoutId, "Exercise " + i, 3, 10, null, i));
+        }
+        exerciseDao.insertAll(exercises);
+        return workoutId;
+    }
+
+    @Test
+    public void testWorkoutFollowsExercises() throws Exception {
+        int workoutId = insertWorkout(3);
+        List<Exercise> exercises = exerciseDao.getExercisesByWorkoutId(workoutId);
+
+        exerciseDao.updateCompletionStatus(exercises.get(0).getExerciseId(), true);
+        exerciseDao.updateCompletionStatus(exercises.get(1).getExerciseId(), true);
+        assertFalse(workoutDao.getWorkoutById(workoutId).isCompleted());
+
+        exerciseDao.updateCompletionStatus(exercises.get(2).getExerciseId(), true);
+        assertTrue(workoutDao.getWorkoutById(workoutId).isCompleted());
+
+        // A new exercise is not done yet
+        long added = exerciseDao.insert(new Exercise(workoutId, "Added", 1, 1));
+        assertFalse(workoutDao.getWorkoutById(workoutId).isCompleted());
+
+        // Removing the only unfinished exercise completes the workout again
+        exerciseDao.delete(exerciseDao.getExerciseById((int) added));
+        assertTrue(workoutDao.getWorkoutById(workoutId).isCompleted());
+
+        exerciseDao.updateCompletionStatus(exercises.get(0).getExerciseId(), false);
+        assertFalse(workoutDao.getWorkoutById(workoutId).isCompleted());
+    }
+
+    @Test
+    public void testUpdatedAtOnlyMovesOnChange() throws Exception {
+        int workoutId = insertWorkout(2);
+        List<Exercise> exercises = exerciseDao.getExercisesByWorkoutId(workoutId);
+        workoutDao.updateCompletionStatus(workoutId, false, 42L);
+
+        // Still incomplete: no write to the workout
+        exerciseDao.updateCompletionStatus(exercises.get(0).getExerciseId(), true);
+        assertEquals(42L, workoutDao.getWorkoutById(workoutId).getUpdatedAt());
+
+        long before = System.currentTimeMillis();
+        exerciseDao.updateCompletionStatus(exercises.get(1).getExerciseId(), true);
+        Workout completed = workoutDao.getWorkoutById(workoutId);
+        assertTrue(completed.isCompleted());
+        assertTrue(completed.getUpdatedAt() >= before - 1000);
+    }
+
+    @Test
+    public void testRollupAtScale() throws Exception {
+        List<Integer> workoutIds = new ArrayList<>();
+        db.runInTransaction(() -> {
+            for (int i = 0; i < WORKOUTS; i++) {
+                workoutIds.add(insertWorkout(EXERCISES_PER_WORKOUT));
+            }
+        });
+
+        // Complete every exercise of the even workouts and all but one of the odd ones
+        db.runInTransaction(() -> {
+            for (int w = 0; w < workoutIds.size(); w++) {
+                List<Exercise> exercises = exerciseDao.getExercisesByWorkoutId(workoutIds.get(w));
+                int toComplete = w % 2 == 0 ? exercises.size() : exercises.size() - 1;
+                for (int i = 0; i < toComplete; i++) {
+                    exerciseDao.updateCompletionStatus(exercises.get(i).getExerciseId(), true);
+                }
+            }
+        });
+
+        assertEquals(WORKOUTS / 2, workoutDao.getCompletedWorkoutCount(userId));
+        for (int w = 0; w < workoutIds.size(); w++) {
+            assertEquals(w % 2 == 0, workoutDao.getWorkoutById(workoutIds.get(w)).isCompleted());
+        }
+
+        // Bulk reset goes through the same trigger
+        db.runInTransaction(() -> {
+            for (int workoutId : workoutIds) {
+                exerciseDao.resetExercises(workoutId);
+            }
+        });
+        assertEquals(0, workoutDao.getCompletedWorkoutCount(userId));
+    }
+
+    @Test
+    public void testImagesAreReferenceCounted() throws Exception {
+        ImageDao imageDao = db.imageDao();
+        String shared = "/files/workout_images/" + repeat("ab", 32) + ".jpg";
+        String other = "/files/workout_images/workout_1_1700000000000.jpg";
+
+        int first = (int) workoutDao.insert(new Workout(userId, "First", "", shared));
+        int second = (int) workoutDao.insert(new Workout(userId, "Second", "", shared));
+        workoutDao.insert(new Workout(userId, "No image", "", null));
+        assertEquals(2, imageDao.getRefCount(shared));
+
+        // Still used by the second workout
+        workoutDao.delete(workoutDao.getWorkoutById(first));
+        assertEquals(1, imageDao.getRefCount(shared));
+        assertEquals(0, imageDao.deleteIfUnreferenced(shared));
+
+        Workout workout = workoutDao.getWorkoutById(second);
+        workout.setImagePath(other);
+        workoutDao.update(workout);
+        assertEquals(0, imageDao.getRefCount(shared));
+        assertEquals(1, imageDao.getRefCount(other));
+        assertEquals(1, imageDao.deleteIfUnreferenced(shared));
+        assertEquals(0, imageDao.deleteIfUnreferenced(other));
+    }
+
+    @Test
+    public void testSameImageUnderTwoPathsIsCountedForEach() throws Exception {
+        // E.g. a snapshot restored from an install with another files directory
+        String name = repeat("cd", 32) + ".jpg";
+        String path = "/files/workout_images/" + name;
+        String restored = "/other/files/workout_images/" + name;
+
+        workoutDao.insert(new Workout(userId, "First", "", path));
+        workoutDao.insert(new Workout(userId, "Second", "", restored));
+        assertEquals(1, db.imageDao().getRefCount(path));
+        assertEquals(1, db.imageDao().getRefCount(restored));
+    }
+
+    private static String repeat(String s, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+}
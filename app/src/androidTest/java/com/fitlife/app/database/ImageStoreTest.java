@@ -0,0 +1,190 @@
+package com.fitlife.app.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.fitlife.app.database.entities.User;
+import com.fitlife.app.database.entities.Workout;
+import com.fitlife.app.utils.Constants;
+import com.fitlife.app.utils.ImageRenditions;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class ImageStoreTest {
+    private AppDatabase db;
+    private File directory;
+    private ImageStore imageStore;
+    private int userId;
+
+    @Before
+    public void createDb() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+            .addCallback(AppDatabase.CALLBACK)
+            .build();
+        directory = new File(context.getCacheDir(), "image_store_test");
+        deleteDirectory();
+        directory.mkdirs();
+        imageStore = new ImageStore(directory, db);
+        userId = (int) db.userDao().insert(new User("Test User", "test@example.com", "hash"));
+    }
+
+    @After
+    public void closeDb() throws IOException {
+        db.close();
+        deleteDirectory();
+    }
+
+    private void deleteDirectory() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private File createFile(String name, int length, long modifiedAt) throws IOException {
+        File file = new File(directory, name);
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            fos.write(new byte[length]);
+        }
+        assertTrue(file.setLastModified(modifiedAt));
+        return file;
+    }
+
+    private boolean hasImageRow(String path) {
+        try (Cursor cursor = db.query("SELECT 1 FROM images WHERE path = ?", new Object[]{path})) {
+            return cursor.moveToFirst();
+        }
+    }
+
+    private Bitmap createBitmap(int color) {
+        Bitmap bitmap = Bitmap.createBitmap(1000, 800, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(color);
+        return bitmap;
+    }
+
+    private int countOriginals() {
+        int count = 0;
+        for (String name : directory.list()) {
+            if (ImageRenditions.originalOf(name).equals(name)) count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testSavingTheSameImageTwiceKeepsOneFile() {
+        String first = imageStore.save(createBitmap(Color.RED));
+        String second = imageStore.save(createBitmap(Color.RED));
+        assertNotNull(first);
+        assertEquals(first, second);
+        assertEquals(1, countOriginals());
+        assertTrue(ImageStore.isContentAddressed(new File(first).getName()));
+        // Both renditions are smaller than the 800 pixel short side
+        assertEquals(3, ImageRenditions.existing(first));
+
+        assertNotEquals(first, imageStore.save(createBitmap(Color.BLUE)));
+        assertEquals(2, countOriginals());
+    }
+
+    @Test
+    public void testReleaseRespectsGracePeriodAndReferences() {
+        long now = System.currentTimeMillis();
+        long old = now - 2 * Constants.IMAGE_GRACE_PERIOD_MS;
+        String path = imageStore.save(createBitmap(Color.RED));
+        File file = new File(path);
+        Workout workout = new Workout(userId, "Workout", "", path);
+        workout.setWorkoutId((int) db.workoutDao().insert(workout));
+
+        // Still used by the workout
+        assertTrue(file.setLastModified(old));
+        imageStore.release(path);
+        assertTrue(file.exists());
+
+        // Unused, but saved within the grace period
+        db.workoutDao().delete(workout);
+        assertEquals(0, db.imageDao().getRefCount(path));
+        assertTrue(file.setLastModified(now));
+        imageStore.release(path);
+        assertTrue(file.exists());
+        assertTrue(hasImageRow(path));
+
+        assertTrue(file.setLastModified(old));
+        imageStore.release(path);
+        assertFalse(file.exists());
+        assertEquals(0, ImageRenditions.existing(path));
+        assertFalse(hasImageRow(path));
+    }
+
+    @Test
+    public void testDeleteOrphansKeepsReferencedAndRecentImages() throws IOException {
+        long now = System.currentTimeMillis();
+        long old = now - 2 * Constants.IMAGE_GRACE_PERIOD_MS;
+        long cutoff = now - Constants.IMAGE_GRACE_PERIOD_MS;
+
+        File referenced = createFile("referenced.jpg", 100, old);
+        File referencedRendition = createFile("referenced@320.jpg", 10, old);
+        db.workoutDao().insert(new Workout(userId, "Kept", "", referenced.getAbsolutePath()));
+
+        // Saved again just now: only the original's time is renewed
+        File recent = createFile("recent.jpg", 200, now);
+        File recentRendition = createFile("recent@320.jpg", 20, old);
+
+        // Its workout is gone, leaving a row with no references
+        File orphan = createFile("orphan.jpg", 300, old);
+        File orphanRendition = createFile("orphan@320.jpg", 30, old);
+        Workout deleted = new Workout(userId, "Deleted", "", orphan.getAbsolutePath());
+        deleted.setWorkoutId((int) db.workoutDao().insert(deleted));
+        db.workoutDao().delete(deleted);
+        assertTrue(hasImageRow(orphan.getAbsolutePath()));
+
+        File leftover = createFile("leftover.jpg.tmp", 40, old);
+
+        long reclaimed = imageStore.deleteOrphans(Arrays.asList(referenced, referencedRendition,
+            recent, recentRendition, orphan, orphanRendition, leftover), cutoff);
+
+        assertEquals(300 + 30 + 40, reclaimed);
+        assertTrue(referenced.exists());
+        assertTrue(referencedRendition.exists());
+        assertTrue(recent.exists());
+        assertTrue(recentRendition.exists());
+        assertFalse(orphan.exists());
+        assertFalse(orphanRendition.exists());
+        assertFalse(leftover.exists());
+        assertFalse(hasImageRow(orphan.getAbsolutePath()));
+        assertEquals(1, db.imageDao().getRefCount(referenced.getAbsolutePath()));
+    }
+
+    @Test
+    public void testSavedAtFollowsTheOriginal() throws IOException {
+        long now = System.currentTimeMillis();
+        long old = now - 2 * Constants.IMAGE_GRACE_PERIOD_MS;
+        File original = createFile("image.jpg", 1, now);
+        File rendition = createFile("image@768.jpg", 1, old);
+        File temp = createFile("image.jpg.tmp", 1, old);
+        File stray = createFile(new File(ImageRenditions.pathFor("gone.jpg", 320)).getName(), 1, old);
+
+        assertEquals(original.lastModified(), ImageStore.savedAt(rendition));
+        assertEquals(original.lastModified(), ImageStore.savedAt(temp));
+        assertEquals(stray.lastModified(), ImageStore.savedAt(stray));
+    }
+}
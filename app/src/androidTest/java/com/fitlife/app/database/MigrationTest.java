@@ -0,0 +1,176 @@
+package com.fitlife.app.database;
+
+import android.database.Cursor;
+
+import androidx.room.migration.Migration;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Migrations from versions with data up to the current schema
+ * Schemas of versions before 10 (1, 4 and 5 here) were reconstructed from the entities
+ * of the time, as schema export was only turned on then.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+    private static final String TEST_DB = "migration-test";
+    private static final Migration[] FROM_4 = {
+        AppDatabase.MIGRATION_4_5, AppDatabase.MIGRATION_5_6, AppDatabase.MIGRATION_6_7,
+        AppDatabase.MIGRATION_7_8, AppDatabase.MIGRATION_8_9, AppDatabase.MIGRATION_9_10
+    };
+    private static final Migration[] FROM_1 = {
+        AppDatabase.MIGRATION_1_2, AppDatabase.MIGRATION_2_3, AppDatabase.MIGRATION_3_4,
+        AppDatabase.MIGRATION_4_5, AppDatabase.MIGRATION_5_6, AppDatabase.MIGRATION_6_7,
+        AppDatabase.MIGRATION_7_8, AppDatabase.MIGRATION_8_9, AppDatabase.MIGRATION_9_10
+    };
+    private static final String HASHED_IMAGE = "/files/workout_images/" +
+        "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef.jpg";
+    private static final String LEGACY_IMAGE = "/files/workout_images/workout_1_1700000000000.jpg";
+    private static final long CREATED_AT = 1_700_000_000_000L;
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+        InstrumentationRegistry.getInstrumentation(), AppDatabase.class);
+
+    /**
+     * One user with a workout whose exercises are all done, one with an open exercise and
+     * one without exercises; two of them share a legacy image
+     */
+    private static void insertData(SupportSQLiteDatabase db) {
+        db.execSQL("INSERT INTO `users` (`user_id`, `full_name`, `email`, `password_hash`, " +
+            "`created_at`, `last_login`) VALUES (1, 'Test User', 'test@example.com', 'hash', 0, 0)");
+        insertWorkout(db, 1, LEGACY_IMAGE);
+        insertWorkout(db, 2, LEGACY_IMAGE);
+        insertWorkout(db, 3, HASHED_IMAGE);
+        insertExercise(db, 10, 1, true);
+        insertExercise(db, 11, 1, true);
+        insertExercise(db, 20, 2, false);
+    }
+
+    private static void insertWorkout(SupportSQLiteDatabase db, int workoutId, String imagePath) {
+        db.execSQL("INSERT INTO `workouts` (`workout_id`, `user_id`, `workout_name`, `description`, " +
+            "`image_path`, `created_at`, `updated_at`, `is_completed`) VALUES (?, 1, 'Workout', NULL, ?, ?, ?, 0)",
+            new Object[]{workoutId, imagePath, CREATED_AT, CREATED_AT});
+    }
+
+    private static void insertExercise(SupportSQLiteDatabase db, int exerciseId, int workoutId,
+                                       boolean completed) {
+        db.execSQL("INSERT INTO `exercises` (`exercise_id`, `workout_id`, `exercise_name`, `sets`, " +
+            "`reps`, `instructions`, `is_completed`, `order_index`) VALUES (?, ?, 'Squat', 3, 10, NULL, ?, 0)",
+            new Object[]{exerciseId, workoutId, completed ? 1 : 0});
+    }
+
+    private static long queryLong(SupportSQLiteDatabase db, String sql, Object... args) {
+        try (Cursor cursor = db.query(sql, args)) {
+            assertTrue("No row for " + sql, cursor.moveToFirst());
+            return cursor.getLong(0);
+        }
+    }
+
+    private static String queryString(SupportSQLiteDatabase db, String sql, Object... args) {
+        try (Cursor cursor = db.query(sql, args)) {
+            assertTrue("No row for " + sql, cursor.moveToFirst());
+            return cursor.getString(0);
+        }
+    }
+
+    /**
+     * History, rollups and image references of the data above after migrating
+     */
+    private static void assertMigrated(SupportSQLiteDatabase db) {
+        // The finished workout is complete and seeded the history once
+        assertEquals(1, queryLong(db, "SELECT `is_completed` FROM `workouts` WHERE `workout_id` = 1"));
+        assertEquals(0, queryLong(db, "SELECT `is_completed` FROM `workouts` WHERE `workout_id` = 2"));
+        assertEquals(1, queryLong(db, "SELECT COUNT(*) FROM `workout_completions` WHERE `workout_id` = 1"));
+        assertEquals(1, queryLong(db, "SELECT COUNT(*) FROM `workout_completions`"));
+        for (String period : new String[]{"day", "week", "month"}) {
+            assertEquals(1, queryLong(db, "SELECT SUM(`completed_count`) FROM `completion_rollups` " +
+                "WHERE `user_id` = 1 AND `period` = ?", period));
+        }
+
+        assertEquals(2, queryLong(db, "SELECT `ref_count` FROM `images` WHERE `path` = ?", LEGACY_IMAGE));
+        assertNull(queryString(db, "SELECT `content_hash` FROM `images` WHERE `path` = ?", LEGACY_IMAGE));
+        assertEquals(1, queryLong(db, "SELECT `ref_count` FROM `images` WHERE `path` = ?", HASHED_IMAGE));
+        assertEquals("0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef",
+            queryString(db, "SELECT `content_hash` FROM `images` WHERE `path` = ?", HASHED_IMAGE));
+
+        // Current triggers are in place: finishing the open workout records a completion,
+        // deleting a workout drops its image reference
+        db.execSQL("UPDATE `exercises` SET `is_completed` = 1 WHERE `exercise_id` = 20");
+        assertEquals(1, queryLong(db, "SELECT `is_completed` FROM `workouts` WHERE `workout_id` = 2"));
+        assertEquals(2, queryLong(db, "SELECT COUNT(*) FROM `workout_completions`"));
+        assertEquals(2, queryLong(db, "SELECT SUM(`completed_count`) FROM `completion_rollups` " +
+            "WHERE `period` = 'month'"));
+        db.execSQL("DELETE FROM `workouts` WHERE `workout_id` = 1");
+        assertEquals(1, queryLong(db, "SELECT `ref_count` FROM `images` WHERE `path` = ?", LEGACY_IMAGE));
+
+        // Order keys were spread out and content hashes backfilled
+        assertEquals(0, queryLong(db, "SELECT COUNT(*) FROM `workouts` WHERE `content_hash` IS NULL"));
+        assertTrue(queryLong(db, "SELECT MIN(`order_index`) FROM `exercises`") > 0);
+    }
+
+    @Test
+    public void testMigrateFromVersion1() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 1);
+        insertData(db);
+        // Registered before emails were compared case-insensitively
+        db.execSQL("INSERT INTO `users` (`user_id`, `full_name`, `email`, `password_hash`, " +
+            "`created_at`, `last_login`) VALUES (2, 'Other User', 'Test@Example.com', 'other-hash', 0, 0)");
+        db.execSQL("INSERT INTO `workouts` (`workout_id`, `user_id`, `workout_name`, `description`, " +
+            "`image_path`, `created_at`, `updated_at`, `is_completed`) " +
+            "VALUES (4, 2, 'Own workout', NULL, NULL, ?, ?, 0)", new Object[]{CREATED_AT, CREATED_AT});
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 10, true, FROM_1);
+        assertMigrated(db);
+
+        // Both accounts survive with their credentials and workouts
+        assertEquals(2, queryLong(db, "SELECT COUNT(*) FROM `users`"));
+        assertEquals("test@example.com", queryString(db, "SELECT `email` FROM `users` WHERE `user_id` = 1"));
+        assertEquals("duplicate2+Test@Example.com",
+            queryString(db, "SELECT `email` FROM `users` WHERE `user_id` = 2"));
+        assertEquals("other-hash", queryString(db, "SELECT `password_hash` FROM `users` WHERE `user_id` = 2"));
+        assertEquals(2, queryLong(db, "SELECT `user_id` FROM `workouts` WHERE `workout_id` = 4"));
+        // Emails are unique regardless of case from now on
+        assertEquals(1, queryLong(db, "SELECT COUNT(*) FROM `users` WHERE `email` = 'TEST@EXAMPLE.COM'"));
+        db.close();
+    }
+
+    @Test
+    public void testMigrateFromVersion4() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 4);
+        insertData(db);
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 10, true, FROM_4);
+        assertMigrated(db);
+        db.close();
+    }
+
+    @Test
+    public void testMigrateFromVersion5() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 5);
+        // Version 5 databases had its completion triggers
+        DatabaseTriggers.createV5(db);
+        insertData(db);
+        // Completed by the triggers rather than the 4 -> 5 backfill
+        assertEquals(1, queryLong(db, "SELECT `is_completed` FROM `workouts` WHERE `workout_id` = 1"));
+        db.close();
+
+        Migration[] from5 = new Migration[FROM_4.length - 1];
+        System.arraycopy(FROM_4, 1, from5, 0, from5.length);
+        db = helper.runMigrationsAndValidate(TEST_DB, 10, true, from5);
+        assertMigrated(db);
+        db.close();
+    }
+}
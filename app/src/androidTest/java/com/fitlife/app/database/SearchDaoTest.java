@@ -0,0 +1,90 @@
+package com.fitlife.app.database;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.fitlife.app.database.dao.ExerciseDao;
+import com.fitlife.app.database.dao.SearchDao;
+import com.fitlife.app.database.dao.WorkoutDao;
+import com.fitlife.app.database.entities.Exercise;
+import com.fitlife.app.database.entities.User;
+import com.fitlife.app.database.entities.Workout;
+import com.fitlife.app.models.WorkoutSummary;
+import com.fitlife.app.utils.SearchQueryBuilder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class SearchDaoTest {
+    private WorkoutDao workoutDao;
+    private ExerciseDao exerciseDao;
+    private SearchDao searchDao;
+    private AppDatabase db;
+
+    @Before
+    public void createDb() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        workoutDao = db.workoutDao();
+        exerciseDao = db.exerciseDao();
+        searchDao = db.searchDao();
+        
+        // Workouts reference their user, and foreign keys are enforced
+        db.userDao().insert(new User("First User", "first@example.com", "hash"));
+        db.userDao().insert(new User("Second User", "second@example.com", "hash"));
+    }
+
+    @After
+    public void closeDb() throws IOException {
+        db.close();
+    }
+
+    private List<WorkoutSummary> search(int userId, String text) {
+        SearchQueryBuilder query = SearchQueryBuilder.parse(text);
+        return searchDao.searchWorkouts(userId, query.build(), query.build("workout_name"),
+            query.build("exercise_name"), 50);
+    }
+
+    @Test
+    public void testRanksNameMatchesFirst() throws Exception {
+        int byExercise = (int) workoutDao.insert(new Workout(1, "Leg Day", "", null));
+        exerciseDao.insert(new Exercise(byExercise, "Pushups", 3, 10));
+        int byName = (int) workoutDao.insert(new Workout(1, "Push Session", "", null));
+        int byInstructions = (int) workoutDao.insert(new Workout(1, "Core", "", null));
+        exerciseDao.insert(new Exercise(byInstructions, "Plank", 3, 1, "Push the floor away", 0));
+        workoutDao.insert(new Workout(2, "Push for someone else", "", null));
+
+        List<WorkoutSummary> results = search(1, "pus");
+        assertEquals(3, results.size());
+        assertEquals(byName, results.get(0).workout.getWorkoutId());
+        assertEquals(byExercise, results.get(1).workout.getWorkoutId());
+        assertEquals(1, results.get(1).exerciseCount);
+        assertEquals(byInstructions, results.get(2).workout.getWorkoutId());
+    }
+
+    @Test
+    public void testIndexFollowsUpdatesAndDeletes() throws Exception {
+        long id = workoutDao.insert(new Workout(1, "Morning Run", "", null));
+        assertEquals(1, search(1, "morning").size());
+
+        Workout workout = workoutDao.getWorkoutById((int) id);
+        workout.setWorkoutName("Evening Run");
+        workoutDao.update(workout);
+        assertTrue(search(1, "morning").isEmpty());
+        assertEquals(1, search(1, "evening run").size());
+
+        workoutDao.delete(workout);
+        assertTrue(search(1, "run").isEmpty());
+    }
+}
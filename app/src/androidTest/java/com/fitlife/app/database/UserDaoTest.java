@@ -1,6 +1,7 @@
 package com.fitlife.app.database;
 
 import android.content.Context;
+import android.database.sqlite.SQLiteConstraintException;
 
 import androidx.room.Room;
 import androidx.test.core.app.ApplicationProvider;
@@ -56,4 +57,20 @@ public class UserDaoTest {
         assertTrue(userDao.emailExists("test@example.com") > 0);
         assertEquals(0, userDao.emailExists("other@example.com"));
     }
+
+    @Test
+    public void emailIsUniqueIgnoringCase() throws Exception {
+        userDao.insert(new User("Test User", "test@example.com", "hashed_password"));
+        
+        try {
+            userDao.insert(new User("Other User", "Test@Example.com", "hashed_password"));
+            fail("Duplicate email should be rejected");
+        } catch (SQLiteConstraintException expected) {
+            // Registration maps this to the "email exists" error
+        }
+        
+        User byEmail = userDao.getUserByEmail("TEST@example.COM");
+        assertNotNull(byEmail);
+        assertEquals("Test User", byEmail.getFullName());
+    }
 }
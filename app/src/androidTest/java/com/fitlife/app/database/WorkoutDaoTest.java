@@ -6,8 +6,14 @@ import androidx.room.Room;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
+import com.fitlife.app.database.dao.ExerciseDao;
 import com.fitlife.app.database.dao.WorkoutDao;
+import com.fitlife.app.database.entities.Exercise;
+import com.fitlife.app.database.entities.User;
 import com.fitlife.app.database.entities.Workout;
+import com.fitlife.app.models.DashboardStats;
+import com.fitlife.app.models.WorkoutSummary;
+import com.fitlife.app.utils.CompletionPeriods;
 
 import org.junit.After;
 import org.junit.Before;
@@ -27,8 +33,14 @@ public class WorkoutDaoTest {
     @Before
     public void createDb() {
         Context context = ApplicationProvider.getApplicationContext();
-        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+            .addCallback(AppDatabase.CALLBACK)
+            .build();
         workoutDao = db.workoutDao();
+        
+        // Workouts (and completion history) reference their user
+        db.userDao().insert(new User("First User", "first@example.com", "hash"));
+        db.userDao().insert(new User("Second User", "second@example.com", "hash"));
     }
 
     @After
@@ -67,4 +79,85 @@ public class WorkoutDaoTest {
         assertTrue(updated.isCompleted());
         assertEquals(1, workoutDao.getCompletedWorkoutCount(1));
     }
+
+    @Test
+    public void testDashboardStats() throws Exception {
+        long now = System.currentTimeMillis();
+        workoutDao.insert(new Workout(1, "Workout 1", "", null));
+        long id = workoutDao.insert(new Workout(1, "Workout 2", "", null));
+        workoutDao.insert(new Workout(2, "Other User", "", null));
+        
+        workoutDao.updateCompletionStatus((int) id, true, now);
+        
+        DashboardStats stats = workoutDao.getDashboardStats(1, CompletionPeriods.weekKey(now));
+        assertEquals(2, stats.totalWorkouts);
+        assertEquals(1, stats.completedWorkouts);
+        assertEquals(1, stats.completedThisWeek);
+        assertEquals(0, stats.equipmentCount);
+        
+        // History survives a reset
+        workoutDao.resetAllWorkouts(1);
+        DashboardStats afterReset = workoutDao.getDashboardStats(1, CompletionPeriods.weekKey(now));
+        assertEquals(0, afterReset.completedWorkouts);
+        assertEquals(1, afterReset.completedThisWeek);
+        
+        long nextWeek = now + 7L * 24 * 60 * 60 * 1000;
+        assertEquals(0, workoutDao.getDashboardStats(1, CompletionPeriods.weekKey(nextWeek)).completedThisWeek);
+    }
+
+    @Test
+    public void testSummariesPageCountsExercises() throws Exception {
+        ExerciseDao exerciseDao = db.exerciseDao();
+        int emptyId = (int) workoutDao.insert(new Workout(1, "Empty", "", null));
+        int fullId = (int) workoutDao.insert(new Workout(1, "Full", "", null));
+        
+        long first = exerciseDao.insert(new Exercise(fullId, "Squat", 3, 10));
+        exerciseDao.insert(new Exercise(fullId, "Lunge", 3, 10));
+        exerciseDao.insert(new Exercise(fullId, "Plank", 1, 1));
+        exerciseDao.updateCompletionStatus((int) first, true);
+        
+        List<WorkoutSummary> page = workoutDao.getFirstSummariesPage(1, 10);
+        assertEquals(2, page.size());
+        for (WorkoutSummary summary : page) {
+            if (summary.workout.getWorkoutId() == fullId) {
+                assertEquals(3, summary.exerciseCount);
+                assertEquals(1, summary.completedExerciseCount);
+                assertEquals(33, summary.getCompletionPercentage());
+            } else {
+                assertEquals(emptyId, summary.workout.getWorkoutId());
+                assertEquals(0, summary.exerciseCount);
+                assertEquals(0, summary.getCompletionPercentage());
+            }
+        }
+        
+        WorkoutSummary last = page.get(page.size() - 1);
+        assertTrue(workoutDao.getSummariesPageAfter(1, last.workout.getCreatedAt(),
+            last.workout.getWorkoutId(), 10).isEmpty());
+    }
+    
+    @Test
+    public void testSummaryPagesBeforeAndAfterKeyset() throws Exception {
+        // Same creation time, so workout_id breaks the ties
+        int[] ids = new int[6];
+        for (int i = 0; i < ids.length; i++) {
+            Workout workout = new Workout(1, "Workout " + i, "", null);
+            workout.setCreatedAt(1000);
+            ids[i] = (int) workoutDao.insert(workout);
+        }
+        // Newest first: ids[5] ... ids[0]
+        List<WorkoutSummary> after = workoutDao.getSummariesPageAfter(1, 1000, ids[3], 2);
+        assertEquals(ids[2], after.get(0).workout.getWorkoutId());
+        assertEquals(ids[1], after.get(1).workout.getWorkoutId());
+        
+        List<WorkoutSummary> before = workoutDao.getSummariesPageBefore(1, 1000, ids[2], 2);
+        assertEquals(2, before.size());
+        assertEquals(ids[4], before.get(0).workout.getWorkoutId());
+        assertEquals(ids[3], before.get(1).workout.getWorkoutId());
+        
+        assertEquals(1, workoutDao.getSummariesPageBefore(1, 1000, ids[4], 2).size());
+        
+        // Keyset position included, as used to refresh a window from its first row
+        assertEquals(ids[3], workoutDao.getSummariesPageAfter(1, 1000, ids[3] + 1, 2)
+            .get(0).workout.getWorkoutId());
+    }
 }
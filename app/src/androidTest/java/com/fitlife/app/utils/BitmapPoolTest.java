@@ -0,0 +1,104 @@
+package com.fitlife.app.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class BitmapPoolTest {
+    private static final int BYTES_100 = 100 * 100 * 4;
+
+    private static Bitmap bitmap(int size) {
+        return Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+    }
+
+    @Test
+    public void testReusesPooledBitmapAtRequestedSize() {
+        BitmapPool pool = new BitmapPool(10L * BYTES_100);
+        Bitmap pooled = bitmap(100);
+        pool.put(pooled);
+
+        Bitmap reused = pool.get(80, 60, Bitmap.Config.ARGB_8888);
+        assertSame(pooled, reused);
+        assertEquals(80, reused.getWidth());
+        assertEquals(60, reused.getHeight());
+        assertEquals(1, pool.getHitCount());
+        assertEquals(0, pool.getSizeBytes());
+
+        // Taken out, so the next request misses
+        assertNull(pool.get(80, 60, Bitmap.Config.ARGB_8888));
+        assertEquals(1, pool.getMissCount());
+    }
+
+    @Test
+    public void testMissesWhenTooSmallOrTooWasteful() {
+        BitmapPool pool = new BitmapPool(100L * BYTES_100);
+        pool.put(bitmap(10));
+        pool.put(bitmap(200));
+
+        assertNull(pool.get(100, 100, Bitmap.Config.ARGB_8888));
+        // 200x200 would waste more than four times the memory of 20x20
+        assertNull(pool.get(20, 20, Bitmap.Config.ARGB_8888));
+        assertEquals(2, pool.getMissCount());
+        assertNotNull(pool.get(150, 150, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void testEvictsOldestBeyondLimit() {
+        BitmapPool pool = new BitmapPool(3L * BYTES_100);
+        Bitmap oldest = bitmap(100);
+        pool.put(oldest);
+        pool.put(bitmap(100));
+        pool.put(bitmap(100));
+        pool.put(bitmap(100));
+
+        assertEquals(1, pool.getEvictionCount());
+        assertTrue(oldest.isRecycled());
+        assertEquals(3L * BYTES_100, pool.getSizeBytes());
+    }
+
+    @Test
+    public void testImmutableBitmapIsRecycled() {
+        BitmapPool pool = new BitmapPool(10L * BYTES_100);
+        Bitmap immutable = bitmap(100).copy(Bitmap.Config.ARGB_8888, false);
+        pool.put(immutable);
+
+        assertTrue(immutable.isRecycled());
+        assertEquals(0, pool.getSizeBytes());
+    }
+
+    @Test
+    public void testDecodeFileIntoPooledBitmap() throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        File file = new File(context.getCacheDir(), "pool_test.png");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            bitmap(64).compress(Bitmap.CompressFormat.PNG, 100, out);
+        }
+
+        BitmapPool pool = new BitmapPool(10L * BYTES_100);
+        Bitmap pooled = bitmap(100);
+        pool.put(pooled);
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        options.inJustDecodeBounds = false;
+        Bitmap decoded = pool.decodeFile(file.getPath(), options);
+
+        assertSame(pooled, decoded);
+        assertEquals(64, decoded.getWidth());
+        assertEquals(64, decoded.getHeight());
+        file.delete();
+    }
+}
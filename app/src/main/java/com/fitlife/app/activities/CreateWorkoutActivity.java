@@ -6,26 +6,35 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.provider.MediaStore;
 import android.view.MenuItem;
+import android.view.View;
 import android.widget.ImageView;
 import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.fitlife.app.R;
 import com.fitlife.app.adapters.ExerciseAdapter;
+import com.fitlife.app.adapters.HeaderAdapter;
 import com.fitlife.app.database.AppDatabase;
+import com.fitlife.app.database.ImageStore;
 import com.fitlife.app.database.dao.ExerciseDao;
 import com.fitlife.app.database.dao.WorkoutDao;
 import com.fitlife.app.database.entities.Exercise;
 import com.fitlife.app.database.entities.Workout;
+import com.fitlife.app.gestures.DragReorderCallback;
 import com.fitlife.app.interfaces.OnExerciseActionListener;
+import com.fitlife.app.utils.AppExecutors;
 import com.fitlife.app.utils.Constants;
+import com.fitlife.app.utils.ContentHash;
 import com.fitlife.app.utils.ExerciseDialogHelper;
 import com.fitlife.app.utils.ImageHelper;
+import com.fitlife.app.utils.ImageRenditions;
+import com.fitlife.app.utils.OrderKeys;
 import com.fitlife.app.utils.PreferenceManager;
 import com.fitlife.app.utils.ValidationHelper;
 import com.google.android.material.button.MaterialButton;
@@ -34,7 +43,6 @@ import com.google.android.material.textfield.TextInputLayout;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
 
 
 public class CreateWorkoutActivity extends AppCompatActivity {
@@ -46,18 +54,21 @@ public class CreateWorkoutActivity extends AppCompatActivity {
     private TextInputEditText etWorkoutName;
     private TextInputEditText etWorkoutDescription;
     private RecyclerView rvExercises;
+    private View formHeader;
+    private View formFooter;
     private MaterialButton btnAddExercise;
     private MaterialButton btnSaveWorkout;
 
     private AppDatabase database;
+    private AppExecutors appExecutors;
     private WorkoutDao workoutDao;
     private ExerciseDao exerciseDao;
+    private ImageStore imageStore;
     private PreferenceManager preferenceManager;
     
     private Bitmap selectedImage;
     private String imagePath;
     
-    private List<Exercise> exerciseList;
     private ExerciseAdapter exerciseAdapter;
     
     @Override
@@ -74,33 +85,39 @@ public class CreateWorkoutActivity extends AppCompatActivity {
    
     private void initializeDatabase() {
         database = AppDatabase.getInstance(this);
+        appExecutors = AppExecutors.getInstance();
         workoutDao = database.workoutDao();
         exerciseDao = database.exerciseDao();
+        imageStore = ImageStore.getInstance(this);
         preferenceManager = new PreferenceManager(this);
     }
     
    
     private void initializeViews() {
-        ivWorkoutImage = findViewById(R.id.iv_workout_image);
-        btnSelectImage = findViewById(R.id.btn_select_image);
-        tilWorkoutName = findViewById(R.id.til_workout_name);
-        tilWorkoutDescription = findViewById(R.id.til_workout_description);
-        etWorkoutName = findViewById(R.id.et_workout_name);
-        etWorkoutDescription = findViewById(R.id.et_workout_description);
         rvExercises = findViewById(R.id.rv_exercises);
-        btnAddExercise = findViewById(R.id.btn_add_exercise);
-        btnSaveWorkout = findViewById(R.id.btn_save_workout);
+        
+        // The form and buttons are sections of the exercise list, so only visible rows are inflated
+        formHeader = getLayoutInflater().inflate(R.layout.header_workout_form, rvExercises, false);
+        formFooter = getLayoutInflater().inflate(R.layout.footer_workout_form, rvExercises, false);
+        
+        ivWorkoutImage = formHeader.findViewById(R.id.iv_workout_image);
+        btnSelectImage = formHeader.findViewById(R.id.btn_select_image);
+        tilWorkoutName = formHeader.findViewById(R.id.til_workout_name);
+        tilWorkoutDescription = formHeader.findViewById(R.id.til_workout_description);
+        etWorkoutName = formHeader.findViewById(R.id.et_workout_name);
+        etWorkoutDescription = formHeader.findViewById(R.id.et_workout_description);
+        btnAddExercise = formFooter.findViewById(R.id.btn_add_exercise);
+        btnSaveWorkout = formFooter.findViewById(R.id.btn_save_workout);
         
         rvExercises.setLayoutManager(new LinearLayoutManager(this));
-        exerciseList = new ArrayList<>();
-        exerciseAdapter = new ExerciseAdapter(this, exerciseList, new OnExerciseActionListener() {
+        exerciseAdapter = new ExerciseAdapter(this, new OnExerciseActionListener() {
             @Override
             public void onExerciseClick(Exercise exercise) {
                             }
 
             @Override
             public void onEditExercise(Exercise exercise, int position) {
-                editExercise(exercise, position);
+                editExercise(exercise);
             }
 
             @Override
@@ -113,7 +130,15 @@ public class CreateWorkoutActivity extends AppCompatActivity {
               
             }
         });
-        rvExercises.setAdapter(exerciseAdapter);
+        rvExercises.setAdapter(HeaderAdapter.concat(
+            new HeaderAdapter(formHeader), exerciseAdapter, new HeaderAdapter(formFooter)));
+        // Long press and drag to reorder
+        new ItemTouchHelper(new DragReorderCallback(exerciseAdapter) {
+            @Override
+            public void onItemMoved(int from, int to) {
+                exerciseAdapter.moveExercise(from, to);
+            }
+        }).attachToRecyclerView(rvExercises);
     }
     
     
@@ -157,9 +182,9 @@ public class CreateWorkoutActivity extends AppCompatActivity {
     }
     
     
-    private void editExercise(Exercise exercise, int position) {
+    private void editExercise(Exercise exercise) {
         ExerciseDialogHelper.showEditExerciseDialog(this, exercise, updatedExercise -> {
-            exerciseAdapter.updateExercise(position, updatedExercise);
+            exerciseAdapter.updateExercise(updatedExercise);
         });
     }
     
@@ -189,36 +214,45 @@ public class CreateWorkoutActivity extends AppCompatActivity {
         }
         
         btnSaveWorkout.setEnabled(false);
+        List<Exercise> exercises = new ArrayList<>(exerciseAdapter.getExercises());
         
-        Executors.newSingleThreadExecutor().execute(() -> {
+        appExecutors.diskIO().execute(() -> {
             int userId = preferenceManager.getUserId();
             
             long timestamp = System.currentTimeMillis();
             if (selectedImage != null) {
-              
-                imagePath = ImageHelper.saveImageToInternalStorage(this, selectedImage, (int) (timestamp / 1000));
+                imagePath = imageStore.save(selectedImage);
             }
             
             
             Workout workout = new Workout(userId, workoutName, workoutDescription);
             if (imagePath != null) {
                 workout.setImagePath(imagePath);
+                workout.setImageRenditions(ImageRenditions.existing(imagePath));
             }
             workout.setCreatedAt(timestamp);
             workout.setUpdatedAt(timestamp);
+            
+            // New exercises have no equipment yet
+            ContentHash hash = new ContentHash(workoutName, workoutDescription, timestamp);
+            for (Exercise exercise : exercises) {
+                hash.addExercise(exercise.getExerciseName(), exercise.getSets(), exercise.getReps(),
+                    exercise.getInstructions());
+            }
+            workout.setContentHash(hash.build());
          
             long workoutId = workoutDao.insert(workout);
           
-            if (!exerciseList.isEmpty()) {
-                for (int i = 0; i < exerciseList.size(); i++) {
-                    Exercise exercise = exerciseList.get(i);
+            if (!exercises.isEmpty()) {
+                for (int i = 0; i < exercises.size(); i++) {
+                    Exercise exercise = exercises.get(i);
                     exercise.setWorkoutId((int) workoutId);
-                    exercise.setOrderIndex(i);
+                    exercise.setOrderIndex(OrderKeys.initial(i));
                 }
-                exerciseDao.insertBack(exerciseList);
+                exerciseDao.insertBack(exercises);
             }
             
-            runOnUiThread(() -> {
+            appExecutors.postToMain(this, () -> {
                 btnSaveWorkout.setEnabled(true);
                 Toast.makeText(this, getString(R.string.success_workout_created), Toast.LENGTH_SHORT).show();
                 finish();
@@ -234,10 +268,15 @@ public class CreateWorkoutActivity extends AppCompatActivity {
         if (requestCode == Constants.REQUEST_IMAGE_PICK && resultCode == RESULT_OK && data != null) {
             Uri imageUri = data.getData();
             if (imageUri != null) {
-                selectedImage = ImageHelper.loadAndResizeBitmap(this, imageUri);
-                if (selectedImage != null) {
-                    ivWorkoutImage.setImageBitmap(selectedImage);
-                }
+                // Saving waits for the picked image
+                btnSaveWorkout.setEnabled(false);
+                ImageHelper.loadAndResizeBitmapAsync(this, imageUri, bitmap -> {
+                    btnSaveWorkout.setEnabled(true);
+                    if (bitmap != null) {
+                        selectedImage = bitmap;
+                        ivWorkoutImage.setImageBitmap(bitmap);
+                    }
+                });
             }
         }
     }
@@ -6,26 +6,34 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.provider.MediaStore;
 import android.view.MenuItem;
+import android.view.View;
 import android.widget.ImageView;
 import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.fitlife.app.R;
 import com.fitlife.app.adapters.ExerciseAdapter;
+import com.fitlife.app.adapters.HeaderAdapter;
 import com.fitlife.app.database.AppDatabase;
+import com.fitlife.app.database.CompletionWriteBuffer;
+import com.fitlife.app.database.ImageStore;
 import com.fitlife.app.database.dao.ExerciseDao;
 import com.fitlife.app.database.dao.WorkoutDao;
 import com.fitlife.app.database.entities.Exercise;
 import com.fitlife.app.database.entities.Workout;
+import com.fitlife.app.gestures.DragReorderCallback;
 import com.fitlife.app.interfaces.OnExerciseActionListener;
+import com.fitlife.app.utils.AppExecutors;
 import com.fitlife.app.utils.Constants;
 import com.fitlife.app.utils.ExerciseDialogHelper;
 import com.fitlife.app.utils.ImageHelper;
+import com.fitlife.app.utils.ImageRenditions;
 import com.fitlife.app.utils.ValidationHelper;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
@@ -33,7 +41,6 @@ import com.google.android.material.textfield.TextInputLayout;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
 
 
 
@@ -46,20 +53,24 @@ public class EditWorkoutActivity extends AppCompatActivity {
     private TextInputEditText etWorkoutName;
     private TextInputEditText etWorkoutDescription;
     private RecyclerView rvExercises;
+    private View formHeader;
+    private View formFooter;
     private MaterialButton btnAddExercise;
     private MaterialButton btnSaveWorkout;
     
     private AppDatabase database;
+    private AppExecutors appExecutors;
     private WorkoutDao workoutDao;
     private ExerciseDao exerciseDao;
+    private ImageStore imageStore;
     
     private Workout workout;
     private Bitmap selectedImage;
     private String imagePath;
     
-    private List<Exercise> exerciseList;
     private ExerciseAdapter exerciseAdapter;
-    private List<Exercise> exercisesToDelete; 
+    // Copies of the exercises as loaded, used to save only what changed
+    private final List<Exercise> originalExercises = new ArrayList<>();
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -76,36 +87,41 @@ public class EditWorkoutActivity extends AppCompatActivity {
    
     private void initializeDatabase() {
         database = AppDatabase.getInstance(this);
+        appExecutors = AppExecutors.getInstance();
         workoutDao = database.workoutDao();
         exerciseDao = database.exerciseDao();
-        exercisesToDelete = new ArrayList<>();
+        imageStore = ImageStore.getInstance(this);
     }
     
     
     private void initializeViews() {
-        ivWorkoutImage = findViewById(R.id.iv_workout_image);
-        btnSelectImage = findViewById(R.id.btn_select_image);
-        tilWorkoutName = findViewById(R.id.til_workout_name);
-        tilWorkoutDescription = findViewById(R.id.til_workout_description);
-        etWorkoutName = findViewById(R.id.et_workout_name);
-        etWorkoutDescription = findViewById(R.id.et_workout_description);
         rvExercises = findViewById(R.id.rv_exercises);
-        btnAddExercise = findViewById(R.id.btn_add_exercise);
-        btnSaveWorkout = findViewById(R.id.btn_save_workout);
+        
+        // The form and buttons are sections of the exercise list, so only visible rows are inflated
+        formHeader = getLayoutInflater().inflate(R.layout.header_workout_form, rvExercises, false);
+        formFooter = getLayoutInflater().inflate(R.layout.footer_workout_form, rvExercises, false);
+        
+        ivWorkoutImage = formHeader.findViewById(R.id.iv_workout_image);
+        btnSelectImage = formHeader.findViewById(R.id.btn_select_image);
+        tilWorkoutName = formHeader.findViewById(R.id.til_workout_name);
+        tilWorkoutDescription = formHeader.findViewById(R.id.til_workout_description);
+        etWorkoutName = formHeader.findViewById(R.id.et_workout_name);
+        etWorkoutDescription = formHeader.findViewById(R.id.et_workout_description);
+        btnAddExercise = formFooter.findViewById(R.id.btn_add_exercise);
+        btnSaveWorkout = formFooter.findViewById(R.id.btn_save_workout);
+        btnSelectImage.setText(R.string.change_image);
+        btnSaveWorkout.setText(R.string.update_workout);
 
         rvExercises.setLayoutManager(new LinearLayoutManager(this));
-        exerciseList = new ArrayList<>();
-        exerciseAdapter = new ExerciseAdapter(this, exerciseList, new OnExerciseActionListener() {
+        exerciseAdapter = new ExerciseAdapter(this, new OnExerciseActionListener() {
             @Override
             public void onExerciseClick(Exercise exercise) {
-              
-                int position = exerciseList.indexOf(exercise);
-                editExercise(exercise, position);
+                editExercise(exercise);
             }
 
             @Override
             public void onEditExercise(Exercise exercise, int position) {
-                editExercise(exercise, position);
+                editExercise(exercise);
             }
 
             @Override
@@ -115,11 +131,20 @@ public class EditWorkoutActivity extends AppCompatActivity {
 
             @Override
             public void onExerciseCompletionChanged(Exercise exercise, boolean isCompleted) {
-               
-                exercise.setCompleted(isCompleted);
+                Exercise updated = new Exercise(exercise);
+                updated.setCompleted(isCompleted);
+                exerciseAdapter.updateExercise(updated);
             }
         });
-        rvExercises.setAdapter(exerciseAdapter);
+        rvExercises.setAdapter(HeaderAdapter.concat(
+            new HeaderAdapter(formHeader), exerciseAdapter, new HeaderAdapter(formFooter)));
+        // Long press and drag to reorder
+        new ItemTouchHelper(new DragReorderCallback(exerciseAdapter) {
+            @Override
+            public void onItemMoved(int from, int to) {
+                exerciseAdapter.moveExercise(from, to);
+            }
+        }).attachToRecyclerView(rvExercises);
     }
     
     
@@ -151,27 +176,30 @@ public class EditWorkoutActivity extends AppCompatActivity {
             return;
         }
         
-        Executors.newSingleThreadExecutor().execute(() -> {
+        CompletionWriteBuffer completionBuffer = CompletionWriteBuffer.getInstance(this);
+        appExecutors.diskIO().execute(() -> {
+            // Load (and later save) the completion states the user last saw
+            completionBuffer.flushBlocking();
             workout = workoutDao.getWorkoutById(workoutId);
             List<Exercise> dbExercises = exerciseDao.getExercisesByWorkoutId(workoutId);
             
-            runOnUiThread(() -> {
+            appExecutors.postToMain(this, () -> {
                 if (workout != null) {
                     etWorkoutName.setText(workout.getWorkoutName());
                     etWorkoutDescription.setText(workout.getDescription());
                     
                   
                     if (workout.getImagePath() != null) {
-                        Bitmap bitmap = ImageHelper.loadImageFromPath(workout.getImagePath());
-                        if (bitmap != null) {
-                            ivWorkoutImage.setImageBitmap(bitmap);
-                        }
+                        ImageHelper.loadImageAsync(ivWorkoutImage, workout.getImagePath(),
+                            workout.getImageRenditions(), 0);
                     }
                     
                    
-                    exerciseList.clear();
-                    exerciseList.addAll(dbExercises);
-                    exerciseAdapter.notifyDataSetChanged();
+                    originalExercises.clear();
+                    for (Exercise exercise : dbExercises) {
+                        originalExercises.add(new Exercise(exercise));
+                    }
+                    exerciseAdapter.submitList(dbExercises);
                 }
             });
         });
@@ -199,16 +227,13 @@ public class EditWorkoutActivity extends AppCompatActivity {
     }
     
     
-    private void editExercise(Exercise exercise, int position) {
+    private void editExercise(Exercise exercise) {
         ExerciseDialogHelper.showEditExerciseDialog(this, exercise, updatedExercise -> {
-            exerciseAdapter.updateExercise(position, updatedExercise);
+            exerciseAdapter.updateExercise(updatedExercise);
         });
     }
    
     private void deleteExercise(Exercise exercise, int position) {
-        if (exercise.getExerciseId() != 0) {
-            exercisesToDelete.add(exercise);
-        }
         exerciseAdapter.removeExercise(position);
     }
     
@@ -233,40 +258,36 @@ public class EditWorkoutActivity extends AppCompatActivity {
         }
         
         btnSaveWorkout.setEnabled(false);
+        List<Exercise> editedExercises = new ArrayList<>(exerciseAdapter.getExercises());
         
-        Executors.newSingleThreadExecutor().execute(() -> {
+        appExecutors.diskIO().execute(() -> {
                      workout.setWorkoutName(workoutName);
             workout.setDescription(workoutDescription);
             workout.setUpdatedAt(System.currentTimeMillis());
             
             
+            // The old image stays if the new one cannot be saved
+            String oldImagePath = workout.getImagePath();
             if (selectedImage != null) {
-                       if (workout.getImagePath() != null) {
-                    ImageHelper.deleteImage(workout.getImagePath());
+                imagePath = imageStore.save(selectedImage);
+                if (imagePath != null) {
+                    workout.setImagePath(imagePath);
+                    workout.setImageRenditions(ImageRenditions.existing(imagePath));
                 }
-                imagePath = ImageHelper.saveImageToInternalStorage(this, selectedImage, workout.getWorkoutId());
-                workout.setImagePath(imagePath);
             }
             
-             workoutDao.update(workout);
-            
-                       if (!exercisesToDelete.isEmpty()) {
-                exerciseDao.delete(exercisesToDelete);
-            }
-            
-                      for (int i = 0; i < exerciseList.size(); i++) {
-                Exercise exercise = exerciseList.get(i);
-                exercise.setWorkoutId(workout.getWorkoutId());
-                exercise.setOrderIndex(i);
-                
-                if (exercise.getExerciseId() == 0) {
-                    exerciseDao.insert(exercise);
-                } else {
-                    exerciseDao.update(exercise);
-                }
+            // One commit for the workout row and only the exercises that changed
+            database.runInTransaction(() -> {
+                workoutDao.update(workout);
+                exerciseDao.applyChanges(originalExercises, editedExercises, workout.getWorkoutId());
+                workoutDao.refreshContentHash(workout.getWorkoutId());
+            });
+            // Other workouts may still use the old image
+            if (oldImagePath != null && !oldImagePath.equals(workout.getImagePath())) {
+                imageStore.release(oldImagePath);
             }
             
-            runOnUiThread(() -> {
+            appExecutors.postToMain(this, () -> {
                 btnSaveWorkout.setEnabled(true);
                 Toast.makeText(this, getString(R.string.success_workout_updated), Toast.LENGTH_SHORT).show();
                 finish();
@@ -282,10 +303,17 @@ public class EditWorkoutActivity extends AppCompatActivity {
         if (requestCode == Constants.REQUEST_IMAGE_PICK && resultCode == RESULT_OK && data != null) {
             Uri imageUri = data.getData();
             if (imageUri != null) {
-                selectedImage = ImageHelper.loadAndResizeBitmap(this, imageUri);
-                if (selectedImage != null) {
-                    ivWorkoutImage.setImageBitmap(selectedImage);
-                }
+                // Saving waits for the picked image
+                btnSaveWorkout.setEnabled(false);
+                ImageHelper.loadAndResizeBitmapAsync(this, imageUri, bitmap -> {
+                    btnSaveWorkout.setEnabled(true);
+                    if (bitmap != null) {
+                        selectedImage = bitmap;
+                        // Keep a still-loading stored image from replacing the picked one
+                        ImageHelper.cancelImageLoad(ivWorkoutImage);
+                        ivWorkoutImage.setImageBitmap(bitmap);
+                    }
+                });
             }
         }
     }
@@ -17,6 +17,7 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
 import androidx.appcompat.widget.Toolbar;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
@@ -25,8 +26,15 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.fitlife.app.R;
+import com.fitlife.app.adapters.HeaderAdapter;
 import com.fitlife.app.adapters.WorkoutAdapter;
 import com.fitlife.app.database.AppDatabase;
+import com.fitlife.app.database.CompletionWriteBuffer;
+import com.fitlife.app.database.DashboardStatsCache;
+import com.fitlife.app.database.ImageStore;
+import com.fitlife.app.database.TableChangeObserver;
+import com.fitlife.app.database.WorkoutPager;
+import com.fitlife.app.database.WorkoutSearch;
 import com.fitlife.app.database.dao.EquipmentDao;
 import com.fitlife.app.database.dao.ExerciseDao;
 import com.fitlife.app.database.dao.WorkoutDao;
@@ -35,6 +43,9 @@ import com.fitlife.app.database.entities.Workout;
 import com.fitlife.app.gestures.ShakeDetector;
 import com.fitlife.app.gestures.SwipeGestureCallback;
 import com.fitlife.app.interfaces.OnWorkoutClickListener;
+import com.fitlife.app.models.DashboardStats;
+import com.fitlife.app.models.WorkoutSummary;
+import com.fitlife.app.utils.AppExecutors;
 import com.fitlife.app.utils.Constants;
 import com.fitlife.app.utils.PreferenceManager;
 import com.fitlife.app.utils.SMSHelper;
@@ -42,8 +53,8 @@ import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.Executors;
 
 /**
  * Home Activity - Main dashboard showing workout list
@@ -57,18 +68,29 @@ public class HomeActivity extends AppCompatActivity {
     private TextView tvCompletedWorkouts;
     private TextView tvEquipmentCount;
     private RecyclerView rvWorkouts;
+    private LinearLayoutManager layoutManager;
+    private View homeHeader;
+    private HeaderAdapter headerAdapter;
     private View layoutEmptyState;
+    private TextView tvNoSearchResults;
     private ProgressBar progressBar;
     private FloatingActionButton fabCreateWorkout;
     
     private AppDatabase database;
+    private AppExecutors appExecutors;
     private WorkoutDao workoutDao;
     private EquipmentDao equipmentDao;
     private ExerciseDao exerciseDao;
+    private DashboardStatsCache statsCache;
+    private CompletionWriteBuffer completionBuffer;
+    private ImageStore imageStore;
     private PreferenceManager preferenceManager;
     
-    private List<Workout> workoutList;
     private WorkoutAdapter workoutAdapter;
+    private WorkoutPager workoutPager;
+    private WorkoutSearch workoutSearch;
+    // Latest pager results, shown again when a search is cleared
+    private List<WorkoutSummary> pagedWorkouts = Collections.emptyList();
     private Workout pendingShareWorkout;
     
     // Shake detection
@@ -85,7 +107,10 @@ public class HomeActivity extends AppCompatActivity {
         initializeViews();
         setupToolbar();
         setupShakeDetector();
+        setupPager();
+        setupSearch();
         loadData();
+        observeDataChanges();
         setupListeners();
     }
     
@@ -94,9 +119,13 @@ public class HomeActivity extends AppCompatActivity {
      */
     private void initializeDatabase() {
         database = AppDatabase.getInstance(this);
+        appExecutors = AppExecutors.getInstance();
         workoutDao = database.workoutDao();
         equipmentDao = database.equipmentDao();
         exerciseDao = database.exerciseDao();
+        statsCache = DashboardStatsCache.getInstance(this);
+        completionBuffer = CompletionWriteBuffer.getInstance(this);
+        imageStore = ImageStore.getInstance(this);
         preferenceManager = new PreferenceManager(this);
     }
     
@@ -104,10 +133,15 @@ public class HomeActivity extends AppCompatActivity {
      * Initialize UI components
      */
     private void initializeViews() {
-        tvWelcome = findViewById(R.id.tv_welcome);
-        View layoutTotalWorkouts = findViewById(R.id.layout_total_workouts);
-        View layoutCompletedWorkouts = findViewById(R.id.layout_completed_workouts);
-        View layoutEquipmentCount = findViewById(R.id.layout_equipment_count);
+        rvWorkouts = findViewById(R.id.rv_workouts);
+        
+        // Welcome and stats scroll with the workouts as the first section of one list
+        homeHeader = getLayoutInflater().inflate(R.layout.header_home, rvWorkouts, false);
+        
+        tvWelcome = homeHeader.findViewById(R.id.tv_welcome);
+        View layoutTotalWorkouts = homeHeader.findViewById(R.id.layout_total_workouts);
+        View layoutCompletedWorkouts = homeHeader.findViewById(R.id.layout_completed_workouts);
+        View layoutEquipmentCount = homeHeader.findViewById(R.id.layout_equipment_count);
         
         tvTotalWorkouts = layoutTotalWorkouts.findViewById(R.id.tv_stat_value);
         TextView tvLabelTotal = layoutTotalWorkouts.findViewById(R.id.tv_stat_label);
@@ -120,9 +154,9 @@ public class HomeActivity extends AppCompatActivity {
         tvEquipmentCount = layoutEquipmentCount.findViewById(R.id.tv_stat_value);
         TextView tvLabelEquipment = layoutEquipmentCount.findViewById(R.id.tv_stat_label);
         tvLabelEquipment.setText(R.string.equipment_items);
-        rvWorkouts = findViewById(R.id.rv_workouts);
-        layoutEmptyState = findViewById(R.id.layout_empty_state);
-        progressBar = findViewById(R.id.progressBar);
+        layoutEmptyState = homeHeader.findViewById(R.id.layout_empty_state);
+        tvNoSearchResults = homeHeader.findViewById(R.id.tv_no_search_results);
+        progressBar = homeHeader.findViewById(R.id.progressBar);
         fabCreateWorkout = findViewById(R.id.fab_create_workout);
         
         // Set welcome message
@@ -130,9 +164,9 @@ public class HomeActivity extends AppCompatActivity {
         tvWelcome.setText(getString(R.string.hi_user, userName));
         
         // Setup RecyclerView
-        rvWorkouts.setLayoutManager(new LinearLayoutManager(this));
-        workoutList = new ArrayList<>();
-        workoutAdapter = new WorkoutAdapter(this, workoutList, new OnWorkoutClickListener() {
+        layoutManager = new LinearLayoutManager(this);
+        rvWorkouts.setLayoutManager(layoutManager);
+        workoutAdapter = new WorkoutAdapter(this, new OnWorkoutClickListener() {
             @Override
             public void onWorkoutClick(Workout workout) {
                 openWorkoutDetail(workout);
@@ -168,7 +202,8 @@ public class HomeActivity extends AppCompatActivity {
                  showQuickViewDialog(workout);
             }
         });
-        rvWorkouts.setAdapter(workoutAdapter);
+        headerAdapter = new HeaderAdapter(homeHeader);
+        rvWorkouts.setAdapter(HeaderAdapter.concat(headerAdapter, workoutAdapter));
         
         // Setup swipe gestures
         setupSwipeGestures();
@@ -222,15 +257,24 @@ public class HomeActivity extends AppCompatActivity {
      */
     private void setupSwipeGestures() {
         SwipeGestureCallback swipeCallback = new SwipeGestureCallback(this) {
+            @Override
+            public boolean canSwipe(RecyclerView.ViewHolder viewHolder) {
+                // The header section is not a workout
+                return viewHolder.getBindingAdapter() == workoutAdapter;
+            }
+
             @Override
             public void onSwipeRight(int position) {
                 Workout workout = workoutAdapter.getWorkoutAt(position);
+                // Bring the swiped row back; the status change arrives as a partial bind
+                workoutAdapter.notifyItemChanged(position);
                 updateWorkoutCompletion(workout, true);
             }
 
             @Override
             public void onSwipeLeft(int position) {
                 Workout workout = workoutAdapter.getWorkoutAt(position);
+                workoutAdapter.notifyItemChanged(position);
                 confirmDeleteWorkout(workout);
             }
         };
@@ -269,6 +313,94 @@ public class HomeActivity extends AppCompatActivity {
         });
     }
     
+    /**
+     * Setup keyset pager for the workout list
+     * Only the first page is queried up front; later pages are fetched as the user scrolls
+     */
+    private void setupPager() {
+        workoutPager = new WorkoutPager(workoutDao, preferenceManager.getUserId(),
+            Constants.WORKOUT_PAGE_SIZE, Constants.WORKOUT_PREFETCH_DISTANCE,
+            Constants.WORKOUT_MAX_LOADED_ROWS, new WorkoutPager.OnPageLoadedListener() {
+                @Override
+                public void onPageLoaded(List<WorkoutSummary> workouts) {
+                    progressBar.setVisibility(View.GONE);
+                    pagedWorkouts = withPendingCompletions(workouts);
+                    if (!workoutSearch.isActive()) {
+                        showPagedWorkouts();
+                    }
+                }
+
+                @Override
+                public void onLoadFailed(Exception e) {
+                    progressBar.setVisibility(View.GONE);
+                    Toast.makeText(HomeActivity.this, "Error loading data", Toast.LENGTH_SHORT).show();
+                }
+            });
+        
+        // Prefetch when the visible workouts get close to either end of the loaded rows
+        rvWorkouts.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                int headerCount = headerAdapter.getItemCount();
+                int firstVisible = layoutManager.findFirstVisibleItemPosition() - headerCount;
+                int lastVisible = layoutManager.findLastVisibleItemPosition() - headerCount;
+                if (lastVisible >= 0 && !workoutSearch.isActive()) {
+                    workoutPager.onItemsVisible(firstVisible, lastVisible);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Setup debounced full-text search; results replace the paged list while a query is set
+     */
+    private void setupSearch() {
+        workoutSearch = new WorkoutSearch(database.searchDao(), preferenceManager.getUserId(),
+            Constants.SEARCH_RESULT_LIMIT, Constants.SEARCH_DEBOUNCE_MS,
+            new WorkoutSearch.OnResultsListener() {
+                @Override
+                public void onResults(List<WorkoutSummary> results) {
+                    workoutAdapter.submitList(withPendingCompletions(results));
+                    layoutEmptyState.setVisibility(View.GONE);
+                    tvNoSearchResults.setVisibility(results.isEmpty() ? View.VISIBLE : View.GONE);
+                }
+
+                @Override
+                public void onSearchFailed(Exception e) {
+                    Toast.makeText(HomeActivity.this, "Error searching workouts", Toast.LENGTH_SHORT).show();
+                }
+            });
+    }
+    
+    /**
+     * Apply completion toggles that are not written yet to loaded summaries
+     */
+    private List<WorkoutSummary> withPendingCompletions(List<WorkoutSummary> summaries) {
+        List<WorkoutSummary> result = summaries;
+        for (int i = 0; i < summaries.size(); i++) {
+            WorkoutSummary summary = summaries.get(i);
+            Boolean pending = completionBuffer.getPendingWorkoutCompletion(summary.workout.getWorkoutId());
+            if (pending != null && pending != summary.workout.isCompleted()) {
+                if (result == summaries) {
+                    result = new ArrayList<>(summaries);
+                }
+                result.set(i, summary.withCompleted(pending));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Show the paged workout list (when no search is active)
+     */
+    private void showPagedWorkouts() {
+        workoutAdapter.submitList(pagedWorkouts);
+        tvNoSearchResults.setVisibility(View.GONE);
+        
+        // Toggle empty state (shown in the header section)
+        layoutEmptyState.setVisibility(pagedWorkouts.isEmpty() ? View.VISIBLE : View.GONE);
+    }
+    
     /**
      * Load workout data and statistics with loading state
      */
@@ -280,44 +412,33 @@ public class HomeActivity extends AppCompatActivity {
         // Don't hide RV yet to prevent flickering if data is cached/fast
         layoutEmptyState.setVisibility(View.GONE);
         
-        Executors.newSingleThreadExecutor().execute(() -> {
-            try {
-                // Load workouts
-                List<Workout> workouts = workoutDao.getWorkoutsByUserId(userId);
-                
-                // Load statistics
-                int totalWorkouts = workoutDao.getTotalWorkoutCount(userId);
-                int completedWorkouts = workoutDao.getCompletedWorkoutCount(userId);
-                int equipmentCount = equipmentDao.getTotalEquipmentCount(userId);
-                
-                runOnUiThread(() -> {
-                    progressBar.setVisibility(View.GONE);
-                    workoutList.clear();
-                    workoutList.addAll(workouts);
-                    workoutAdapter.notifyDataSetChanged();
-                    
-                    // Toggle empty state
-                    if (workoutList.isEmpty()) {
-                        layoutEmptyState.setVisibility(View.VISIBLE);
-                        rvWorkouts.setVisibility(View.GONE);
-                    } else {
-                        layoutEmptyState.setVisibility(View.GONE);
-                        rvWorkouts.setVisibility(View.VISIBLE);
-                    }
-                    
-                    // Update statistics
-                    tvTotalWorkouts.setText(String.valueOf(totalWorkouts));
-                    tvCompletedWorkouts.setText(String.valueOf(completedWorkouts));
-                    tvEquipmentCount.setText(String.valueOf(equipmentCount));
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
-                runOnUiThread(() -> {
-                    progressBar.setVisibility(View.GONE);
-                    Toast.makeText(HomeActivity.this, "Error loading data", Toast.LENGTH_SHORT).show();
-                });
-            }
-        });
+        workoutPager.refresh();
+        
+        // Load statistics (served from the shared cache unless data changed)
+        statsCache.getStats(userId, this::displayStats);
+    }
+    
+    /**
+     * Re-query only when a table the screen depends on is written
+     * Changes made while another screen is on top are applied once on return
+     */
+    private void observeDataChanges() {
+        TableChangeObserver.observe(database, this, () -> {
+            workoutPager.refresh();
+            workoutSearch.refresh();
+        }, "workouts", "exercises");
+        TableChangeObserver.observe(database, this,
+            () -> statsCache.getStats(preferenceManager.getUserId(), this::displayStats),
+            "workouts", "exercises", "equipment");
+    }
+    
+    /**
+     * Update statistic cards
+     */
+    private void displayStats(DashboardStats stats) {
+        tvTotalWorkouts.setText(String.valueOf(stats.totalWorkouts));
+        tvCompletedWorkouts.setText(String.valueOf(stats.completedThisWeek));
+        tvEquipmentCount.setText(String.valueOf(stats.equipmentCount));
     }
     
     /**
@@ -336,12 +457,13 @@ public class HomeActivity extends AppCompatActivity {
     private void resetAllWorkouts() {
         int userId = preferenceManager.getUserId();
         
-        Executors.newSingleThreadExecutor().execute(() -> {
+        appExecutors.diskIO().execute(() -> {
+            // Toggles made before the shake must not be written after the reset
+            completionBuffer.flushBlocking();
             workoutDao.resetAllWorkouts(userId);
             
-            runOnUiThread(() -> {
+            appExecutors.postToMain(this, () -> {
                 Toast.makeText(this, "All workouts reset!", Toast.LENGTH_SHORT).show();
-                loadData();
             });
         });
     }
@@ -375,33 +497,25 @@ public class HomeActivity extends AppCompatActivity {
             .setPositiveButton(R.string.delete, (dialog, which) -> {
                 deleteWorkout(workout);
             })
-            .setNegativeButton(R.string.cancel, (dialog, which) -> {
-                workoutAdapter.notifyDataSetChanged();
-            })
+            .setNegativeButton(R.string.cancel, null)
             .show();
     }
 
     private void deleteWorkout(Workout workout) {
-        Executors.newSingleThreadExecutor().execute(() -> {
+        appExecutors.diskIO().execute(() -> {
             workoutDao.delete(workout);
-            runOnUiThread(() -> {
+            // Deleted only if no other workout uses it
+            imageStore.release(workout.getImagePath());
+            appExecutors.postToMain(this, () -> {
                 Toast.makeText(this, getString(R.string.workout_deleted), Toast.LENGTH_SHORT).show();
-                loadData();
             });
         });
     }
 
     private void updateWorkoutCompletion(Workout workout, boolean isCompleted) {
-        Executors.newSingleThreadExecutor().execute(() -> {
-            workout.setCompleted(isCompleted);
-            workout.setUpdatedAt(System.currentTimeMillis());
-            workoutDao.update(workout);
-            
-            runOnUiThread(() -> {
-                workoutAdapter.notifyDataSetChanged();
-                loadData();
-            });
-        });
+        // Shown right away as a partial bind; the write is batched with other toggles
+        completionBuffer.setWorkoutCompleted(workout.getWorkoutId(), isCompleted);
+        workoutAdapter.updateCompletion(workout.getWorkoutId(), isCompleted);
     }
     
     @Override
@@ -446,14 +560,14 @@ public class HomeActivity extends AppCompatActivity {
     private void sendWorkoutSms(String phoneNumber) {
         if (pendingShareWorkout == null) return;
         
-        Executors.newSingleThreadExecutor().execute(() -> {
+        appExecutors.diskIO().execute(() -> {
             int workoutId = pendingShareWorkout.getWorkoutId();
             List<Exercise> exercises = exerciseDao.getExercisesByWorkoutId(workoutId);
             List<String> equipment = equipmentDao.getUniqueEquipmentNames(workoutId);
             
             String message = SMSHelper.formatWorkoutMessage(pendingShareWorkout, exercises, equipment);
             
-            runOnUiThread(() -> {
+            appExecutors.postToMain(this, () -> {
                 boolean sent = SMSHelper.sendSMS(this, phoneNumber, message);
                 if (sent) {
                     pendingShareWorkout = null;
@@ -478,6 +592,24 @@ public class HomeActivity extends AppCompatActivity {
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.menu_home, menu);
+        
+        SearchView searchView = (SearchView) menu.findItem(R.id.action_search).getActionView();
+        if (searchView != null) {
+            searchView.setQueryHint(getString(R.string.search_hint));
+            searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+                @Override
+                public boolean onQueryTextSubmit(String query) {
+                    searchView.clearFocus();
+                    return true;
+                }
+
+                @Override
+                public boolean onQueryTextChange(String newText) {
+                    onSearchTextChanged(newText);
+                    return true;
+                }
+            });
+        }
         return true;
     }
     
@@ -497,6 +629,14 @@ public class HomeActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(item);
     }
     
+    private void onSearchTextChanged(String text) {
+        boolean wasActive = workoutSearch.isActive();
+        workoutSearch.setQuery(text);
+        if (wasActive && !workoutSearch.isActive()) {
+            showPagedWorkouts();
+        }
+    }
+    
     private void showLogoutConfirmation() {
         new MaterialAlertDialogBuilder(this)
             .setTitle(R.string.confirm_logout_title)
@@ -524,12 +664,23 @@ public class HomeActivity extends AppCompatActivity {
             sensorManager.registerListener(shakeDetector, accelerometer, 
                 SensorManager.SENSOR_DELAY_UI);
         }
-        loadData();
     }
     
     @Override
     protected void onPause() {
         super.onPause();
         sensorManager.unregisterListener(shakeDetector);
+        completionBuffer.flush();
+    }
+    
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (workoutPager != null) {
+            workoutPager.close();
+        }
+        if (workoutSearch != null) {
+            workoutSearch.close();
+        }
     }
 }
@@ -13,13 +13,13 @@ import com.fitlife.app.R;
 import com.fitlife.app.database.AppDatabase;
 import com.fitlife.app.database.dao.UserDao;
 import com.fitlife.app.database.entities.User;
+import com.fitlife.app.utils.AppExecutors;
 import com.fitlife.app.utils.PreferenceManager;
 import com.fitlife.app.utils.SecurityHelper;
 import com.fitlife.app.utils.ValidationHelper;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 
-import java.util.concurrent.Executors;
 
 
 public class LoginActivity extends AppCompatActivity {
@@ -32,6 +32,7 @@ public class LoginActivity extends AppCompatActivity {
     private TextView tvSignUp;
     
     private AppDatabase database;
+    private AppExecutors appExecutors;
     private UserDao userDao;
     private PreferenceManager preferenceManager;
     
@@ -48,6 +49,7 @@ public class LoginActivity extends AppCompatActivity {
     
     private void initializeDatabase() {
         database = AppDatabase.getInstance(this);
+        appExecutors = AppExecutors.getInstance();
         userDao = database.userDao();
         preferenceManager = new PreferenceManager(this);
     }
@@ -95,10 +97,10 @@ public class LoginActivity extends AppCompatActivity {
         
         btnLogin.setEnabled(false);
         
-        Executors.newSingleThreadExecutor().execute(() -> {
+        appExecutors.diskIO().execute(() -> {
             User user = userDao.getUserByEmail(email);
             
-            runOnUiThread(() -> {
+            appExecutors.postToMain(this, () -> {
                 btnLogin.setEnabled(true);
                 
                 if (user == null) {
@@ -107,7 +109,7 @@ public class LoginActivity extends AppCompatActivity {
                 }
                 
                 if (SecurityHelper.verifyPassword(password, user.getPasswordHash())) {
-                    Executors.newSingleThreadExecutor().execute(() -> {
+                    appExecutors.diskIO().execute(() -> {
                         userDao.updateLastLogin(user.getUserId(), System.currentTimeMillis());
                     });
                     
@@ -1,24 +1,36 @@
 package com.fitlife.app.activities;
 
+import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.view.View;
 import android.widget.TextView;
+import android.widget.Toast;
 
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.lifecycle.ViewModelProvider;
 
 import com.fitlife.app.R;
+import com.fitlife.app.backup.BackupFormat;
+import com.fitlife.app.backup.ExportViewModel;
+import com.fitlife.app.backup.WorkoutImporter;
 import com.fitlife.app.database.AppDatabase;
-import com.fitlife.app.database.dao.EquipmentDao;
-import com.fitlife.app.database.dao.WorkoutDao;
-import com.fitlife.app.database.entities.User;
+import com.fitlife.app.database.DashboardStatsCache;
+import com.fitlife.app.utils.AppExecutors;
+import com.fitlife.app.utils.Constants;
 import com.fitlife.app.utils.PreferenceManager;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
+import com.google.android.material.progressindicator.LinearProgressIndicator;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
-import java.util.concurrent.Executors;
 
 /**
  * Profile Activity - Display user profile and statistics
@@ -31,13 +43,20 @@ public class ProfileActivity extends AppCompatActivity {
     private TextView tvCompletedWorkouts;
     private TextView tvEquipmentCount;
     private TextView tvMemberSince;
+    private MaterialButton btnExport;
+    private MaterialButton btnImport;
     private MaterialButton btnLogout;
     
     private AppDatabase database;
-    private WorkoutDao workoutDao;
-    private EquipmentDao equipmentDao;
+    private AppExecutors appExecutors;
+    private DashboardStatsCache statsCache;
     private PreferenceManager preferenceManager;
     
+    private ExportViewModel exportViewModel;
+    private AlertDialog exportDialog;
+    private LinearProgressIndicator exportProgressIndicator;
+    private TextView tvExportProgress;
+    
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -48,6 +67,7 @@ public class ProfileActivity extends AppCompatActivity {
         setupToolbar();
         loadProfileData();
         setupListeners();
+        observeExport();
     }
     
     /**
@@ -55,8 +75,8 @@ public class ProfileActivity extends AppCompatActivity {
      */
     private void initializeDatabase() {
         database = AppDatabase.getInstance(this);
-        workoutDao = database.workoutDao();
-        equipmentDao = database.equipmentDao();
+        appExecutors = AppExecutors.getInstance();
+        statsCache = DashboardStatsCache.getInstance(this);
         preferenceManager = new PreferenceManager(this);
     }
     
@@ -67,11 +87,26 @@ public class ProfileActivity extends AppCompatActivity {
         tvUserName = findViewById(R.id.tv_user_name);
         tvUserEmail = findViewById(R.id.tv_user_email);
         tvMemberSince = findViewById(R.id.tv_member_since);
+        btnExport = findViewById(R.id.btn_export);
+        btnImport = findViewById(R.id.btn_import);
         btnLogout = findViewById(R.id.btn_logout);
         
         // Statistics TextViews (from included stat cards)
-        // Note: These would need proper IDs in the layout
-        // For now, we'll load them in loadProfileData
+        View layoutTotalWorkouts = findViewById(R.id.layout_total_workouts);
+        View layoutCompletedWorkouts = findViewById(R.id.layout_completed_workouts);
+        View layoutEquipmentCount = findViewById(R.id.layout_equipment_count);
+        
+        tvTotalWorkouts = layoutTotalWorkouts.findViewById(R.id.tv_stat_value);
+        TextView tvLabelTotal = layoutTotalWorkouts.findViewById(R.id.tv_stat_label);
+        tvLabelTotal.setText(R.string.total_workouts);
+        
+        tvCompletedWorkouts = layoutCompletedWorkouts.findViewById(R.id.tv_stat_value);
+        TextView tvLabelCompleted = layoutCompletedWorkouts.findViewById(R.id.tv_stat_label);
+        tvLabelCompleted.setText(R.string.completed);
+        
+        tvEquipmentCount = layoutEquipmentCount.findViewById(R.id.tv_stat_value);
+        TextView tvLabelEquipment = layoutEquipmentCount.findViewById(R.id.tv_stat_label);
+        tvLabelEquipment.setText(R.string.equipment_items);
     }
     
     /**
@@ -96,33 +131,167 @@ public class ProfileActivity extends AppCompatActivity {
         
         int userId = preferenceManager.getUserId();
         
-        // Load statistics
-        Executors.newSingleThreadExecutor().execute(() -> {
-            int totalWorkouts = workoutDao.getTotalWorkoutCount(userId);
-            int completedWorkouts = workoutDao.getCompletedWorkoutCount(userId);
-            int equipmentCount = equipmentDao.getTotalEquipmentCount(userId);
-            
-            // Get user creation date (would need to query User table)
-            // For now, using a placeholder
-            
-            runOnUiThread(() -> {
-                // Update statistics
-                // TODO: Update stat card TextViews when properly referenced
-                
-                // Format member since date
-                SimpleDateFormat sdf = new SimpleDateFormat("MMMM yyyy", Locale.getDefault());
-                tvMemberSince.setText(sdf.format(new Date()));
-            });
+        // Load statistics (shared with the home screen)
+        statsCache.getStats(userId, stats -> {
+            tvTotalWorkouts.setText(String.valueOf(stats.totalWorkouts));
+            tvCompletedWorkouts.setText(String.valueOf(stats.completedWorkouts));
+            tvEquipmentCount.setText(String.valueOf(stats.equipmentCount));
         });
+        
+        // Get user creation date (would need to query User table)
+        // For now, using a placeholder
+        SimpleDateFormat sdf = new SimpleDateFormat("MMMM yyyy", Locale.getDefault());
+        tvMemberSince.setText(sdf.format(new Date()));
     }
     
     /**
      * Setup click listeners
      */
     private void setupListeners() {
+        btnExport.setOnClickListener(v -> chooseExportFile());
+        btnImport.setOnClickListener(v -> chooseImportFile());
         btnLogout.setOnClickListener(v -> showLogoutConfirmation());
     }
     
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // The export goes on in the view model; a recreated screen shows a new dialog
+        dismissExportDialog();
+    }
+    
+    /**
+     * Let the user pick where the export is saved
+     */
+    private void chooseExportFile() {
+        String date = new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date());
+        Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType(BackupFormat.MIME_TYPE);
+        intent.putExtra(Intent.EXTRA_TITLE, "fitlife-workouts-" + date + ".json");
+        startActivityForResult(intent, Constants.REQUEST_CODE_EXPORT_DOCUMENT);
+    }
+    
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        
+        if (requestCode == Constants.REQUEST_CODE_EXPORT_DOCUMENT && resultCode == RESULT_OK
+                && data != null && data.getData() != null) {
+            exportViewModel.start(preferenceManager.getUserId(), data.getData());
+        } else if (requestCode == Constants.REQUEST_CODE_IMPORT_DOCUMENT && resultCode == RESULT_OK
+                && data != null && data.getData() != null) {
+            importWorkouts(data.getData());
+        }
+    }
+    
+    /**
+     * Follow the export held by the view model, which outlives rotations
+     */
+    private void observeExport() {
+        exportViewModel = new ViewModelProvider(this).get(ExportViewModel.class);
+        exportViewModel.getState().observe(this, this::showExportState);
+    }
+    
+    /**
+     * Show the progress dialog while an export runs, and its result once
+     */
+    private void showExportState(ExportViewModel.State state) {
+        btnExport.setEnabled(!state.running);
+        if (state.running) {
+            if (exportDialog == null) {
+                View content = getLayoutInflater().inflate(R.layout.dialog_progress, null);
+                exportProgressIndicator = content.findViewById(R.id.progress_indicator);
+                tvExportProgress = content.findViewById(R.id.tv_progress);
+                exportDialog = new MaterialAlertDialogBuilder(this)
+                    .setTitle(R.string.exporting_workouts)
+                    .setView(content)
+                    .setCancelable(false)
+                    .setNegativeButton(R.string.cancel, (d, which) -> exportViewModel.cancel())
+                    .show();
+            }
+            if (state.total > 0) {
+                exportProgressIndicator.setIndeterminate(false);
+                exportProgressIndicator.setProgressCompat(state.done * 100 / state.total, true);
+                tvExportProgress.setText(getString(R.string.export_progress, state.done, state.total));
+            }
+            return;
+        }
+        
+        dismissExportDialog();
+        if (state.resultMessage != 0) {
+            String text = state.resultMessage == R.string.export_complete
+                ? getString(R.string.export_complete, state.exportedCount)
+                : getString(state.resultMessage);
+            Toast.makeText(this, text, Toast.LENGTH_SHORT).show();
+            exportViewModel.onResultShown();
+        }
+    }
+    
+    private void dismissExportDialog() {
+        if (exportDialog != null) {
+            exportDialog.dismiss();
+            exportDialog = null;
+        }
+    }
+    
+    /**
+     * Let the user pick an archive to import
+     */
+    private void chooseImportFile() {
+        Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType(BackupFormat.MIME_TYPE);
+        startActivityForResult(intent, Constants.REQUEST_CODE_IMPORT_DOCUMENT);
+    }
+    
+    /**
+     * Import a workout archive, showing progress and throughput after every chunk
+     * Chunks already written stay imported if the import stops early.
+     */
+    private void importWorkouts(Uri uri) {
+        View content = getLayoutInflater().inflate(R.layout.dialog_progress, null);
+        TextView tvProgress = content.findViewById(R.id.tv_progress);
+        AlertDialog dialog = new MaterialAlertDialogBuilder(this)
+            .setTitle(R.string.importing_workouts)
+            .setView(content)
+            .setCancelable(false)
+            .show();
+        btnImport.setEnabled(false);
+        
+        int userId = preferenceManager.getUserId();
+        WorkoutImporter importer = new WorkoutImporter(database, Constants.IMPORT_CHUNK_SIZE);
+        appExecutors.bulkIO().execute(() -> {
+            WorkoutImporter.Result result = null;
+            try (InputStream input = getContentResolver().openInputStream(uri)) {
+                if (input == null) throw new IOException("No input stream for " + uri);
+                result = importer.importArchive(userId, input, progress -> {
+                    String text = getString(R.string.import_progress, progress.imported,
+                        progress.skipped, progress.getRowsPerSecond());
+                    appExecutors.postToMain(this, () -> tvProgress.setText(text));
+                });
+            } catch (Exception e) {
+                // Malformed JSON surfaces as IllegalStateException or NumberFormatException
+                e.printStackTrace();
+            }
+            
+            final WorkoutImporter.Result done = result;
+            appExecutors.postToMain(this, () -> {
+                dialog.dismiss();
+                btnImport.setEnabled(true);
+                String text;
+                if (done == null) {
+                    text = getString(R.string.import_failed);
+                } else if (done.failed > 0) {
+                    text = getString(R.string.import_partly_failed, done.imported, done.failed);
+                } else {
+                    text = getString(R.string.import_complete, done.imported, done.skipped);
+                }
+                Toast.makeText(this, text, Toast.LENGTH_LONG).show();
+            });
+        });
+    }
+    
     /**
      * Show logout confirmation dialog
      */
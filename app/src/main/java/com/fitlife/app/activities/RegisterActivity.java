@@ -1,6 +1,7 @@
 package com.fitlife.app.activities;
 
 import android.content.Intent;
+import android.database.sqlite.SQLiteConstraintException;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.widget.Button;
@@ -13,13 +14,13 @@ import com.fitlife.app.R;
 import com.fitlife.app.database.AppDatabase;
 import com.fitlife.app.database.dao.UserDao;
 import com.fitlife.app.database.entities.User;
+import com.fitlife.app.utils.AppExecutors;
 import com.fitlife.app.utils.PreferenceManager;
 import com.fitlife.app.utils.SecurityHelper;
 import com.fitlife.app.utils.ValidationHelper;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 
-import java.util.concurrent.Executors;
 
 /**
  * Register Activity - User registration screen
@@ -38,6 +39,7 @@ public class RegisterActivity extends AppCompatActivity {
     private TextView tvLogin;
     
     private AppDatabase database;
+    private AppExecutors appExecutors;
     private UserDao userDao;
     private PreferenceManager preferenceManager;
     
@@ -56,6 +58,7 @@ public class RegisterActivity extends AppCompatActivity {
      */
     private void initializeDatabase() {
         database = AppDatabase.getInstance(this);
+        appExecutors = AppExecutors.getInstance();
         userDao = database.userDao();
         preferenceManager = new PreferenceManager(this);
     }
@@ -132,27 +135,25 @@ public class RegisterActivity extends AppCompatActivity {
         btnRegister.setEnabled(false);
         
         // Perform registration in background thread
-        Executors.newSingleThreadExecutor().execute(() -> {
-            // Check if email already exists
-            int emailCount = userDao.emailExists(email);
+        appExecutors.diskIO().execute(() -> {
+            // Hash password and create user
+            String passwordHash = SecurityHelper.hashPassword(password);
+            User newUser = new User(fullName, email, passwordHash);
             
-            if (emailCount > 0) {
-                runOnUiThread(() -> {
+            // Insert user and get ID; the unique email index rejects existing accounts
+            long userId;
+            try {
+                userId = userDao.insert(newUser);
+            } catch (SQLiteConstraintException e) {
+                appExecutors.postToMain(this, () -> {
                     btnRegister.setEnabled(true);
                     tilEmail.setError(getString(R.string.error_email_exists));
                 });
                 return;
             }
-            
-            // Hash password and create user
-            String passwordHash = SecurityHelper.hashPassword(password);
-            User newUser = new User(fullName, email, passwordHash);
-            
-            // Insert user and get ID
-            long userId = userDao.insert(newUser);
             newUser.setUserId((int) userId);
             
-            runOnUiThread(() -> {
+            appExecutors.postToMain(this, () -> {
                 btnRegister.setEnabled(true);
                 
                 // Save session
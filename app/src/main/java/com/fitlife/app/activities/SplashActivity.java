@@ -8,6 +8,7 @@ import android.os.Looper;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.fitlife.app.R;
+import com.fitlife.app.database.ImageGcWorker;
 import com.fitlife.app.utils.Constants;
 import com.fitlife.app.utils.PreferenceManager;
 
@@ -25,6 +26,7 @@ public class SplashActivity extends AppCompatActivity {
         setContentView(R.layout.activity_splash);
         
         preferenceManager = new PreferenceManager(this);
+        ImageGcWorker.schedule(this);
         
         // Delay for splash screen, then navigate
         new Handler(Looper.getMainLooper()).postDelayed(() -> {
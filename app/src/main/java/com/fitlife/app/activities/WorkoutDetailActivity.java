@@ -3,11 +3,11 @@ package com.fitlife.app.activities;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.database.Cursor;
-import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Bundle;
 import android.provider.ContactsContract;
 import android.view.MenuItem;
+import android.view.View;
 import android.widget.ImageView;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -17,18 +17,25 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.fitlife.app.R;
 import com.fitlife.app.adapters.ExerciseAdapter;
+import com.fitlife.app.adapters.HeaderAdapter;
+import com.fitlife.app.adapters.SectionInsetDecoration;
 import com.fitlife.app.database.AppDatabase;
-import com.fitlife.app.database.dao.EquipmentDao;
+import com.fitlife.app.database.CompletionWriteBuffer;
+import com.fitlife.app.database.ExerciseDiff;
 import com.fitlife.app.database.dao.ExerciseDao;
 import com.fitlife.app.database.dao.WorkoutDao;
 import com.fitlife.app.database.entities.Exercise;
 import com.fitlife.app.database.entities.Workout;
+import com.fitlife.app.gestures.DragReorderCallback;
 import com.fitlife.app.interfaces.OnExerciseActionListener;
+import com.fitlife.app.models.ExerciseWithEquipment;
+import com.fitlife.app.utils.AppExecutors;
 import com.fitlife.app.utils.Constants;
 import com.fitlife.app.utils.ImageHelper;
 import com.fitlife.app.utils.SMSHelper;
@@ -36,7 +43,6 @@ import com.google.android.material.button.MaterialButton;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
 
 /**
  * Workout Detail Activity - View workout details and exercises
@@ -50,15 +56,17 @@ public class WorkoutDetailActivity extends AppCompatActivity {
     private MaterialButton btnShare;
     private MaterialButton btnEdit;
     private RecyclerView rvExercises;
+    private View detailHeader;
+    private View detailFooter;
     private TextView tvEquipmentList;
     
     private AppDatabase database;
+    private AppExecutors appExecutors;
     private WorkoutDao workoutDao;
     private ExerciseDao exerciseDao;
-    private EquipmentDao equipmentDao;
+    private CompletionWriteBuffer completionBuffer;
     
     private Workout workout;
-    private List<Exercise> exercises;
     private ExerciseAdapter exerciseAdapter;
     private List<String> equipmentList;
     
@@ -79,27 +87,33 @@ public class WorkoutDetailActivity extends AppCompatActivity {
      */
     private void initializeDatabase() {
         database = AppDatabase.getInstance(this);
+        appExecutors = AppExecutors.getInstance();
         workoutDao = database.workoutDao();
         exerciseDao = database.exerciseDao();
-        equipmentDao = database.equipmentDao();
+        completionBuffer = CompletionWriteBuffer.getInstance(this);
     }
     
     /**
      * Initialize UI components
      */
     private void initializeViews() {
-        ivWorkoutImage = findViewById(R.id.iv_workout_image);
-        tvWorkoutName = findViewById(R.id.tv_workout_name);
-        tvWorkoutDescription = findViewById(R.id.tv_workout_description);
-        btnShare = findViewById(R.id.btn_share);
-        btnEdit = findViewById(R.id.btn_edit);
         rvExercises = findViewById(R.id.rv_exercises);
-        tvEquipmentList = findViewById(R.id.tv_equipment_list);
+        
+        // The workout header and equipment list are sections of the exercise list,
+        // so only the visible exercise rows are inflated
+        detailHeader = getLayoutInflater().inflate(R.layout.header_workout_detail, rvExercises, false);
+        detailFooter = getLayoutInflater().inflate(R.layout.footer_workout_detail, rvExercises, false);
+        
+        ivWorkoutImage = detailHeader.findViewById(R.id.iv_workout_image);
+        tvWorkoutName = detailHeader.findViewById(R.id.tv_workout_name);
+        tvWorkoutDescription = detailHeader.findViewById(R.id.tv_workout_description);
+        btnShare = detailHeader.findViewById(R.id.btn_share);
+        btnEdit = detailHeader.findViewById(R.id.btn_edit);
+        tvEquipmentList = detailFooter.findViewById(R.id.tv_equipment_list);
         
         // Setup RecyclerView
         rvExercises.setLayoutManager(new LinearLayoutManager(this));
-        exercises = new ArrayList<>();
-        exerciseAdapter = new ExerciseAdapter(this, exercises, new OnExerciseActionListener() {
+        exerciseAdapter = new ExerciseAdapter(this, new OnExerciseActionListener() {
             @Override
             public void onExerciseClick(Exercise exercise) {
                 boolean newState = !exercise.isCompleted();
@@ -121,26 +135,54 @@ public class WorkoutDetailActivity extends AppCompatActivity {
                 updateExerciseCompletion(exercise, isCompleted);
             }
         });
-        rvExercises.setAdapter(exerciseAdapter);
+        rvExercises.setAdapter(HeaderAdapter.concat(
+            new HeaderAdapter(detailHeader), exerciseAdapter, new HeaderAdapter(detailFooter)));
+        // The header image is full width; exercise rows keep the screen's side padding
+        rvExercises.addItemDecoration(new SectionInsetDecoration(exerciseAdapter,
+            getResources().getDimensionPixelSize(R.dimen.spacing_lg)));
+        
+        // Long press and drag to reorder; the new order is saved on drop
+        new ItemTouchHelper(new DragReorderCallback(exerciseAdapter) {
+            @Override
+            public void onItemMoved(int from, int to) {
+                exerciseAdapter.moveExercise(from, to);
+            }
+            
+            @Override
+            public void onDragFinished() {
+                saveExerciseOrder();
+            }
+        }).attachToRecyclerView(rvExercises);
     }
     
     /**
      * Update exercise completion status
+     * Shown right away; the write is batched with other toggles. The workout's own
+     * completion flag follows from a database trigger when the write lands.
      */
     private void updateExerciseCompletion(Exercise exercise, boolean isCompleted) {
-        Executors.newSingleThreadExecutor().execute(() -> {
-            exercise.setCompleted(isCompleted);
-            exerciseDao.update(exercise);
-            checkWorkoutCompletion();
-        });
+        completionBuffer.setExerciseCompleted(exercise.getExerciseId(), isCompleted);
+        
+        Exercise updated = new Exercise(exercise);
+        updated.setCompleted(isCompleted);
+        exerciseAdapter.updateExercise(updated);
     }
     
     /**
-     * Check if all exercises are complete
+     * Save the order shown in the list
+     * Exercises get sparse order keys, so a single move writes a single row.
      */
-    private void checkWorkoutCompletion() {
-        if (workout == null) return;
-        // Logic for checking workout completion could go here
+    private void saveExerciseOrder() {
+        // Submitted items must not be mutated
+        List<Exercise> ordered = new ArrayList<>();
+        for (Exercise exercise : exerciseAdapter.getExercises()) {
+            ordered.add(new Exercise(exercise));
+        }
+        List<Exercise> changed = ExerciseDiff.assignOrder(ordered);
+        if (changed.isEmpty()) return;
+        
+        exerciseAdapter.submitList(ordered);
+        appExecutors.diskIO().execute(() -> exerciseDao.updateOrderIndexes(changed));
     }
     
     /**
@@ -166,6 +208,8 @@ public class WorkoutDetailActivity extends AppCompatActivity {
     
     /**
      * Load workout data
+     * The workout, its exercises and their equipment are read in one transaction,
+     * and re-queried only when one of their tables is written
      */
     private void loadWorkoutData() {
         int workoutId = getIntent().getIntExtra(Constants.EXTRA_WORKOUT_ID, -1);
@@ -176,47 +220,59 @@ public class WorkoutDetailActivity extends AppCompatActivity {
             return;
         }
         
-        Executors.newSingleThreadExecutor().execute(() -> {
-            workout = workoutDao.getWorkoutById(workoutId);
-            List<Exercise> dbExercises = exerciseDao.getExercisesByWorkoutId(workoutId);
-            equipmentList = equipmentDao.getUniqueEquipmentNames(workoutId);
+        workoutDao.observeWorkoutWithDetails(workoutId).observe(this, details -> {
+            if (details == null) return;
+            displayWorkout(details.workout);
             
-            runOnUiThread(() -> {
-                if (workout != null) {
-                    tvWorkoutName.setText(workout.getWorkoutName());
-                    tvWorkoutDescription.setText(workout.getDescription());
-                    
-                    // Load image
-                    if (workout.getImagePath() != null) {
-                        Bitmap bitmap = ImageHelper.loadImageFromPath(workout.getImagePath());
-                        if (bitmap != null) {
-                            ivWorkoutImage.setImageBitmap(bitmap);
-                        }
-                    }
-                    
-                    // Display equipment list
-                    if (equipmentList != null && !equipmentList.isEmpty()) {
-                        StringBuilder sb = new StringBuilder();
-                        for (int i = 0; i < equipmentList.size(); i++) {
-                            sb.append("• ").append(equipmentList.get(i));
-                            if (i < equipmentList.size() - 1) {
-                                sb.append("\n");
-                            }
-                        }
-                        tvEquipmentList.setText(sb.toString());
-                    } else {
-                        tvEquipmentList.setText(R.string.no_equipment);
-                    }
-                    
-                    // Update exercises
-                    exercises.clear();
-                    exercises.addAll(dbExercises);
-                    exerciseAdapter.notifyDataSetChanged();
+            // Toggles that are not written yet take precedence over the stored state
+            List<ExerciseWithEquipment> exercises = details.getSortedExercises();
+            for (ExerciseWithEquipment item : exercises) {
+                Boolean pending = completionBuffer.getPendingExerciseCompletion(
+                    item.exercise.getExerciseId());
+                if (pending != null) {
+                    item.exercise.setCompleted(pending);
                 }
-            });
+            }
+            exerciseAdapter.submitDetails(exercises);
+            displayEquipment(details.getUniqueEquipmentNames());
         });
     }
     
+    /**
+     * Display workout header
+     */
+    private void displayWorkout(Workout loadedWorkout) {
+        workout = loadedWorkout;
+        
+        tvWorkoutName.setText(workout.getWorkoutName());
+        tvWorkoutDescription.setText(workout.getDescription());
+        
+        // Load image
+        if (workout.getImagePath() != null) {
+            ImageHelper.loadImageAsync(ivWorkoutImage, workout.getImagePath(),
+                workout.getImageRenditions(), 0);
+        }
+    }
+    
+    /**
+     * Display equipment list
+     */
+    private void displayEquipment(List<String> names) {
+        equipmentList = names;
+        if (equipmentList != null && !equipmentList.isEmpty()) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < equipmentList.size(); i++) {
+                sb.append("• ").append(equipmentList.get(i));
+                if (i < equipmentList.size() - 1) {
+                    sb.append("\n");
+                }
+            }
+            tvEquipmentList.setText(sb.toString());
+        } else {
+            tvEquipmentList.setText(R.string.no_equipment);
+        }
+    }
+    
     /**
      * Setup click listeners
      */
@@ -287,10 +343,11 @@ public class WorkoutDetailActivity extends AppCompatActivity {
     private void sendWorkoutSms(String phoneNumber) {
         if (workout == null) return;
         
-        Executors.newSingleThreadExecutor().execute(() -> {
+        List<Exercise> exercises = exerciseAdapter.getExercises();
+        appExecutors.diskIO().execute(() -> {
             String message = SMSHelper.formatWorkoutMessage(workout, exercises, equipmentList);
             
-            runOnUiThread(() -> {
+            appExecutors.postToMain(this, () -> {
                 SMSHelper.sendSMS(this, phoneNumber, message);
             });
         });
@@ -310,11 +367,9 @@ public class WorkoutDetailActivity extends AppCompatActivity {
     }
     
     @Override
-    protected void onResume() {
-        super.onResume();
-        if (workout != null) {
-            loadWorkoutData();
-        }
+    protected void onPause() {
+        super.onPause();
+        completionBuffer.flush();
     }
     
     @Override
@@ -9,27 +9,70 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.fitlife.app.R;
 import com.fitlife.app.database.entities.Exercise;
 import com.fitlife.app.interfaces.OnExerciseActionListener;
+import com.fitlife.app.models.ExerciseWithEquipment;
+import com.fitlife.app.utils.AppExecutors;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Adapter for displaying exercises in RecyclerView
+ * Lists are diffed off the main thread; items must not be mutated after they are submitted.
  */
-public class ExerciseAdapter extends RecyclerView.Adapter<ExerciseAdapter.ExerciseViewHolder> {
+public class ExerciseAdapter extends ListAdapter<Exercise, ExerciseAdapter.ExerciseViewHolder> {
+    
+    // Payload for a change that only affects the completion state
+    private static final Object PAYLOAD_COMPLETION = new Object();
+    // Payload for a change that only affects the equipment line
+    private static final Object PAYLOAD_EQUIPMENT = new Object();
+    
+    private static final DiffUtil.ItemCallback<Exercise> DIFF_CALLBACK = new DiffUtil.ItemCallback<Exercise>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Exercise oldItem, @NonNull Exercise newItem) {
+            return oldItem.getStableId() == newItem.getStableId();
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull Exercise oldItem, @NonNull Exercise newItem) {
+            return sameDetails(oldItem, newItem) && oldItem.isCompleted() == newItem.isCompleted();
+        }
+        
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull Exercise oldItem, @NonNull Exercise newItem) {
+            return sameDetails(oldItem, newItem) ? PAYLOAD_COMPLETION : null;
+        }
+    };
     
     private final Context context;
-    private final List<Exercise> exercises;
     private final OnExerciseActionListener listener;
+    // Last submitted list; edits build on it even while a diff is still running
+    private List<Exercise> latest = Collections.emptyList();
+    // Equipment line per exercise ID; only set by screens that load equipment
+    private Map<Integer, String> equipmentNames = Collections.emptyMap();
     
-    public ExerciseAdapter(Context context, List<Exercise> exercises, OnExerciseActionListener listener) {
+    public ExerciseAdapter(Context context, OnExerciseActionListener listener) {
+        super(new AsyncDifferConfig.Builder<>(DIFF_CALLBACK)
+            .setBackgroundThreadExecutor(AppExecutors.getInstance().computation())
+            .build());
         this.context = context;
-        this.exercises = exercises;
         this.listener = listener;
+        setHasStableIds(true);
     }
     
     @NonNull
@@ -41,51 +84,149 @@ public class ExerciseAdapter extends RecyclerView.Adapter<ExerciseAdapter.Exerci
     
     @Override
     public void onBindViewHolder(@NonNull ExerciseViewHolder holder, int position) {
-        Exercise exercise = exercises.get(position);
-        holder.bind(exercise, position);
+        holder.bind(getItem(position));
+    }
+    
+    @Override
+    public void onBindViewHolder(@NonNull ExerciseViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        for (Object payload : payloads) {
+            if (payload == PAYLOAD_EQUIPMENT) {
+                holder.bindEquipment(getItem(position));
+            } else {
+                holder.bindCompletion(getItem(position));
+            }
+        }
+    }
+    
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getStableId();
+    }
+    
+    @Override
+    public void submitList(@Nullable List<Exercise> list) {
+        submitList(list, null);
     }
     
     @Override
-    public int getItemCount() {
-        return exercises.size();
+    public void submitList(@Nullable List<Exercise> list, @Nullable Runnable commitCallback) {
+        latest = list == null ? Collections.emptyList() : list;
+        super.submitList(list, commitCallback);
+    }
+    
+    /**
+     * Submit exercises together with their equipment
+     * Rows whose equipment changed are rebound even if the exercise itself did not.
+     * @param details Exercises with equipment, in display order
+     */
+    public void submitDetails(List<ExerciseWithEquipment> details) {
+        List<Exercise> exercises = new ArrayList<>(details.size());
+        Map<Integer, String> names = new HashMap<>();
+        for (ExerciseWithEquipment item : details) {
+            exercises.add(item.exercise);
+            if (item.requiresEquipment()) {
+                names.put(item.exercise.getExerciseId(), item.getEquipmentNamesString());
+            }
+        }
+        
+        Set<Integer> changed = new HashSet<>();
+        for (Exercise exercise : exercises) {
+            int id = exercise.getExerciseId();
+            if (!Objects.equals(equipmentNames.get(id), names.get(id))) {
+                changed.add(id);
+            }
+        }
+        equipmentNames = names;
+        
+        submitList(exercises, () -> {
+            List<Exercise> current = getCurrentList();
+            for (int i = 0; i < current.size(); i++) {
+                if (changed.contains(current.get(i).getExerciseId())) {
+                    notifyItemChanged(i, PAYLOAD_EQUIPMENT);
+                }
+            }
+        });
     }
     
     /**
      * Get exercise at position
      */
     public Exercise getExerciseAt(int position) {
-        return exercises.get(position);
+        return getItem(position);
     }
     
     /**
      * Remove exercise at position
      */
     public void removeExercise(int position) {
-        exercises.remove(position);
-        notifyItemRemoved(position);
+        int index = indexOf(getItem(position).getStableId());
+        if (index == -1) return;
+        List<Exercise> updated = new ArrayList<>(latest);
+        updated.remove(index);
+        submitList(updated);
     }
     
     /**
      * Add exercise
      */
     public void addExercise(Exercise exercise) {
-        exercises.add(exercise);
-        notifyItemInserted(exercises.size() - 1);
+        List<Exercise> updated = new ArrayList<>(latest);
+        updated.add(exercise);
+        submitList(updated);
     }
     
     /**
-     * Update exercise at position
+     * Replace an exercise with an edited copy of itself
      */
-    public void updateExercise(int position, Exercise exercise) {
-        exercises.set(position, exercise);
-        notifyItemChanged(position);
+    public void updateExercise(Exercise exercise) {
+        int index = indexOf(exercise.getStableId());
+        if (index == -1) return;
+        List<Exercise> updated = new ArrayList<>(latest);
+        updated.set(index, exercise);
+        submitList(updated);
     }
     
     /**
-     * Get all exercises
+     * Move the exercise at a position to another position
+     * Repeating a move is a no-op, so a drag step that is reported again before the
+     * diff has been applied does not move the item back.
+     * @param from Position of the exercise
+     * @param to Position it should end up at
+     */
+    public void moveExercise(int from, int to) {
+        int index = indexOf(getItem(from).getStableId());
+        if (index == -1 || index == to || to < 0 || to >= latest.size()) return;
+        List<Exercise> updated = new ArrayList<>(latest);
+        updated.add(to, updated.remove(index));
+        submitList(updated);
+    }
+    
+    /**
+     * Get all exercises (read-only)
      */
     public List<Exercise> getExercises() {
-        return exercises;
+        return Collections.unmodifiableList(latest);
+    }
+    
+    private int indexOf(long stableId) {
+        for (int i = 0; i < latest.size(); i++) {
+            if (latest.get(i).getStableId() == stableId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static boolean sameDetails(Exercise a, Exercise b) {
+        return a.getExerciseName().equals(b.getExerciseName())
+            && a.getSets() == b.getSets()
+            && a.getReps() == b.getReps()
+            && Objects.equals(a.getInstructions(), b.getInstructions());
     }
     
     /**
@@ -107,9 +248,32 @@ public class ExerciseAdapter extends RecyclerView.Adapter<ExerciseAdapter.Exerci
             tvSetsReps = itemView.findViewById(R.id.tv_sets_reps);
             tvEquipment = itemView.findViewById(R.id.tv_equipment);
             ivMore = itemView.findViewById(R.id.iv_more);
+            
+            // Listeners are installed once and look up the bound item when they fire.
+            // A click listener only fires for user input, unlike OnCheckedChangeListener.
+            cbCompleted.setOnClickListener(v -> {
+                Exercise exercise = getBoundExercise();
+                if (exercise != null && listener != null) {
+                    listener.onExerciseCompletionChanged(exercise, cbCompleted.isChecked());
+                }
+            });
+            
+            itemView.setOnClickListener(v -> {
+                Exercise exercise = getBoundExercise();
+                if (exercise != null && listener != null) {
+                    listener.onExerciseClick(exercise);
+                }
+            });
+            
+            ivMore.setOnClickListener(v -> {
+                Exercise exercise = getBoundExercise();
+                if (exercise != null) {
+                    showOptionsMenu(exercise, getBindingAdapterPosition());
+                }
+            });
         }
         
-        public void bind(Exercise exercise, int position) {
+        public void bind(Exercise exercise) {
             // Set exercise name
             tvExerciseName.setText(exercise.getExerciseName());
             
@@ -117,40 +281,45 @@ public class ExerciseAdapter extends RecyclerView.Adapter<ExerciseAdapter.Exerci
             String setsReps = exercise.getSets() + " sets × " + exercise.getReps() + " reps";
             tvSetsReps.setText(setsReps);
             
-            // Set equipment (placeholder - will be loaded from database)
-            tvEquipment.setText(R.string.no_equipment);
-            tvEquipment.setVisibility(View.GONE);
-            
-            // Set completion status
+            bindEquipment(exercise);
+            bindCompletion(exercise);
+        }
+        
+        /**
+         * Bind the equipment line, hidden when the exercise needs none
+         */
+        public void bindEquipment(Exercise exercise) {
+            String names = equipmentNames.get(exercise.getExerciseId());
+            if (names != null) {
+                tvEquipment.setText(names);
+                tvEquipment.setVisibility(View.VISIBLE);
+            } else {
+                tvEquipment.setVisibility(View.GONE);
+            }
+        }
+        
+        /**
+         * Bind only the views that depend on the completion state
+         */
+        public void bindCompletion(Exercise exercise) {
             cbCompleted.setChecked(exercise.isCompleted());
             
             // Apply strikethrough if completed
             if (exercise.isCompleted()) {
-                tvExerciseName.setPaintFlags(tvExerciseName.getPaintFlags() | 
+                tvExerciseName.setPaintFlags(tvExerciseName.getPaintFlags() |
                     android.graphics.Paint.STRIKE_THRU_TEXT_FLAG);
                 tvSetsReps.setAlpha(0.6f);
             } else {
-                tvExerciseName.setPaintFlags(tvExerciseName.getPaintFlags() & 
+                tvExerciseName.setPaintFlags(tvExerciseName.getPaintFlags() &
                     ~android.graphics.Paint.STRIKE_THRU_TEXT_FLAG);
                 tvSetsReps.setAlpha(1.0f);
             }
-            
-            // Set listeners
-            cbCompleted.setOnCheckedChangeListener((buttonView, isChecked) -> {
-                if (listener != null) {
-                    listener.onExerciseCompletionChanged(exercise, isChecked);
-                }
-            });
-            
-            itemView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onExerciseClick(exercise);
-                }
-            });
-            
-            ivMore.setOnClickListener(v -> {
-                showOptionsMenu(exercise, position);
-            });
+        }
+        
+        @Nullable
+        private Exercise getBoundExercise() {
+            int position = getBindingAdapterPosition();
+            return position == RecyclerView.NO_POSITION ? null : getItem(position);
         }
         
         /**
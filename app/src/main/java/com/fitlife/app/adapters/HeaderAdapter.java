@@ -0,0 +1,72 @@
+package com.fitlife.app.adapters;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ConcatAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Adapter for a single pre-inflated view shown as one section of a ConcatAdapter
+ * Used for the non-repeating parts of a screen (stats, image, form fields, buttons).
+ * The activity keeps references to the child views and updates them directly, so the
+ * adapter never rebinds and RecyclerView keeps reusing the one view holder.
+ */
+public class HeaderAdapter extends RecyclerView.Adapter<HeaderAdapter.HeaderViewHolder> {
+    
+    private final View view;
+    
+    /**
+     * @param view View inflated with attachToRoot = false
+     */
+    public HeaderAdapter(@NonNull View view) {
+        this.view = view;
+        setHasStableIds(true);
+    }
+    
+    /**
+     * Join sections into one adapter, keeping each section's stable IDs
+     * @param sections Adapters in display order; all must have stable IDs
+     * @return ConcatAdapter for the RecyclerView
+     */
+    public static ConcatAdapter concat(RecyclerView.Adapter<?>... sections) {
+        ConcatAdapter.Config config = new ConcatAdapter.Config.Builder()
+            .setStableIdMode(ConcatAdapter.Config.StableIdMode.ISOLATED_STABLE_IDS)
+            .build();
+        return new ConcatAdapter(config, sections);
+    }
+    
+    @NonNull
+    @Override
+    public HeaderViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        if (view.getParent() != null) {
+            throw new IllegalStateException("Header view is already attached");
+        }
+        return new HeaderViewHolder(view);
+    }
+    
+    @Override
+    public void onBindViewHolder(@NonNull HeaderViewHolder holder, int position) {
+        // The view is updated directly by its owner
+    }
+    
+    @Override
+    public int getItemCount() {
+        return 1;
+    }
+    
+    @Override
+    public long getItemId(int position) {
+        return 0;
+    }
+    
+    /**
+     * ViewHolder for the header view
+     */
+    static class HeaderViewHolder extends RecyclerView.ViewHolder {
+        HeaderViewHolder(@NonNull View itemView) {
+            super(itemView);
+        }
+    }
+}
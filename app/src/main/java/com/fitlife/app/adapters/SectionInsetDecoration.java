@@ -0,0 +1,31 @@
+package com.fitlife.app.adapters;
+
+import android.graphics.Rect;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Adds horizontal insets to the rows of one section of a ConcatAdapter
+ * Lets full-bleed sections (such as a header image) share a list with inset rows.
+ */
+public class SectionInsetDecoration extends RecyclerView.ItemDecoration {
+    
+    private final RecyclerView.Adapter<?> section;
+    private final int insetPx;
+    
+    public SectionInsetDecoration(RecyclerView.Adapter<?> section, int insetPx) {
+        this.section = section;
+        this.insetPx = insetPx;
+    }
+    
+    @Override
+    public void getItemOffsets(@NonNull Rect outRect, @NonNull View view,
+                               @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        RecyclerView.ViewHolder holder = parent.getChildViewHolder(view);
+        if (holder != null && holder.getBindingAdapter() == section) {
+            outRect.set(insetPx, 0, insetPx, 0);
+        }
+    }
+}
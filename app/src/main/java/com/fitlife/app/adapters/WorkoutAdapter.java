@@ -1,7 +1,6 @@
 package com.fitlife.app.adapters;
 
 import android.content.Context;
-import android.graphics.Bitmap;
 import android.view.GestureDetector;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
@@ -11,28 +10,66 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.google.android.material.progressindicator.LinearProgressIndicator;
+
 import com.fitlife.app.R;
 import com.fitlife.app.database.entities.Workout;
 import com.fitlife.app.interfaces.OnWorkoutClickListener;
+import com.fitlife.app.models.WorkoutSummary;
+import com.fitlife.app.utils.AppExecutors;
 import com.fitlife.app.utils.ImageHelper;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
- * Adapter for displaying workouts in RecyclerView
+ * Adapter for displaying workout summaries in RecyclerView
+ * Lists are diffed off the main thread; items must not be mutated after they are submitted.
  */
-public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.WorkoutViewHolder> {
+public class WorkoutAdapter extends ListAdapter<WorkoutSummary, WorkoutAdapter.WorkoutViewHolder> {
+    
+    // Payload for a change that only affects the completion state or exercise counts
+    private static final Object PAYLOAD_PROGRESS = new Object();
+    
+    private static final DiffUtil.ItemCallback<WorkoutSummary> DIFF_CALLBACK =
+        new DiffUtil.ItemCallback<WorkoutSummary>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull WorkoutSummary oldItem, @NonNull WorkoutSummary newItem) {
+            return oldItem.workout.getWorkoutId() == newItem.workout.getWorkoutId();
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull WorkoutSummary oldItem, @NonNull WorkoutSummary newItem) {
+            return sameDetails(oldItem.workout, newItem.workout) && sameProgress(oldItem, newItem);
+        }
+        
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull WorkoutSummary oldItem, @NonNull WorkoutSummary newItem) {
+            return sameDetails(oldItem.workout, newItem.workout) ? PAYLOAD_PROGRESS : null;
+        }
+    };
     
     private final Context context;
-    private final List<Workout> workouts;
     private final OnWorkoutClickListener listener;
+    // Last submitted list; changes build on it even while a diff is still running
+    private List<WorkoutSummary> latest = Collections.emptyList();
     
-    public WorkoutAdapter(Context context, List<Workout> workouts, OnWorkoutClickListener listener) {
+    public WorkoutAdapter(Context context, OnWorkoutClickListener listener) {
+        super(new AsyncDifferConfig.Builder<>(DIFF_CALLBACK)
+            .setBackgroundThreadExecutor(AppExecutors.getInstance().computation())
+            .build());
         this.context = context;
-        this.workouts = workouts;
         this.listener = listener;
+        setHasStableIds(true);
     }
     
     @NonNull
@@ -44,36 +81,72 @@ public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.WorkoutV
     
     @Override
     public void onBindViewHolder(@NonNull WorkoutViewHolder holder, int position) {
-        Workout workout = workouts.get(position);
-        holder.bind(workout);
+        holder.bind(getItem(position));
+    }
+    
+    @Override
+    public void onBindViewHolder(@NonNull WorkoutViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+        } else {
+            holder.bindProgress(getItem(position));
+        }
     }
     
     @Override
-    public int getItemCount() {
-        return workouts.size();
+    public long getItemId(int position) {
+        return getItem(position).workout.getWorkoutId();
+    }
+    
+    @Override
+    public void submitList(@Nullable List<WorkoutSummary> list) {
+        latest = list == null ? Collections.emptyList() : list;
+        super.submitList(list);
+    }
+    
+    @Override
+    public void onViewRecycled(@NonNull WorkoutViewHolder holder) {
+        super.onViewRecycled(holder);
+        // Lets the pool reuse the thumbnail once it has also left the memory cache
+        ImageHelper.releaseImage(holder.ivWorkoutImage);
     }
     
     /**
      * Get workout at position
      */
     public Workout getWorkoutAt(int position) {
-        return workouts.get(position);
+        return getItem(position).workout;
     }
     
     /**
-     * Remove workout at position
+     * Show a new completion state for a workout before it is written
+     * @param workoutId Workout ID
+     * @param isCompleted New completion state
      */
-    public void removeWorkout(int position) {
-        workouts.remove(position);
-        notifyItemRemoved(position);
+    public void updateCompletion(int workoutId, boolean isCompleted) {
+        for (int i = 0; i < latest.size(); i++) {
+            WorkoutSummary summary = latest.get(i);
+            if (summary.workout.getWorkoutId() == workoutId) {
+                if (summary.workout.isCompleted() == isCompleted) return;
+                List<WorkoutSummary> updated = new ArrayList<>(latest);
+                updated.set(i, summary.withCompleted(isCompleted));
+                submitList(updated);
+                return;
+            }
+        }
     }
     
-    /**
-     * Update workout at position
-     */
-    public void updateWorkout(int position, Workout workout) {
-        workouts.set(position, workout);
-        notifyItemChanged(position);
+    private static boolean sameDetails(Workout a, Workout b) {
+        return Objects.equals(a.getWorkoutName(), b.getWorkoutName())
+            && Objects.equals(a.getImagePath(), b.getImagePath())
+            && a.getImageRenditions() == b.getImageRenditions();
+    }
+    
+    private static boolean sameProgress(WorkoutSummary a, WorkoutSummary b) {
+        return a.workout.isCompleted() == b.workout.isCompleted()
+            && a.exerciseCount == b.exerciseCount
+            && a.completedExerciseCount == b.completedExerciseCount;
     }
     
     /**
@@ -87,6 +160,7 @@ public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.WorkoutV
         private final TextView tvCompletionStatus;
         private final ImageView ivMore;
         private final View viewCompletionIndicator;
+        private final LinearProgressIndicator progressCompletion;
         private final GestureDetector gestureDetector;
         
         public WorkoutViewHolder(@NonNull View itemView) {
@@ -98,32 +172,33 @@ public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.WorkoutV
             tvCompletionStatus = itemView.findViewById(R.id.tv_completion_status);
             ivMore = itemView.findViewById(R.id.iv_more);
             viewCompletionIndicator = itemView.findViewById(R.id.view_completion_indicator);
+            progressCompletion = itemView.findViewById(R.id.progress_completion);
             
             // Initialize Gesture Detector
             gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
                 @Override
                 public boolean onSingleTapConfirmed(MotionEvent e) {
-                    int position = getAdapterPosition();
-                    if (position != RecyclerView.NO_POSITION && listener != null) {
-                        listener.onWorkoutClick(workouts.get(position));
+                    Workout workout = getBoundWorkout();
+                    if (workout != null && listener != null) {
+                        listener.onWorkoutClick(workout);
                     }
                     return true;
                 }
 
                 @Override
                 public boolean onDoubleTap(MotionEvent e) {
-                    int position = getAdapterPosition();
-                    if (position != RecyclerView.NO_POSITION && listener != null) {
-                        listener.onWorkoutDoubleTap(workouts.get(position));
+                    Workout workout = getBoundWorkout();
+                    if (workout != null && listener != null) {
+                        listener.onWorkoutDoubleTap(workout);
                     }
                     return true;
                 }
 
                 @Override
                 public void onLongPress(MotionEvent e) {
-                    int position = getAdapterPosition();
-                    if (position != RecyclerView.NO_POSITION && listener != null) {
-                        listener.onWorkoutLongClick(workouts.get(position), itemView);
+                    Workout workout = getBoundWorkout();
+                    if (workout != null && listener != null) {
+                        listener.onWorkoutLongClick(workout, itemView);
                     }
                 }
                 
@@ -141,16 +216,38 @@ public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.WorkoutV
                 }
                 return false;
             });
+            
+            ivMore.setOnClickListener(v -> {
+                Workout workout = getBoundWorkout();
+                if (workout != null) {
+                    showOptionsMenu(workout);
+                }
+            });
         }
         
-        public void bind(Workout workout) {
+        public void bind(WorkoutSummary summary) {
+            Workout workout = summary.workout;
+            
             // Set workout name
             tvWorkoutName.setText(workout.getWorkoutName());
             
-            // Set exercise count (placeholder - will be updated with actual count)
-            tvExerciseCount.setText(context.getString(R.string.exercises_count, 0));
+            bindProgress(summary);
+            
+            // Load workout image
+            ImageHelper.loadImageAsync(ivWorkoutImage, workout.getImagePath(),
+                workout.getImageRenditions(), R.drawable.ic_launcher_placeholder);
+        }
+        
+        /**
+         * Bind only the views that depend on the completion state and exercise counts
+         */
+        public void bindProgress(WorkoutSummary summary) {
+            Workout workout = summary.workout;
+            
+            tvExerciseCount.setText(context.getString(R.string.exercises_count, summary.exerciseCount));
+            progressCompletion.setVisibility(summary.exerciseCount > 0 ? View.VISIBLE : View.GONE);
+            progressCompletion.setProgress(summary.getCompletionPercentage());
             
-            // Set completion status
             if (workout.isCompleted()) {
                 tvCompletionStatus.setText(R.string.completed);
                 tvCompletionStatus.setTextColor(context.getColor(R.color.success));
@@ -160,25 +257,12 @@ public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.WorkoutV
                 tvCompletionStatus.setTextColor(context.getColor(R.color.text_secondary));
                 viewCompletionIndicator.setVisibility(View.GONE);
             }
-            
-            // Load workout image
-            if (workout.getImagePath() != null) {
-                Bitmap bitmap = ImageHelper.loadImageFromPath(workout.getImagePath());
-                if (bitmap != null) {
-                    ivWorkoutImage.setImageBitmap(bitmap);
-                } else {
-                    ivWorkoutImage.setImageResource(R.drawable.ic_launcher_placeholder);
-                }
-            } else {
-                ivWorkoutImage.setImageResource(R.drawable.ic_launcher_placeholder);
-            }
-            
-            // The item click listener is handled by GestureDetector, so we don't set itemView.setOnClickListener
-            // We just need the more button listener
-            
-            ivMore.setOnClickListener(v -> {
-                showOptionsMenu(workout);
-            });
+        }
+        
+        @Nullable
+        private Workout getBoundWorkout() {
+            int position = getBindingAdapterPosition();
+            return position == RecyclerView.NO_POSITION ? null : getItem(position).workout;
         }
         
         /**
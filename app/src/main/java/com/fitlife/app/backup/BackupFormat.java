@@ -0,0 +1,38 @@
+package com.fitlife.app.backup;
+
+/**
+ * Names used in workout archives (JSON)
+ * <pre>
+ * { "format": "fitlife-workouts", "version": 1, "exported_at": millis,
+ *   "workouts": [ { "name", "description", "created_at", "updated_at", "completed",
+ *                   "exercises": [ { "name", "sets", "reps", "instructions", "completed",
+ *                                    "order_index", "equipment": [ name, ... ] } ] } ] }
+ * </pre>
+ * Image paths are device-local and are not exported.
+ */
+public final class BackupFormat {
+
+    public static final String FORMAT = "fitlife-workouts";
+    public static final int VERSION = 1;
+    public static final String MIME_TYPE = "application/json";
+
+    public static final String KEY_FORMAT = "format";
+    public static final String KEY_VERSION = "version";
+    public static final String KEY_EXPORTED_AT = "exported_at";
+    public static final String KEY_WORKOUTS = "workouts";
+    public static final String KEY_EXERCISES = "exercises";
+    public static final String KEY_EQUIPMENT = "equipment";
+
+    public static final String KEY_NAME = "name";
+    public static final String KEY_DESCRIPTION = "description";
+    public static final String KEY_CREATED_AT = "created_at";
+    public static final String KEY_UPDATED_AT = "updated_at";
+    public static final String KEY_COMPLETED = "completed";
+    public static final String KEY_SETS = "sets";
+    public static final String KEY_REPS = "reps";
+    public static final String KEY_INSTRUCTIONS = "instructions";
+    public static final String KEY_ORDER_INDEX = "order_index";
+
+    private BackupFormat() {
+    }
+}
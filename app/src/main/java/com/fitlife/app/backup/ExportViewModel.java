@@ -0,0 +1,127 @@
+package com.fitlife.app.backup;
+
+import android.app.Application;
+import android.net.Uri;
+import android.provider.DocumentsContract;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.StringRes;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.fitlife.app.R;
+import com.fitlife.app.database.AppDatabase;
+import com.fitlife.app.utils.AppExecutors;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Runs a workout export for a screen and keeps it across configuration changes
+ * A recreated activity observes the same state and gets the running progress and the
+ * result; the export is cancelled once the screen is left for good.
+ */
+public class ExportViewModel extends AndroidViewModel {
+
+    /**
+     * Snapshot of the export shown by the screen
+     */
+    public static final class State {
+        static final State IDLE = new State(false, 0, 0, 0, 0);
+
+        public final boolean running;
+        public final int done;
+        public final int total;
+        // Message of a finished export that was not shown yet, or 0
+        @StringRes
+        public final int resultMessage;
+        public final int exportedCount;
+
+        State(boolean running, int done, int total, @StringRes int resultMessage, int exportedCount) {
+            this.running = running;
+            this.done = done;
+            this.total = total;
+            this.resultMessage = resultMessage;
+            this.exportedCount = exportedCount;
+        }
+    }
+
+    private final MutableLiveData<State> state = new MutableLiveData<>(State.IDLE);
+    // Running export, if any; only touched on the main thread
+    private WorkoutExporter exporter;
+
+    public ExportViewModel(@NonNull Application application) {
+        super(application);
+    }
+
+    public LiveData<State> getState() {
+        return state;
+    }
+
+    /**
+     * Stream the user's workouts to a document unless an export is already running
+     * A cancelled or failed export deletes the partial document.
+     * @param userId User whose workouts are exported
+     * @param uri Destination document
+     */
+    public void start(int userId, Uri uri) {
+        if (exporter != null) return;
+        WorkoutExporter task = new WorkoutExporter(AppDatabase.getInstance(getApplication()).backupDao());
+        exporter = task;
+        state.setValue(new State(true, 0, 0, 0, 0));
+
+        AppExecutors appExecutors = AppExecutors.getInstance();
+        appExecutors.bulkIO().execute(() -> {
+            int message;
+            try (OutputStream output = getApplication().getContentResolver().openOutputStream(uri, "wt")) {
+                if (output == null) throw new IOException("No output stream for " + uri);
+                task.export(userId, output,
+                    (done, total) -> state.postValue(new State(true, done, total, 0, 0)));
+                message = R.string.export_complete;
+            } catch (CancellationException e) {
+                message = R.string.export_cancelled;
+            } catch (Exception e) {
+                e.printStackTrace();
+                message = R.string.export_failed;
+            }
+
+            if (message != R.string.export_complete) {
+                try {
+                    DocumentsContract.deleteDocument(getApplication().getContentResolver(), uri);
+                } catch (Exception e) {
+                    // The provider may not support deletion; leave the partial file
+                }
+            }
+
+            final int result = message;
+            appExecutors.mainThread().execute(() -> {
+                exporter = null;
+                state.setValue(new State(false, 0, 0, result, task.getWorkoutCount()));
+            });
+        });
+    }
+
+    /**
+     * Cancel the running export, if any
+     */
+    public void cancel() {
+        if (exporter != null) {
+            exporter.cancel();
+        }
+    }
+
+    /**
+     * Mark the result of the finished export as shown
+     */
+    public void onResultShown() {
+        state.setValue(State.IDLE);
+    }
+
+    @Override
+    protected void onCleared() {
+        // The screen is gone for good; the task deletes the partial file
+        cancel();
+    }
+}
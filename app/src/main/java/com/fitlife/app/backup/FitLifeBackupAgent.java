@@ -0,0 +1,67 @@
+package com.fitlife.app.backup;
+
+import android.app.backup.BackupAgent;
+import android.app.backup.BackupDataInput;
+import android.app.backup.BackupDataOutput;
+import android.app.backup.FullBackupDataOutput;
+import android.os.ParcelFileDescriptor;
+
+import com.fitlife.app.database.AppDatabase;
+import com.fitlife.app.utils.Constants;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Backs up the database as a compact snapshot instead of the raw SQLite file
+ * Before a full backup the snapshot is written to the files directory, where the backup
+ * rules pick it up (the database directory is excluded). After a restore it is loaded
+ * into a fresh database and deleted.
+ */
+public class FitLifeBackupAgent extends BackupAgent {
+
+    @Override
+    public void onFullBackup(FullBackupDataOutput data) throws IOException {
+        File snapshot = new File(getFilesDir(), Constants.BACKUP_SNAPSHOT_FILE);
+        File temp = new File(snapshot.getPath() + ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temp))) {
+                WorkoutSnapshot.write(AppDatabase.getInstance(this).getOpenHelper().getWritableDatabase(), out);
+            }
+            if (!temp.renameTo(snapshot)) {
+                throw new IOException("Could not move snapshot into place");
+            }
+            super.onFullBackup(data);
+        } finally {
+            temp.delete();
+            snapshot.delete();
+        }
+    }
+
+    @Override
+    public void onRestoreFinished() {
+        File snapshot = new File(getFilesDir(), Constants.BACKUP_SNAPSHOT_FILE);
+        if (!snapshot.exists()) return;
+        try {
+            WorkoutSnapshot.restore(snapshot, AppDatabase.getInstance(this).getOpenHelper().getWritableDatabase());
+        } catch (IOException e) {
+            // The app starts with an empty database rather than half-restored data
+            e.printStackTrace();
+        } finally {
+            snapshot.delete();
+        }
+    }
+
+    // Key/value backup is not used (fullBackupOnly)
+    @Override
+    public void onBackup(ParcelFileDescriptor oldState, BackupDataOutput data,
+                         ParcelFileDescriptor newState) {
+    }
+
+    @Override
+    public void onRestore(BackupDataInput data, int appVersionCode, ParcelFileDescriptor newState) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.fitlife.app.backup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * LEB128 variable-length integers, as used by the snapshot format
+ * Seven bits per byte, least significant group first; the high bit marks a following
+ * byte. Signed values are zigzag-encoded first so small negative numbers stay short.
+ */
+public final class Varint {
+
+    private Varint() {
+    }
+
+    /**
+     * Write an unsigned value (negative values take ten bytes)
+     */
+    public static void write(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Write a signed value, zigzag-encoded
+     */
+    public static void writeSigned(OutputStream out, long value) throws IOException {
+        write(out, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Read an unsigned value
+     * @throws BufferUnderflowException If the buffer ends inside the value
+     * @throws IllegalArgumentException If the value is longer than ten bytes
+     */
+    public static long read(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Read a zigzag-encoded signed value
+     */
+    public static long readSigned(ByteBuffer buffer) {
+        long raw = read(buffer);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+}
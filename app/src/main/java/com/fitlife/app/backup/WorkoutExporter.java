@@ -0,0 +1,219 @@
+package com.fitlife.app.backup;
+
+import android.database.Cursor;
+import android.util.JsonWriter;
+
+import androidx.annotation.Nullable;
+
+import com.fitlife.app.database.dao.BackupDao;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Streams a user's workouts, exercises and equipment to a JSON archive
+ * Rows go straight from one database cursor to the writer, so memory use does not
+ * depend on the size of the history. One exporter runs one export; cancel() may be
+ * called from any thread.
+ */
+public class WorkoutExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Receives progress on the exporting thread
+     */
+    public interface ProgressListener {
+        /**
+         * @param done Workouts written so far
+         * @param total Workouts in the export
+         */
+        void onProgress(int done, int total);
+    }
+
+    private final BackupDao backupDao;
+    private volatile boolean cancelled;
+
+    private int workoutCount;
+    private int exerciseCount;
+
+    public WorkoutExporter(BackupDao backupDao) {
+        this.backupDao = backupDao;
+    }
+
+    /**
+     * Stop the running export; export() then throws CancellationException
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public int getWorkoutCount() {
+        return workoutCount;
+    }
+
+    public int getExerciseCount() {
+        return exerciseCount;
+    }
+
+    /**
+     * Write the archive; runs on a background thread
+     * The stream is flushed but not closed.
+     * @param userId User whose workouts are exported
+     * @param output Destination
+     * @param listener Progress listener, called whenever the percentage changes
+     * @throws IOException If writing fails
+     * @throws CancellationException If cancel() was called
+     */
+    public void export(int userId, OutputStream output, @Nullable ProgressListener listener)
+            throws IOException {
+        workoutCount = 0;
+        exerciseCount = 0;
+        int total = backupDao.getWorkoutCount(userId);
+        int lastPercent = -1;
+
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(
+            new BufferedOutputStream(output, BUFFER_SIZE), StandardCharsets.UTF_8));
+        try (Cursor cursor = backupDao.getExportRows(userId)) {
+            Columns c = new Columns(cursor);
+
+            writer.beginObject();
+            writer.name(BackupFormat.KEY_FORMAT).value(BackupFormat.FORMAT);
+            writer.name(BackupFormat.KEY_VERSION).value(BackupFormat.VERSION);
+            writer.name(BackupFormat.KEY_EXPORTED_AT).value(System.currentTimeMillis());
+            writer.name(BackupFormat.KEY_WORKOUTS).beginArray();
+
+            // IDs are never 0, so 0 means "no open object"
+            int workoutId = 0;
+            int exerciseId = 0;
+            while (cursor.moveToNext()) {
+                if (cancelled) {
+                    throw new CancellationException();
+                }
+
+                int rowWorkoutId = cursor.getInt(c.workoutId);
+                if (rowWorkoutId != workoutId) {
+                    if (workoutId != 0) {
+                        endWorkout(writer, exerciseId);
+                        exerciseId = 0;
+                        workoutCount++;
+                        lastPercent = report(listener, total, lastPercent);
+                    }
+                    writeWorkout(writer, cursor, c);
+                    workoutId = rowWorkoutId;
+                }
+
+                // LEFT JOIN: a workout without exercises has a single row with NULLs
+                if (cursor.isNull(c.exerciseId)) continue;
+                int rowExerciseId = cursor.getInt(c.exerciseId);
+                if (rowExerciseId != exerciseId) {
+                    if (exerciseId != 0) {
+                        endExercise(writer);
+                    }
+                    writeExercise(writer, cursor, c);
+                    exerciseId = rowExerciseId;
+                    exerciseCount++;
+                }
+                if (!cursor.isNull(c.equipmentName)) {
+                    writer.value(cursor.getString(c.equipmentName));
+                }
+            }
+            if (workoutId != 0) {
+                endWorkout(writer, exerciseId);
+                workoutCount++;
+                report(listener, total, lastPercent);
+            }
+
+            writer.endArray();
+            writer.endObject();
+            writer.flush();
+        }
+    }
+
+    private static void writeWorkout(JsonWriter writer, Cursor cursor, Columns c) throws IOException {
+        writer.beginObject();
+        writer.name(BackupFormat.KEY_NAME).value(cursor.getString(c.workoutName));
+        writer.name(BackupFormat.KEY_DESCRIPTION).value(cursor.getString(c.description));
+        writer.name(BackupFormat.KEY_CREATED_AT).value(cursor.getLong(c.createdAt));
+        writer.name(BackupFormat.KEY_UPDATED_AT).value(cursor.getLong(c.updatedAt));
+        writer.name(BackupFormat.KEY_COMPLETED).value(cursor.getInt(c.workoutCompleted) != 0);
+        writer.name(BackupFormat.KEY_EXERCISES).beginArray();
+    }
+
+    private static void endWorkout(JsonWriter writer, int openExerciseId) throws IOException {
+        if (openExerciseId != 0) {
+            endExercise(writer);
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    private static void writeExercise(JsonWriter writer, Cursor cursor, Columns c) throws IOException {
+        writer.beginObject();
+        writer.name(BackupFormat.KEY_NAME).value(cursor.getString(c.exerciseName));
+        writer.name(BackupFormat.KEY_SETS).value(cursor.getInt(c.sets));
+        writer.name(BackupFormat.KEY_REPS).value(cursor.getInt(c.reps));
+        writer.name(BackupFormat.KEY_INSTRUCTIONS).value(cursor.getString(c.instructions));
+        writer.name(BackupFormat.KEY_COMPLETED).value(cursor.getInt(c.exerciseCompleted) != 0);
+        writer.name(BackupFormat.KEY_ORDER_INDEX).value(cursor.getInt(c.orderIndex));
+        writer.name(BackupFormat.KEY_EQUIPMENT).beginArray();
+    }
+
+    private static void endExercise(JsonWriter writer) throws IOException {
+        writer.endArray();
+        writer.endObject();
+    }
+
+    private int report(@Nullable ProgressListener listener, int total, int lastPercent) {
+        if (listener == null || total == 0) return lastPercent;
+        // The count is read before the rows, without a transaction that would hold off
+        // writers for the whole export; workouts added in between raise the total
+        total = Math.max(total, workoutCount);
+        int percent = (int) (100L * workoutCount / total);
+        if (percent != lastPercent) {
+            listener.onProgress(workoutCount, total);
+        }
+        return percent;
+    }
+
+    /**
+     * Column indexes of the export cursor, looked up once
+     */
+    private static class Columns {
+        final int workoutId;
+        final int workoutName;
+        final int description;
+        final int createdAt;
+        final int updatedAt;
+        final int workoutCompleted;
+        final int exerciseId;
+        final int exerciseName;
+        final int sets;
+        final int reps;
+        final int instructions;
+        final int exerciseCompleted;
+        final int orderIndex;
+        final int equipmentName;
+
+        Columns(Cursor cursor) {
+            workoutId = cursor.getColumnIndexOrThrow("workout_id");
+            workoutName = cursor.getColumnIndexOrThrow("workout_name");
+            description = cursor.getColumnIndexOrThrow("description");
+            createdAt = cursor.getColumnIndexOrThrow("created_at");
+            updatedAt = cursor.getColumnIndexOrThrow("updated_at");
+            workoutCompleted = cursor.getColumnIndexOrThrow("is_completed");
+            exerciseId = cursor.getColumnIndexOrThrow("exercise_id");
+            exerciseName = cursor.getColumnIndexOrThrow("exercise_name");
+            sets = cursor.getColumnIndexOrThrow("sets");
+            reps = cursor.getColumnIndexOrThrow("reps");
+            instructions = cursor.getColumnIndexOrThrow("instructions");
+            exerciseCompleted = cursor.getColumnIndexOrThrow("exercise_completed");
+            orderIndex = cursor.getColumnIndexOrThrow("order_index");
+            equipmentName = cursor.getColumnIndexOrThrow("equipment_name");
+        }
+    }
+}
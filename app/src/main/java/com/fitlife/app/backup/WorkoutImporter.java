@@ -0,0 +1,353 @@
+package com.fitlife.app.backup;
+
+import android.os.SystemClock;
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import androidx.annotation.Nullable;
+
+import com.fitlife.app.database.AppDatabase;
+import com.fitlife.app.database.dao.EquipmentDao;
+import com.fitlife.app.database.dao.ExerciseDao;
+import com.fitlife.app.database.dao.WorkoutDao;
+import com.fitlife.app.database.entities.Equipment;
+import com.fitlife.app.database.entities.Exercise;
+import com.fitlife.app.database.entities.Workout;
+import com.fitlife.app.utils.ContentHash;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Imports a JSON workout archive (see BackupFormat) into a user's workouts
+ * The archive is parsed as a stream and written in transactions of a fixed number of
+ * workouts, so only one chunk is held in memory. Workouts whose content hash the user
+ * already has are skipped, which makes importing the same archive twice a no-op.
+ * If writing a chunk fails, only that chunk is rolled back and the import goes on.
+ */
+public class WorkoutImporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Receives progress on the importing thread, after every chunk
+     */
+    public interface ProgressListener {
+        void onProgress(Result progress);
+    }
+
+    /**
+     * Counts of an import, also used for progress
+     */
+    public static class Result {
+        public int imported;
+        public int skipped;
+        public int failed;
+        // Workout, exercise and equipment rows inserted
+        public long rows;
+        public long elapsedMs;
+
+        /**
+         * Insert throughput over the whole import, parsing included
+         */
+        public long getRowsPerSecond() {
+            return elapsedMs > 0 ? rows * 1000 / elapsedMs : rows;
+        }
+    }
+
+    private final AppDatabase database;
+    private final WorkoutDao workoutDao;
+    private final ExerciseDao exerciseDao;
+    private final EquipmentDao equipmentDao;
+    private final int chunkSize;
+
+    /**
+     * @param database Database
+     * @param chunkSize Workouts written per transaction (1 to 999)
+     */
+    public WorkoutImporter(AppDatabase database, int chunkSize) {
+        if (chunkSize < 1 || chunkSize > 999) {
+            // Each chunk's hashes are looked up in one IN (...) query
+            throw new IllegalArgumentException("chunkSize must be between 1 and 999");
+        }
+        this.database = database;
+        this.workoutDao = database.workoutDao();
+        this.exerciseDao = database.exerciseDao();
+        this.equipmentDao = database.equipmentDao();
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Import an archive; runs on a background thread
+     * Chunks written before a parse error stay imported.
+     * @param userId User the workouts are added to
+     * @param input Archive; not closed
+     * @param listener Progress listener
+     * @return Counts and timing
+     * @throws IOException If the archive cannot be read or is not a workout archive
+     */
+    public Result importArchive(int userId, InputStream input, @Nullable ProgressListener listener)
+            throws IOException {
+        long start = SystemClock.elapsedRealtime();
+        Result result = new Result();
+
+        JsonReader reader = new JsonReader(new InputStreamReader(
+            new BufferedInputStream(input, BUFFER_SIZE), StandardCharsets.UTF_8));
+        reader.beginObject();
+        boolean formatChecked = false;
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (BackupFormat.KEY_FORMAT.equals(name)) {
+                if (!BackupFormat.FORMAT.equals(reader.nextString())) {
+                    throw new IOException("Not a workout archive");
+                }
+                formatChecked = true;
+            } else if (BackupFormat.KEY_VERSION.equals(name)) {
+                if (reader.nextInt() > BackupFormat.VERSION) {
+                    throw new IOException("Archive was written by a newer version");
+                }
+            } else if (BackupFormat.KEY_WORKOUTS.equals(name) && formatChecked) {
+                readWorkouts(reader, userId, result, start, listener);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        result.elapsedMs = SystemClock.elapsedRealtime() - start;
+        return result;
+    }
+
+    private void readWorkouts(JsonReader reader, int userId, Result result, long start,
+                              @Nullable ProgressListener listener) throws IOException {
+        List<ParsedWorkout> chunk = new ArrayList<>(chunkSize);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            chunk.add(readWorkout(reader, userId));
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, userId, result);
+                chunk.clear();
+                report(listener, result, start);
+            }
+        }
+        reader.endArray();
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, userId, result);
+            report(listener, result, start);
+        }
+    }
+
+    /**
+     * Insert the workouts of a chunk that the user does not have yet, in one transaction
+     */
+    private void writeChunk(List<ParsedWorkout> chunk, int userId, Result result) {
+        List<String> hashes = new ArrayList<>(chunk.size());
+        for (ParsedWorkout parsed : chunk) {
+            hashes.add(parsed.workout.getContentHash());
+        }
+
+        int[] counts = new int[2];
+        long[] rows = new long[1];
+        try {
+            database.runInTransaction(() -> {
+                // Also skips duplicates within the chunk
+                Set<String> existing = new HashSet<>(workoutDao.getExistingContentHashes(userId, hashes));
+                for (ParsedWorkout parsed : chunk) {
+                    if (!existing.add(parsed.workout.getContentHash())) {
+                        counts[1]++;
+                        continue;
+                    }
+                    rows[0] += insert(parsed);
+                    counts[0]++;
+                }
+            });
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            result.failed += chunk.size();
+            return;
+        }
+        result.imported += counts[0];
+        result.skipped += counts[1];
+        result.rows += rows[0];
+    }
+
+    /**
+     * Insert one workout graph
+     * @return Number of rows inserted
+     */
+    private long insert(ParsedWorkout parsed) {
+        int workoutId = (int) workoutDao.insert(parsed.workout);
+        if (parsed.exercises.isEmpty()) {
+            return 1;
+        }
+
+        for (Exercise exercise : parsed.exercises) {
+            exercise.setWorkoutId(workoutId);
+        }
+        List<Long> exerciseIds = exerciseDao.insertAll(parsed.exercises);
+
+        List<Equipment> equipment = new ArrayList<>();
+        for (int i = 0; i < exerciseIds.size(); i++) {
+            int exerciseId = exerciseIds.get(i).intValue();
+            for (String name : parsed.equipment.get(i)) {
+                equipment.add(new Equipment(exerciseId, name));
+            }
+        }
+        if (!equipment.isEmpty()) {
+            equipmentDao.insertAll(equipment);
+        }
+        return 1 + exerciseIds.size() + equipment.size();
+    }
+
+    private static void report(@Nullable ProgressListener listener, Result result, long start) {
+        if (listener == null) return;
+        result.elapsedMs = SystemClock.elapsedRealtime() - start;
+        listener.onProgress(result);
+    }
+
+    private static ParsedWorkout readWorkout(JsonReader reader, int userId) throws IOException {
+        String name = null;
+        String description = null;
+        long createdAt = System.currentTimeMillis();
+        Long updatedAt = null;
+        boolean completed = false;
+        List<Exercise> exercises = new ArrayList<>();
+        List<List<String>> equipment = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (key) {
+                case BackupFormat.KEY_NAME:
+                    name = reader.nextString();
+                    break;
+                case BackupFormat.KEY_DESCRIPTION:
+                    description = reader.nextString();
+                    break;
+                case BackupFormat.KEY_CREATED_AT:
+                    createdAt = reader.nextLong();
+                    break;
+                case BackupFormat.KEY_UPDATED_AT:
+                    updatedAt = reader.nextLong();
+                    break;
+                case BackupFormat.KEY_COMPLETED:
+                    completed = reader.nextBoolean();
+                    break;
+                case BackupFormat.KEY_EXERCISES:
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        List<String> names = new ArrayList<>();
+                        exercises.add(readExercise(reader, names));
+                        equipment.add(names);
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (name == null) {
+            throw new IOException("Workout without a name");
+        }
+        Workout workout = new Workout(userId, name, description, null);
+        workout.setCreatedAt(createdAt);
+        workout.setUpdatedAt(updatedAt != null ? updatedAt : createdAt);
+        workout.setCompleted(completed);
+
+        ContentHash hash = new ContentHash(name, description, createdAt);
+        for (int i = 0; i < exercises.size(); i++) {
+            Exercise exercise = exercises.get(i);
+            hash.addExercise(exercise.getExerciseName(), exercise.getSets(), exercise.getReps(),
+                exercise.getInstructions());
+            for (String item : equipment.get(i)) {
+                hash.addEquipment(item);
+            }
+        }
+        workout.setContentHash(hash.build());
+        return new ParsedWorkout(workout, exercises, equipment);
+    }
+
+    private static Exercise readExercise(JsonReader reader, List<String> equipment) throws IOException {
+        String name = null;
+        int sets = 0;
+        int reps = 0;
+        String instructions = null;
+        boolean completed = false;
+        int orderIndex = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (key) {
+                case BackupFormat.KEY_NAME:
+                    name = reader.nextString();
+                    break;
+                case BackupFormat.KEY_SETS:
+                    sets = reader.nextInt();
+                    break;
+                case BackupFormat.KEY_REPS:
+                    reps = reader.nextInt();
+                    break;
+                case BackupFormat.KEY_INSTRUCTIONS:
+                    instructions = reader.nextString();
+                    break;
+                case BackupFormat.KEY_COMPLETED:
+                    completed = reader.nextBoolean();
+                    break;
+                case BackupFormat.KEY_ORDER_INDEX:
+                    orderIndex = reader.nextInt();
+                    break;
+                case BackupFormat.KEY_EQUIPMENT:
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        equipment.add(reader.nextString());
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (name == null) {
+            throw new IOException("Exercise without a name");
+        }
+        Exercise exercise = new Exercise(0, name, sets, reps, instructions, orderIndex);
+        exercise.setCompleted(completed);
+        return exercise;
+    }
+
+    /**
+     * One workout graph read from the archive
+     */
+    private static class ParsedWorkout {
+        final Workout workout;
+        final List<Exercise> exercises;
+        // Equipment names per exercise, same order as exercises
+        final List<List<String>> equipment;
+
+        ParsedWorkout(Workout workout, List<Exercise> exercises, List<List<String>> equipment) {
+            this.workout = workout;
+            this.exercises = exercises;
+            this.equipment = equipment;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.fitlife.app.backup;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import com.fitlife.app.database.DatabaseTriggers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact binary snapshot of all app data, used for Android backup
+ * <pre>
+ * magic "FLS1" | varint format version
+ * string table: varint count, then per string varint byte length + UTF-8
+ * per table, in TABLES order: records of varint length + payload, ended by length 0
+ * </pre>
+ * Exercise and equipment names are interned in the string table. IDs, foreign keys and
+ * timestamps are stored as zigzag varint deltas to the previous row of the same table,
+ * which for rows in ID order are mostly one or two bytes. Other strings are inline with
+ * their length plus one (0 for null). Columns are only ever added to the end of a
+ * record: readers skip trailing fields they do not know, and restore trailing columns a
+ * snapshot from an older build lacks (e.g. workouts without image_renditions) as 0 or
+ * null, so the format version only changes for incompatible layouts.
+ */
+public final class WorkoutSnapshot {
+
+    private static final byte[] MAGIC = {'F', 'L', 'S', '1'};
+    private static final int VERSION = 1;
+
+    // Column encodings
+    private static final int DELTA = 0;
+    private static final int INT = 1;
+    private static final int STR = 2;
+    private static final int NAME = 3;
+    private static final int HASH = 4;
+
+    // Parents before children, so foreign keys hold while restoring
+    private static final Table[] TABLES = {
+        new Table("users",
+            "user_id", DELTA, "full_name", STR, "email", STR, "password_hash", STR,
+            "created_at", DELTA, "last_login", DELTA),
+        new Table("workouts",
+            "workout_id", DELTA, "user_id", DELTA, "workout_name", STR, "description", STR,
+            "image_path", STR, "created_at", DELTA, "updated_at", DELTA, "is_completed", INT,
+            "content_hash", HASH, "image_renditions", INT),
+        new Table("exercises",
+            "exercise_id", DELTA, "workout_id", DELTA, "exercise_name", NAME, "sets", INT,
+            "reps", INT, "instructions", STR, "is_completed", INT, "order_index", INT),
+        new Table("equipment",
+            "equipment_id", DELTA, "exercise_id", DELTA, "equipment_name", NAME),
+        new Table("workout_completions",
+            "completion_id", DELTA, "workout_id", DELTA, "user_id", DELTA, "completed_at", DELTA)
+    };
+
+    private WorkoutSnapshot() {
+    }
+
+    /**
+     * Write a snapshot of the database; runs on a background thread
+     * @param db Database, read inside one transaction so the snapshot is consistent
+     * @param out Destination; flushed, not closed
+     */
+    public static void write(SupportSQLiteDatabase db, OutputStream out) throws IOException {
+        db.beginTransaction();
+        try {
+            out.write(MAGIC);
+            Varint.write(out, VERSION);
+
+            Map<String, Integer> names = writeStringTable(db, out);
+            ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+            for (Table table : TABLES) {
+                writeTable(db, table, names, record, out);
+            }
+            out.flush();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Replace all data in the database with a snapshot
+     * The file is memory-mapped and decoded in place. Rows are inserted with compiled
+     * statements in one transaction, with the derived-data triggers off; completion
+     * rollups are rebuilt once at the end.
+     * @param file Snapshot file
+     * @param db Database
+     * @throws IOException If the file cannot be read or is not a valid snapshot; the
+     *     database is left unchanged
+     */
+    public static void restore(File file, SupportSQLiteDatabase db) throws IOException {
+        try (FileInputStream input = new FileInputStream(file);
+             FileChannel channel = input.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                restore(buffer, db);
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("Corrupt snapshot", e);
+            }
+        }
+    }
+
+    private static void restore(ByteBuffer buffer, SupportSQLiteDatabase db) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a snapshot");
+        }
+        if (Varint.read(buffer) > VERSION) {
+            throw new IOException("Snapshot was written by a newer version");
+        }
+        String[] names = readStringTable(buffer);
+
+        db.beginTransaction();
+        try {
+            DatabaseTriggers.drop(db);
+            for (int i = TABLES.length - 1; i >= 0; i--) {
+                db.execSQL("DELETE FROM `" + TABLES[i].name + "`");
+            }
+            for (Table table : TABLES) {
+                readTable(buffer, db, table, names);
+            }
+            DatabaseTriggers.rebuildRollups(db);
+            DatabaseTriggers.rebuildImageRefs(db);
+            DatabaseTriggers.create(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static Map<String, Integer> writeStringTable(SupportSQLiteDatabase db, OutputStream out)
+            throws IOException {
+        Map<String, Integer> names = new HashMap<>();
+        try (Cursor cursor = db.query("SELECT `exercise_name` FROM `exercises` " +
+                "UNION SELECT `equipment_name` FROM `equipment`")) {
+            Varint.write(out, cursor.getCount());
+            while (cursor.moveToNext()) {
+                String name = cursor.getString(0);
+                names.put(name, names.size());
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                Varint.write(out, bytes.length);
+                out.write(bytes);
+            }
+        }
+        return names;
+    }
+
+    private static String[] readStringTable(ByteBuffer buffer) {
+        String[] names = new String[checkedLength(buffer)];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = readUtf8(buffer, checkedLength(buffer));
+        }
+        return names;
+    }
+
+    private static void writeTable(SupportSQLiteDatabase db, Table table, Map<String, Integer> names,
+                                   ByteArrayOutputStream record, OutputStream out) throws IOException {
+        long[] previous = new long[table.columns.length];
+        try (Cursor cursor = db.query("SELECT " + table.columnList + " FROM `" + table.name + "` " +
+                "ORDER BY `" + table.columns[0] + "`")) {
+            while (cursor.moveToNext()) {
+                record.reset();
+                for (int c = 0; c < table.columns.length; c++) {
+                    switch (table.encodings[c]) {
+                        case DELTA:
+                            long value = cursor.getLong(c);
+                            Varint.writeSigned(record, value - previous[c]);
+                            previous[c] = value;
+                            break;
+                        case INT:
+                            Varint.writeSigned(record, cursor.getLong(c));
+                            break;
+                        case STR:
+                            writeString(record, cursor.isNull(c) ? null : cursor.getString(c));
+                            break;
+                        case NAME:
+                            Varint.write(record, names.get(cursor.getString(c)));
+                            break;
+                        case HASH:
+                            writeHash(record, cursor.isNull(c) ? null : cursor.getString(c));
+                            break;
+                    }
+                }
+                Varint.write(out, record.size());
+                record.writeTo(out);
+            }
+        }
+        Varint.write(out, 0);
+    }
+
+    private static void readTable(ByteBuffer buffer, SupportSQLiteDatabase db, Table table,
+                                  String[] names) {
+        long[] previous = new long[table.columns.length];
+        SupportSQLiteStatement insert = db.compileStatement("INSERT INTO `" + table.name + "` (" +
+            table.columnList + ") VALUES (" + table.placeholders + ")");
+        while (true) {
+            int length = checkedLength(buffer);
+            if (length == 0) break;
+            int end = buffer.position() + length;
+
+            insert.clearBindings();
+            for (int c = 0; c < table.columns.length; c++) {
+                int index = c + 1;
+                if (buffer.position() == end) {
+                    // Column added after the snapshot was written
+                    if (table.encodings[c] == INT) {
+                        insert.bindLong(index, 0);
+                    } else {
+                        insert.bindNull(index);
+                    }
+                    continue;
+                }
+                switch (table.encodings[c]) {
+                    case DELTA:
+                        previous[c] += Varint.readSigned(buffer);
+                        insert.bindLong(index, previous[c]);
+                        break;
+                    case INT:
+                        insert.bindLong(index, Varint.readSigned(buffer));
+                        break;
+                    case STR:
+                        bindNullable(insert, index, readString(buffer));
+                        break;
+                    case NAME:
+                        long name = Varint.read(buffer);
+                        if (name < 0 || name >= names.length) {
+                            throw new IllegalArgumentException("Unknown name " + name);
+                        }
+                        insert.bindString(index, names[(int) name]);
+                        break;
+                    case HASH:
+                        bindNullable(insert, index, readHash(buffer));
+                        break;
+                }
+            }
+            if (buffer.position() > end) {
+                throw new IllegalArgumentException("Record overruns its length");
+            }
+            buffer.position(end);
+            insert.executeInsert();
+        }
+    }
+
+    private static void bindNullable(SupportSQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            Varint.write(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        Varint.write(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = checkedLength(buffer);
+        return length == 0 ? null : readUtf8(buffer, length - 1);
+    }
+
+    /**
+     * Content hashes are 64 hex digits; stored as their 32 bytes
+     */
+    private static void writeHash(OutputStream out, String hex) throws IOException {
+        if (hex == null || hex.length() != 64) {
+            Varint.write(out, 0);
+            return;
+        }
+        Varint.write(out, 32);
+        for (int i = 0; i < 64; i += 2) {
+            out.write(Character.digit(hex.charAt(i), 16) << 4 | Character.digit(hex.charAt(i + 1), 16));
+        }
+    }
+
+    private static String readHash(ByteBuffer buffer) {
+        int length = checkedLength(buffer);
+        if (length == 0) return null;
+        StringBuilder sb = new StringBuilder(length * 2);
+        for (int i = 0; i < length; i++) {
+            byte b = buffer.get();
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    private static String readUtf8(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a length and check it fits in the rest of the buffer
+     */
+    private static int checkedLength(ByteBuffer buffer) {
+        long length = Varint.read(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Length " + length + " past end of snapshot");
+        }
+        return (int) length;
+    }
+
+    /**
+     * Columns of one table with their encodings
+     */
+    private static class Table {
+        final String name;
+        final String[] columns;
+        final int[] encodings;
+        final String columnList;
+        final String placeholders;
+
+        Table(String name, Object... columnsAndEncodings) {
+            this.name = name;
+            int count = columnsAndEncodings.length / 2;
+            columns = new String[count];
+            encodings = new int[count];
+            StringBuilder list = new StringBuilder();
+            StringBuilder marks = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                columns[i] = (String) columnsAndEncodings[2 * i];
+                encodings[i] = (Integer) columnsAndEncodings[2 * i + 1];
+                list.append(i > 0 ? ", `" : "`").append(columns[i]).append('`');
+                marks.append(i > 0 ? ", ?" : "?");
+            }
+            columnList = list.toString();
+            placeholders = marks.toString();
+        }
+    }
+}
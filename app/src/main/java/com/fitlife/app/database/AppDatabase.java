@@ -1,40 +1,331 @@
 package com.fitlife.app.database;
 
 import android.content.Context;
+import android.database.Cursor;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
+import com.fitlife.app.database.dao.BackupDao;
+import com.fitlife.app.database.dao.CompletionDao;
 import com.fitlife.app.database.dao.EquipmentDao;
 import com.fitlife.app.database.dao.ExerciseDao;
+import com.fitlife.app.database.dao.ImageDao;
+import com.fitlife.app.database.dao.SearchDao;
 import com.fitlife.app.database.dao.UserDao;
 import com.fitlife.app.database.dao.WorkoutDao;
+import com.fitlife.app.database.entities.CompletionRollup;
 import com.fitlife.app.database.entities.Equipment;
 import com.fitlife.app.database.entities.Exercise;
+import com.fitlife.app.database.entities.ExerciseFts;
+import com.fitlife.app.database.entities.StoredImage;
 import com.fitlife.app.database.entities.User;
 import com.fitlife.app.database.entities.Workout;
+import com.fitlife.app.database.entities.WorkoutCompletion;
+import com.fitlife.app.database.entities.WorkoutFts;
+import com.fitlife.app.utils.AppExecutors;
 import com.fitlife.app.utils.Constants;
+import com.fitlife.app.utils.ContentHash;
+import com.fitlife.app.utils.OrderKeys;
 
 /**
  * Room Database class for FitLife application
  * Singleton pattern ensures only one database instance exists
  */
 @Database(
-    entities = {User.class, Workout.class, Exercise.class, Equipment.class},
+    entities = {User.class, Workout.class, Exercise.class, Equipment.class,
+        WorkoutFts.class, ExerciseFts.class, WorkoutCompletion.class, CompletionRollup.class,
+        StoredImage.class},
     version = Constants.DATABASE_VERSION,
-    exportSchema = false
+    exportSchema = true
 )
 public abstract class AppDatabase extends RoomDatabase {
     
     // Singleton instance
     private static AppDatabase instance;
     
+    /**
+     * Version 1 -> 2: composite indexes matching the list queries' filter and sort columns
+     * Replaces the single-column user_id / workout_id indexes, which are prefixes of the new ones
+     */
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("DROP INDEX IF EXISTS `index_workouts_user_id`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_workouts_user_id_created_at` " +
+                       "ON `workouts` (`user_id`, `created_at`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_workouts_user_id_is_completed_updated_at` " +
+                       "ON `workouts` (`user_id`, `is_completed`, `updated_at`)");
+            
+            db.execSQL("DROP INDEX IF EXISTS `index_exercises_workout_id`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_exercises_workout_id_order_index` " +
+                       "ON `exercises` (`workout_id`, `order_index`)");
+            
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_equipment_equipment_name_exercise_id` " +
+                       "ON `equipment` (`equipment_name`, `exercise_id`)");
+        }
+    };
+    
+    /**
+     * Version 2 -> 3: unique case-insensitive email
+     * The users table is rebuilt so the email column gets COLLATE NOCASE. Accounts are
+     * never merged or dropped: where emails differ only by case, the oldest account keeps
+     * its email and the others get {@code duplicate<user_id>+<email>}, keeping their
+     * password, workouts and signed-in sessions. Foreign keys are not enforced during
+     * migrations, so dropping the old table does not cascade to workouts.
+     */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("UPDATE `users` SET `email` = 'duplicate' || `user_id` || '+' || `email` " +
+                       "WHERE EXISTS (SELECT 1 FROM `users` u2 " +
+                       "WHERE u2.`email` = `users`.`email` COLLATE NOCASE " +
+                       "AND u2.`user_id` < `users`.`user_id`)");
+            
+            db.execSQL("CREATE TABLE IF NOT EXISTS `users_new` (" +
+                       "`user_id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                       "`full_name` TEXT NOT NULL, " +
+                       "`email` TEXT NOT NULL COLLATE NOCASE, " +
+                       "`password_hash` TEXT NOT NULL, " +
+                       "`created_at` INTEGER NOT NULL, " +
+                       "`last_login` INTEGER NOT NULL)");
+            db.execSQL("INSERT INTO `users_new` " +
+                       "(`user_id`, `full_name`, `email`, `password_hash`, `created_at`, `last_login`) " +
+                       "SELECT `user_id`, `full_name`, `email`, `password_hash`, `created_at`, `last_login` " +
+                       "FROM `users`");
+            db.execSQL("DROP TABLE `users`");
+            db.execSQL("ALTER TABLE `users_new` RENAME TO `users`");
+            
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_users_email` ON `users` (`email`)");
+        }
+    };
+    
+    /**
+     * Version 3 -> 4: full-text indexes for search
+     * Same tables and sync triggers Room creates for a fresh install; 'rebuild'
+     * then indexes the rows that already exist.
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `workouts_fts` USING FTS4(" +
+                       "`workout_name` TEXT NOT NULL, `description` TEXT, " +
+                       "tokenize=unicode61, content=`workouts`)");
+            createFtsSyncTriggers(db, "workouts_fts", "workouts", "workout_name", "description");
+            db.execSQL("INSERT INTO `workouts_fts`(`workouts_fts`) VALUES('rebuild')");
+            
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `exercises_fts` USING FTS4(" +
+                       "`exercise_name` TEXT NOT NULL, `instructions` TEXT, " +
+                       "tokenize=unicode61, content=`exercises`)");
+            createFtsSyncTriggers(db, "exercises_fts", "exercises", "exercise_name", "instructions");
+            db.execSQL("INSERT INTO `exercises_fts`(`exercises_fts`) VALUES('rebuild')");
+        }
+    };
+    
+    /**
+     * Version 4 -> 5: triggers that keep workouts.is_completed in step with the exercises
+     * Workouts whose exercises were all ticked off before are marked complete once;
+     * workouts the user marked complete by hand stay complete.
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("UPDATE `workouts` SET `is_completed` = 1 WHERE `is_completed` = 0 " +
+                       "AND EXISTS (SELECT 1 FROM `exercises` e WHERE e.`workout_id` = `workouts`.`workout_id`) " +
+                       "AND NOT EXISTS (SELECT 1 FROM `exercises` e " +
+                       "WHERE e.`workout_id` = `workouts`.`workout_id` AND e.`is_completed` = 0)");
+            
+            DatabaseTriggers.createV5(db);
+        }
+    };
+    
+    /**
+     * Version 5 -> 6: completion history with day/week/month rollups
+     * Workouts that are currently completed seed the history with their last update
+     * time; the rollup triggers fill in the buckets as the events are inserted.
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `workout_completions` (" +
+                       "`completion_id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                       "`workout_id` INTEGER NOT NULL, " +
+                       "`user_id` INTEGER NOT NULL, " +
+                       "`completed_at` INTEGER NOT NULL, " +
+                       "FOREIGN KEY(`user_id`) REFERENCES `users`(`user_id`) " +
+                       "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_workout_completions_user_id_completed_at` " +
+                       "ON `workout_completions` (`user_id`, `completed_at`)");
+            
+            db.execSQL("CREATE TABLE IF NOT EXISTS `completion_rollups` (" +
+                       "`user_id` INTEGER NOT NULL, " +
+                       "`period` TEXT NOT NULL, " +
+                       "`bucket_start` TEXT NOT NULL, " +
+                       "`completed_count` INTEGER NOT NULL, " +
+                       "PRIMARY KEY(`user_id`, `period`, `bucket_start`), " +
+                       "FOREIGN KEY(`user_id`) REFERENCES `users`(`user_id`) " +
+                       "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            
+            DatabaseTriggers.createV6(db);
+            
+            db.execSQL("INSERT INTO `workout_completions` (`workout_id`, `user_id`, `completed_at`) " +
+                       "SELECT `workout_id`, `user_id`, `updated_at` FROM `workouts` WHERE `is_completed` = 1");
+        }
+    };
+    
+    /**
+     * Version 6 -> 7: sparse exercise order keys
+     * Order indexes were list positions; they are spread out to OrderKeys.GAP apart so a
+     * moved exercise can take a key between its neighbours without renumbering the rest.
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            // Rank within the workout, computed before any row is changed
+            db.execSQL("CREATE TEMP TABLE `exercise_order` (" +
+                       "`exercise_id` INTEGER PRIMARY KEY NOT NULL, `position` INTEGER NOT NULL)");
+            db.execSQL("INSERT INTO `exercise_order` (`exercise_id`, `position`) " +
+                       "SELECT x.`exercise_id`, (SELECT COUNT(*) FROM `exercises` e " +
+                       "WHERE e.`workout_id` = x.`workout_id` AND (e.`order_index` < x.`order_index` " +
+                       "OR (e.`order_index` = x.`order_index` AND e.`exercise_id` <= x.`exercise_id`))) " +
+                       "FROM `exercises` x");
+            db.execSQL("UPDATE `exercises` SET `order_index` = " + OrderKeys.GAP + " * " +
+                       "(SELECT o.`position` FROM `exercise_order` o " +
+                       "WHERE o.`exercise_id` = `exercises`.`exercise_id`)");
+            db.execSQL("DROP TABLE `exercise_order`");
+        }
+    };
+    
+    /**
+     * Version 7 -> 8: workout content hashes, used to skip workouts that are imported again
+     * Existing workouts are hashed in one pass over a joined cursor; the index is created
+     * afterwards so the backfill does not maintain it row by row.
+     */
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `workouts` ADD COLUMN `content_hash` TEXT");
+            
+            try (Cursor cursor = db.query("SELECT w.`workout_id`, w.`workout_name`, w.`description`, " +
+                    "w.`created_at`, x.`exercise_id`, x.`exercise_name`, x.`sets`, x.`reps`, " +
+                    "x.`instructions`, q.`equipment_name` FROM `workouts` w " +
+                    "LEFT JOIN `exercises` x ON x.`workout_id` = w.`workout_id` " +
+                    "LEFT JOIN `equipment` q ON q.`exercise_id` = x.`exercise_id` " +
+                    "ORDER BY w.`workout_id`, x.`exercise_id`")) {
+                int workoutId = 0;
+                int exerciseId = 0;
+                ContentHash hash = null;
+                while (cursor.moveToNext()) {
+                    if (cursor.getInt(0) != workoutId) {
+                        if (hash != null) {
+                            storeContentHash(db, workoutId, hash);
+                        }
+                        workoutId = cursor.getInt(0);
+                        exerciseId = 0;
+                        hash = new ContentHash(cursor.getString(1), cursor.getString(2), cursor.getLong(3));
+                    }
+                    if (cursor.isNull(4)) continue;
+                    if (cursor.getInt(4) != exerciseId) {
+                        exerciseId = cursor.getInt(4);
+                        hash.addExercise(cursor.getString(5), cursor.getInt(6), cursor.getInt(7),
+                            cursor.getString(8));
+                    }
+                    if (!cursor.isNull(9)) {
+                        hash.addEquipment(cursor.getString(9));
+                    }
+                }
+                if (hash != null) {
+                    storeContentHash(db, workoutId, hash);
+                }
+            }
+            
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_workouts_user_id_content_hash` " +
+                       "ON `workouts` (`user_id`, `content_hash`)");
+        }
+    };
+    
+    /**
+     * Version 8 -> 9: bitmask of the image renditions saved next to each workout image
+     * Images saved before have none recorded and keep loading from the original.
+     */
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `workouts` ADD COLUMN `image_renditions` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+    
+    /**
+     * Version 9 -> 10: reference-counted image files, shared by workouts using the same photo
+     * Existing images are counted once from the workouts; their old file names carry no
+     * content hash, so they are not deduplicated against new saves.
+     */
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `images` (" +
+                       "`path` TEXT NOT NULL, " +
+                       "`content_hash` TEXT, " +
+                       "`ref_count` INTEGER NOT NULL, " +
+                       "PRIMARY KEY(`path`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_images_content_hash` " +
+                       "ON `images` (`content_hash`)");
+            
+            DatabaseTriggers.rebuildImageRefs(db);
+            DatabaseTriggers.create(db);
+        }
+    };
+    
+    /**
+     * Creates objects Room does not manage on a fresh install
+     * Existing databases get them from the migrations.
+     */
+    static final Callback CALLBACK = new Callback() {
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            DatabaseTriggers.create(db);
+        }
+    };
+    
+    private static void storeContentHash(SupportSQLiteDatabase db, int workoutId, ContentHash hash) {
+        db.execSQL("UPDATE `workouts` SET `content_hash` = ? WHERE `workout_id` = ?",
+            new Object[]{hash.build(), workoutId});
+    }
+    
+    /**
+     * Create the triggers Room uses to keep an external content FTS table in sync
+     */
+    private static void createFtsSyncTriggers(SupportSQLiteDatabase db, String ftsTable,
+                                              String contentTable, String... columns) {
+        StringBuilder names = new StringBuilder("`docid`");
+        StringBuilder values = new StringBuilder("NEW.`rowid`");
+        for (String column : columns) {
+            names.append(", `").append(column).append("`");
+            values.append(", NEW.`").append(column).append("`");
+        }
+        String prefix = "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_" + ftsTable + "_";
+        String delete = "BEGIN DELETE FROM `" + ftsTable + "` WHERE `docid`=OLD.`rowid`; END";
+        String insert = "BEGIN INSERT INTO `" + ftsTable + "`(" + names + ") VALUES (" + values + "); END";
+        
+        db.execSQL(prefix + "BEFORE_UPDATE BEFORE UPDATE ON `" + contentTable + "` " + delete);
+        db.execSQL(prefix + "BEFORE_DELETE BEFORE DELETE ON `" + contentTable + "` " + delete);
+        db.execSQL(prefix + "AFTER_UPDATE AFTER UPDATE ON `" + contentTable + "` " + insert);
+        db.execSQL(prefix + "AFTER_INSERT AFTER INSERT ON `" + contentTable + "` " + insert);
+    }
+    
     // Abstract methods to get DAOs
     public abstract UserDao userDao();
     public abstract WorkoutDao workoutDao();
     public abstract ExerciseDao exerciseDao();
     public abstract EquipmentDao equipmentDao();
+    public abstract SearchDao searchDao();
+    public abstract CompletionDao completionDao();
+    public abstract BackupDao backupDao();
+    public abstract ImageDao imageDao();
     
     /**
      * Get singleton instance of the database
@@ -50,7 +341,12 @@ public abstract class AppDatabase extends RoomDatabase {
                 AppDatabase.class,
                 Constants.DATABASE_NAME
             )
-            .fallbackToDestructiveMigration() // For development - recreate DB on schema changes
+            .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5,
+                MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10)
+            .addCallback(CALLBACK)
+            // LiveData queries share the app's disk IO pool instead of Room's own; the
+            // long backup jobs run on bulkIO, so they cannot hold its threads
+            .setQueryExecutor(AppExecutors.getInstance().diskIO())
             .build();
         }
         return instance;
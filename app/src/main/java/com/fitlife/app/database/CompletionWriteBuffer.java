@@ -0,0 +1,397 @@
+package com.fitlife.app.database;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import com.fitlife.app.database.dao.ExerciseDao;
+import com.fitlife.app.database.dao.WorkoutDao;
+import com.fitlife.app.utils.AppExecutors;
+import com.fitlife.app.utils.Constants;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Write-behind buffer for exercise and workout completion toggles
+ * Toggles are kept in memory, so screens can show them right away, and written in one
+ * transaction once toggling pauses (or when a screen is paused). Repeated toggles of the
+ * same row only write the last state, and rows are written in the order they were last
+ * toggled, so a workout toggle followed by one of its exercises leaves the workout state
+ * the completion triggers derive. Every toggle is appended to a journal file, which is
+ * replayed in the background on the next start, so a process crash before the flush
+ * loses nothing. All journal file IO runs on one writer thread in the order toggles were
+ * recorded; a tap only queues its line and never waits for the disk or for a flush.
+ */
+public class CompletionWriteBuffer {
+
+    private static final long FLUSH_DELAY_MS = 500;
+    // Keep postponing the flush while the user toggles, but not for longer than this
+    private static final long MAX_FLUSH_DELAY_MS = 2000;
+
+    private static final String TYPE_EXERCISE = "E";
+    private static final String TYPE_WORKOUT = "W";
+
+    private static CompletionWriteBuffer instance;
+
+    private final AppDatabase database;
+    private final ExerciseDao exerciseDao;
+    private final WorkoutDao workoutDao;
+    private final File journal;
+    private final Executor executor = AppExecutors.getInstance().diskIO();
+    private final Executor journalExecutor = AppExecutors.getInstance().journalIO();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+    // Released once the journal of the previous process has been loaded
+    private final CountDownLatch replayed = new CountDownLatch(1);
+
+    // Guarded by lock; keyed by type and ID, in the order rows were last toggled
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, Toggle> pending = new LinkedHashMap<>();
+
+    // Only touched on the journal thread; kept open for appending, null until the first
+    // toggle or after a rewrite
+    private Writer journalWriter;
+
+    // Only touched on the main thread
+    private long firstPendingAt;
+
+    private CompletionWriteBuffer(Context context) {
+        this(AppDatabase.getInstance(context),
+            new File(context.getFilesDir(), Constants.COMPLETION_JOURNAL_FILE));
+    }
+
+    CompletionWriteBuffer(AppDatabase database, File journal) {
+        this.database = database;
+        exerciseDao = database.exerciseDao();
+        workoutDao = database.workoutDao();
+        this.journal = journal;
+
+        // Toggles that were journaled before the process died. Read on the journal thread,
+        // behind any append still queued, but written from the disk IO pool: flushBlocking
+        // waits for the journal thread.
+        journalExecutor.execute(() -> {
+            boolean loaded = replayJournal();
+            replayed.countDown();
+            if (loaded) {
+                executor.execute(this::flushBlocking);
+            }
+        });
+    }
+
+    /**
+     * Get the singleton instance
+     * @param context Any context
+     * @return CompletionWriteBuffer instance
+     */
+    public static synchronized CompletionWriteBuffer getInstance(Context context) {
+        if (instance == null) {
+            instance = new CompletionWriteBuffer(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Record an exercise completion toggle
+     * Must be called on the main thread.
+     * @param exerciseId Exercise ID
+     * @param isCompleted New completion state
+     */
+    public void setExerciseCompleted(int exerciseId, boolean isCompleted) {
+        record(new Toggle(TYPE_EXERCISE, exerciseId, isCompleted, 0));
+    }
+
+    /**
+     * Record a workout completion toggle
+     * Must be called on the main thread.
+     * @param workoutId Workout ID
+     * @param isCompleted New completion state
+     */
+    public void setWorkoutCompleted(int workoutId, boolean isCompleted) {
+        record(new Toggle(TYPE_WORKOUT, workoutId, isCompleted, System.currentTimeMillis()));
+    }
+
+    /**
+     * Get the not yet written completion state of an exercise
+     * @param exerciseId Exercise ID
+     * @return Pending state, or null if the database is up to date
+     */
+    @Nullable
+    public Boolean getPendingExerciseCompletion(int exerciseId) {
+        return getPending(TYPE_EXERCISE, exerciseId);
+    }
+
+    /**
+     * Get the not yet written completion state of a workout
+     * @param workoutId Workout ID
+     * @return Pending state, or null if the database is up to date
+     */
+    @Nullable
+    public Boolean getPendingWorkoutCompletion(int workoutId) {
+        return getPending(TYPE_WORKOUT, workoutId);
+    }
+
+    /**
+     * Write pending toggles in the background now
+     */
+    public void flush() {
+        handler.removeCallbacks(flushRunnable);
+        firstPendingAt = 0;
+        executor.execute(this::flushBlocking);
+    }
+
+    /**
+     * Write pending toggles on the calling (background) thread
+     * Call before reading or overwriting completion state outside of this buffer,
+     * so the write order matches the order of the user's actions. Waits for the
+     * journal of the previous process to be loaded first, and on return the journal no
+     * longer holds the written toggles, so they cannot be replayed over later changes.
+     */
+    public synchronized void flushBlocking() {
+        awaitReplay();
+        final List<Toggle> toggles;
+        synchronized (lock) {
+            if (pending.isEmpty()) return;
+            toggles = new ArrayList<>(pending.values());
+        }
+
+        try {
+            database.runInTransaction(() -> {
+                for (Toggle toggle : toggles) {
+                    if (TYPE_EXERCISE.equals(toggle.type)) {
+                        exerciseDao.updateCompletionStatus(toggle.id, toggle.completed);
+                    } else {
+                        workoutDao.updateCompletionStatus(toggle.id, toggle.completed, toggle.timestamp);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            // Everything stays pending and journaled; the next flush retries
+            e.printStackTrace();
+            return;
+        }
+
+        synchronized (lock) {
+            // Rows toggled again while writing stay pending
+            for (Toggle toggle : toggles) {
+                pending.remove(toggle.key(), toggle);
+            }
+            List<Toggle> remaining = new ArrayList<>(pending.values());
+            journalExecutor.execute(() -> rewriteJournal(remaining));
+        }
+        // Outside the lock, so toggles made meanwhile are recorded without waiting
+        awaitJournal();
+    }
+
+    /**
+     * Wait until the journal holds every toggle recorded so far
+     * Call on a background thread.
+     */
+    void awaitJournal() {
+        FutureTask<Void> marker = new FutureTask<>(() -> { }, null);
+        journalExecutor.execute(marker);
+        try {
+            marker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void record(Toggle toggle) {
+        synchronized (lock) {
+            String key = toggle.key();
+            pending.remove(key);
+            pending.put(key, toggle);
+            // Queued under the lock, so appends and rewrites reach the file in the same
+            // order as the changes to pending
+            journalExecutor.execute(() -> appendToJournal(toggle));
+        }
+        scheduleFlush();
+    }
+
+    @Nullable
+    private Boolean getPending(String type, int id) {
+        synchronized (lock) {
+            Toggle toggle = pending.get(type + id);
+            return toggle != null ? toggle.completed : null;
+        }
+    }
+
+    private void scheduleFlush() {
+        long now = SystemClock.uptimeMillis();
+        if (firstPendingAt == 0) {
+            firstPendingAt = now;
+        }
+        handler.removeCallbacks(flushRunnable);
+        if (now - firstPendingAt >= MAX_FLUSH_DELAY_MS) {
+            flush();
+        } else {
+            handler.postDelayed(flushRunnable, FLUSH_DELAY_MS);
+        }
+    }
+
+    private void awaitReplay() {
+        try {
+            replayed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Append one toggle (journal thread); the journal is only read back after a crash
+     * The writer stays open, so a tap costs one small write that reaches the OS right
+     * after it is queued. That survives the process being killed (not a power loss,
+     * which would need an fsync per tap).
+     */
+    private void appendToJournal(Toggle toggle) {
+        try {
+            if (journalWriter == null) {
+                journalWriter = new OutputStreamWriter(new FileOutputStream(journal, true),
+                    StandardCharsets.UTF_8);
+            }
+            journalWriter.write(toggle.toJournalLine());
+            journalWriter.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+            closeJournalWriter();
+        }
+    }
+
+    private void closeJournalWriter() {
+        if (journalWriter == null) return;
+        try {
+            journalWriter.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        journalWriter = null;
+    }
+
+    /**
+     * Replace the journal with the toggles that are still pending (journal thread)
+     * The open writer still points at the replaced file, so it is reopened on the next
+     * toggle. Toggles recorded after the snapshot are queued behind this rewrite.
+     */
+    private void rewriteJournal(List<Toggle> remaining) {
+        closeJournalWriter();
+        if (remaining.isEmpty()) {
+            journal.delete();
+            return;
+        }
+
+        File temp = new File(journal.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8)) {
+            for (Toggle toggle : remaining) {
+                writer.write(toggle.toJournalLine());
+            }
+        } catch (IOException e) {
+            // The old journal still holds a superset of what is pending
+            e.printStackTrace();
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(journal)) {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Load journaled toggles ahead of the pending ones; later lines win
+     * Toggles made since this process started are newer than any journaled one, so
+     * they keep their state and stay last.
+     * @return true if anything was loaded
+     */
+    private boolean replayJournal() {
+        if (!journal.exists()) return false;
+
+        LinkedHashMap<String, Toggle> journaled = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(journal), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Toggle toggle = Toggle.parse(line);
+                // A line cut short by the crash was never acknowledged
+                if (toggle == null) continue;
+                journaled.remove(toggle.key());
+                journaled.put(toggle.key(), toggle);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        synchronized (lock) {
+            if (journaled.isEmpty()) return false;
+            for (Toggle toggle : pending.values()) {
+                journaled.remove(toggle.key());
+                journaled.put(toggle.key(), toggle);
+            }
+            pending.clear();
+            pending.putAll(journaled);
+            return true;
+        }
+    }
+
+    /**
+     * Pending state of one row, with the time of the toggle for workouts
+     * Compared by identity, so a newer toggle with the same state is written too.
+     */
+    private static class Toggle {
+        final String type;
+        final int id;
+        final boolean completed;
+        final long timestamp;
+
+        Toggle(String type, int id, boolean completed, long timestamp) {
+            this.type = type;
+            this.id = id;
+            this.completed = completed;
+            this.timestamp = timestamp;
+        }
+
+        String key() {
+            return type + id;
+        }
+
+        String toJournalLine() {
+            String line = type + " " + id + " " + (completed ? 1 : 0);
+            return TYPE_WORKOUT.equals(type) ? line + " " + timestamp + "\n" : line + "\n";
+        }
+
+        @Nullable
+        static Toggle parse(String line) {
+            String[] parts = line.split(" ");
+            try {
+                if (TYPE_EXERCISE.equals(parts[0]) && parts.length == 3) {
+                    return new Toggle(TYPE_EXERCISE, Integer.parseInt(parts[1]), "1".equals(parts[2]), 0);
+                }
+                if (TYPE_WORKOUT.equals(parts[0]) && parts.length == 4) {
+                    return new Toggle(TYPE_WORKOUT, Integer.parseInt(parts[1]), "1".equals(parts[2]),
+                        Long.parseLong(parts[3]));
+                }
+            } catch (NumberFormatException e) {
+                // Malformed
+            }
+            return null;
+        }
+    }
+}
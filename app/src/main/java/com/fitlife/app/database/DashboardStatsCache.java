@@ -0,0 +1,127 @@
+package com.fitlife.app.database;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import com.fitlife.app.database.dao.WorkoutDao;
+import com.fitlife.app.models.DashboardStats;
+import com.fitlife.app.utils.AppExecutors;
+import com.fitlife.app.utils.CompletionPeriods;
+
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Process-wide cache for the dashboard statistics
+ * Shared by HomeActivity and ProfileActivity. The cached value is only dropped
+ * when Room reports a write to one of the tables the statistics depend on.
+ */
+public class DashboardStatsCache {
+
+    /**
+     * Callback delivered on the main thread
+     */
+    public interface OnStatsLoadedListener {
+        void onStatsLoaded(DashboardStats stats);
+    }
+
+    private static DashboardStatsCache instance;
+
+    private final AppDatabase database;
+    private final WorkoutDao workoutDao;
+    private final Executor executor = AppExecutors.getInstance().diskIO();
+    private final Executor mainThread = AppExecutors.getInstance().mainThread();
+
+    // Guarded by "this"
+    private DashboardStats cachedStats;
+    private int cachedUserId = -1;
+    private String cachedWeekKey;
+    private int version;
+
+    private DashboardStatsCache(AppDatabase database) {
+        this.database = database;
+        this.workoutDao = database.workoutDao();
+
+        database.getInvalidationTracker().addObserver(
+            new InvalidationTracker.Observer("workouts", "exercises", "equipment", "completion_rollups") {
+                @Override
+                public void onInvalidated(@NonNull Set<String> tables) {
+                    invalidate();
+                }
+            });
+    }
+
+    /**
+     * Get the singleton cache bound to the current database instance
+     * @param context Application context
+     * @return DashboardStatsCache instance
+     */
+    public static synchronized DashboardStatsCache getInstance(Context context) {
+        AppDatabase database = AppDatabase.getInstance(context);
+        if (instance == null || instance.database != database) {
+            instance = new DashboardStatsCache(database);
+        }
+        return instance;
+    }
+
+    /**
+     * Get statistics for a user, querying the database only on a cache miss
+     * @param userId User ID
+     * @param listener Callback, invoked on the main thread
+     */
+    public void getStats(int userId, OnStatsLoadedListener listener) {
+        String weekKey = CompletionPeriods.weekKey(System.currentTimeMillis());
+
+        DashboardStats cached = peek(userId, weekKey);
+        if (cached != null) {
+            listener.onStatsLoaded(cached);
+            return;
+        }
+
+        executor.execute(() -> {
+            DashboardStats stats = load(userId, weekKey);
+            mainThread.execute(() -> listener.onStatsLoaded(stats));
+        });
+    }
+
+    /**
+     * Drop the cached statistics so the next read goes to the database
+     */
+    public synchronized void invalidate() {
+        version++;
+        cachedStats = null;
+    }
+
+    private synchronized DashboardStats peek(int userId, String weekKey) {
+        if (cachedStats != null && cachedUserId == userId && weekKey.equals(cachedWeekKey)) {
+            return cachedStats;
+        }
+        return null;
+    }
+
+    private DashboardStats load(int userId, String weekKey) {
+        int loadVersion;
+        synchronized (this) {
+            // An earlier queued request may already have filled the cache
+            DashboardStats cached = peek(userId, weekKey);
+            if (cached != null) {
+                return cached;
+            }
+            loadVersion = version;
+        }
+
+        DashboardStats stats = workoutDao.getDashboardStats(userId, weekKey);
+
+        synchronized (this) {
+            // Only keep the result if no write happened while we were reading
+            if (loadVersion == version) {
+                cachedStats = stats;
+                cachedUserId = userId;
+                cachedWeekKey = weekKey;
+            }
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,241 @@
+package com.fitlife.app.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.fitlife.app.database.entities.CompletionRollup;
+
+/**
+ * SQLite triggers that keep derived columns consistent inside the writing statement
+ * Room does not know about these, so they are created for new databases by the open
+ * callback and for existing ones by a migration. A migration must create the trigger set
+ * of its own version (createV5, createV6, ...), never the current one: later triggers
+ * refer to tables that do not exist yet at that point. A pinned set must not change
+ * once released; later versions replace triggers in their own migration.
+ */
+public final class DatabaseTriggers {
+
+    // Current time in epoch millis, matching System.currentTimeMillis()
+    private static final String NOW_MILLIS =
+        "CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)";
+
+    private static final String[] NAMES = {
+        "exercises_completion_after_insert",
+        "exercises_completion_after_update",
+        "exercises_completion_after_delete",
+        "workouts_history_after_insert",
+        "workouts_history_after_update",
+        "workouts_history_after_complete",
+        "workout_completions_rollup_after_insert",
+        "workout_completions_rollup_after_delete",
+        "workouts_image_after_insert",
+        "workouts_image_after_update",
+        "workouts_image_after_delete"
+    };
+    
+    // Completion event of the NEW workout row
+    private static final String RECORD_COMPLETION = "INSERT INTO `workout_completions` " +
+        "(`workout_id`, `user_id`, `completed_at`) " +
+        "VALUES (NEW.`workout_id`, NEW.`user_id`, NEW.`updated_at`);";
+    
+    // Rollup periods and the SQLite date modifiers giving a bucket's first local date
+    private static final String[][] ROLLUP_BUCKETS = {
+        {CompletionRollup.PERIOD_DAY, ""},
+        {CompletionRollup.PERIOD_WEEK, ", 'weekday 0', '-6 days'"},
+        {CompletionRollup.PERIOD_MONTH, ", 'start of month'"}
+    };
+
+    private DatabaseTriggers() {
+    }
+
+    /**
+     * Create all triggers of the current version (idempotent)
+     * Only for new databases and the latest migration.
+     * @param db Database
+     */
+    public static void create(SupportSQLiteDatabase db) {
+        createV6(db);
+        
+        // Unticking and ticking a workout again on the same local day is one completion,
+        // not one per tick. Resets keep their events, so history survives them. The two-day
+        // range (a local day can be 25 hours) keeps the lookup on the (user_id, completed_at) index.
+        db.execSQL("DROP TRIGGER IF EXISTS `workouts_history_after_update`");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `workouts_history_after_complete` " +
+                   "AFTER UPDATE OF `is_completed` ON `workouts` " +
+                   "WHEN OLD.`is_completed` = 0 AND NEW.`is_completed` = 1 AND NOT EXISTS (" +
+                   "SELECT 1 FROM `workout_completions` WHERE `user_id` = NEW.`user_id` " +
+                   "AND `completed_at` BETWEEN NEW.`updated_at` - 172800000 " +
+                   "AND NEW.`updated_at` + 172800000 " +
+                   "AND `workout_id` = NEW.`workout_id` " +
+                   "AND date(`completed_at` / 1000, 'unixepoch', 'localtime') = " +
+                   "date(NEW.`updated_at` / 1000, 'unixepoch', 'localtime')) BEGIN " +
+                   RECORD_COMPLETION + " END");
+        
+        // Count the workouts using each image file. Rows are left at 0 rather than
+        // deleted: ImageStore removes a row together with its file.
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `workouts_image_after_insert` " +
+                   "AFTER INSERT ON `workouts` WHEN NEW.`image_path` IS NOT NULL BEGIN " +
+                   addImageRef("NEW") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `workouts_image_after_update` " +
+                   "AFTER UPDATE OF `image_path` ON `workouts` " +
+                   "WHEN OLD.`image_path` IS NOT NEW.`image_path` BEGIN " +
+                   addImageRef("NEW") + " " + removeImageRef("OLD") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `workouts_image_after_delete` " +
+                   "AFTER DELETE ON `workouts` WHEN OLD.`image_path` IS NOT NULL BEGIN " +
+                   removeImageRef("OLD") + " END");
+    }
+
+    /**
+     * Triggers of version 5: workout completion follows the exercises
+     * @param db Database
+     */
+    static void createV5(SupportSQLiteDatabase db) {
+        // A workout is complete when it has exercises and all of them are complete.
+        // updated_at only moves when the flag actually changes.
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `exercises_completion_after_insert` " +
+                   "AFTER INSERT ON `exercises` BEGIN " +
+                   syncWorkoutCompletion("NEW") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `exercises_completion_after_update` " +
+                   "AFTER UPDATE OF `is_completed`, `workout_id` ON `exercises` " +
+                   "WHEN OLD.`is_completed` IS NOT NEW.`is_completed` " +
+                   "OR OLD.`workout_id` IS NOT NEW.`workout_id` BEGIN " +
+                   syncWorkoutCompletion("NEW") + " " +
+                   syncWorkoutCompletion("OLD") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `exercises_completion_after_delete` " +
+                   "AFTER DELETE ON `exercises` BEGIN " +
+                   syncWorkoutCompletion("OLD") + " END");
+    }
+
+    /**
+     * Triggers of version 6: version 5 plus the completion history and its rollups
+     * @param db Database
+     */
+    static void createV6(SupportSQLiteDatabase db) {
+        createV5(db);
+        
+        // Every time a workout becomes completed, record an event
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `workouts_history_after_insert` " +
+                   "AFTER INSERT ON `workouts` WHEN NEW.`is_completed` = 1 BEGIN " +
+                   RECORD_COMPLETION + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `workouts_history_after_update` " +
+                   "AFTER UPDATE OF `is_completed` ON `workouts` " +
+                   "WHEN OLD.`is_completed` = 0 AND NEW.`is_completed` = 1 BEGIN " +
+                   RECORD_COMPLETION + " END");
+        
+        // Each event bumps its day, week and month bucket
+        StringBuilder increment = new StringBuilder();
+        StringBuilder decrement = new StringBuilder();
+        for (String[] bucket : ROLLUP_BUCKETS) {
+            String keyNew = bucketKey("NEW", bucket[1]);
+            String keyOld = bucketKey("OLD", bucket[1]);
+            // No UPSERT before SQLite 3.24 (API 30)
+            increment.append("INSERT OR IGNORE INTO `completion_rollups` ")
+                .append("(`user_id`, `period`, `bucket_start`, `completed_count`) ")
+                .append("VALUES (NEW.`user_id`, '").append(bucket[0]).append("', ")
+                .append(keyNew).append(", 0); ")
+                .append("UPDATE `completion_rollups` SET `completed_count` = `completed_count` + 1 ")
+                .append(bucketWhere("NEW", bucket[0], keyNew)).append("; ");
+            decrement.append("UPDATE `completion_rollups` SET `completed_count` = `completed_count` - 1 ")
+                .append(bucketWhere("OLD", bucket[0], keyOld)).append("; ")
+                .append("DELETE FROM `completion_rollups` ")
+                .append(bucketWhere("OLD", bucket[0], keyOld))
+                .append(" AND `completed_count` <= 0; ");
+        }
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `workout_completions_rollup_after_insert` " +
+                   "AFTER INSERT ON `workout_completions` BEGIN " + increment + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `workout_completions_rollup_after_delete` " +
+                   "AFTER DELETE ON `workout_completions` BEGIN " + decrement + "END");
+    }
+
+    /**
+     * Drop all triggers, e.g. around bulk writes that fix up derived columns themselves
+     * @param db Database
+     */
+    public static void drop(SupportSQLiteDatabase db) {
+        for (String name : NAMES) {
+            db.execSQL("DROP TRIGGER IF EXISTS `" + name + "`");
+        }
+    }
+
+    /**
+     * Recompute all completion rollups from the completion history
+     * For bulk writes of history made while the triggers are dropped.
+     * @param db Database
+     */
+    public static void rebuildRollups(SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM `completion_rollups`");
+        for (String[] bucket : ROLLUP_BUCKETS) {
+            String key = "date(`completed_at` / 1000, 'unixepoch', 'localtime'" + bucket[1] + ")";
+            db.execSQL("INSERT INTO `completion_rollups` " +
+                       "(`user_id`, `period`, `bucket_start`, `completed_count`) " +
+                       "SELECT `user_id`, '" + bucket[0] + "', " + key + ", COUNT(*) " +
+                       "FROM `workout_completions` GROUP BY `user_id`, " + key);
+        }
+    }
+
+    /**
+     * Recompute all image reference counts from the workouts
+     * For bulk writes of workouts made while the triggers are dropped.
+     * @param db Database
+     */
+    public static void rebuildImageRefs(SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM `images`");
+        db.execSQL("INSERT INTO `images` (`path`, `content_hash`, `ref_count`) " +
+                   "SELECT `image_path`, " + imageHash("`image_path`") + ", COUNT(*) " +
+                   "FROM `workouts` WHERE `image_path` IS NOT NULL GROUP BY `image_path`");
+    }
+    
+    /**
+     * Local bucket key (yyyy-MM-dd) of the OLD or NEW completion event
+     */
+    private static String bucketKey(String row, String modifiers) {
+        return "date(" + row + ".`completed_at` / 1000, 'unixepoch', 'localtime'" + modifiers + ")";
+    }
+    
+    private static String bucketWhere(String row, String period, String key) {
+        return "WHERE `user_id` = " + row + ".`user_id` AND `period` = '" + period + "' " +
+               "AND `bucket_start` = " + key;
+    }
+    
+    /**
+     * Statements counting one more reference to the image of the OLD or NEW workout
+     */
+    private static String addImageRef(String row) {
+        String path = row + ".`image_path`";
+        return "INSERT OR IGNORE INTO `images` (`path`, `content_hash`, `ref_count`) " +
+               "SELECT " + path + ", " + imageHash(path) + ", 0 WHERE " + path + " IS NOT NULL; " +
+               "UPDATE `images` SET `ref_count` = `ref_count` + 1 WHERE `path` = " + path + ";";
+    }
+    
+    private static String removeImageRef(String row) {
+        return "UPDATE `images` SET `ref_count` = `ref_count` - 1 " +
+               "WHERE `path` = " + row + ".`image_path`;";
+    }
+    
+    /**
+     * Expression giving the SHA-256 hex encoded in a {@code <hash>.jpg} image path, or
+     * NULL for images saved before files were named by content
+     */
+    private static String imageHash(String path) {
+        StringBuilder pattern = new StringBuilder("*/");
+        for (int i = 0; i < 64; i++) {
+            pattern.append("[0-9a-f]");
+        }
+        pattern.append(".jpg");
+        return "CASE WHEN " + path + " GLOB '" + pattern + "' " +
+               "THEN substr(" + path + ", -68, 64) END";
+    }
+    
+    /**
+     * UPDATE statement recomputing is_completed for the workout of the OLD or NEW row
+     */
+    private static String syncWorkoutCompletion(String row) {
+        String workoutId = row + ".`workout_id`";
+        String completed = "(EXISTS (SELECT 1 FROM `exercises` WHERE `workout_id` = " + workoutId + ") " +
+                           "AND NOT EXISTS (SELECT 1 FROM `exercises` WHERE `workout_id` = " + workoutId +
+                           " AND `is_completed` = 0))";
+        return "UPDATE `workouts` SET `is_completed` = " + completed + ", " +
+               "`updated_at` = " + NOW_MILLIS + " " +
+               "WHERE `workout_id` = " + workoutId + " " +
+               "AND `is_completed` IS NOT " + completed + ";";
+    }
+}
@@ -0,0 +1,114 @@
+package com.fitlife.app.database;
+
+import com.fitlife.app.database.entities.Exercise;
+import com.fitlife.app.utils.OrderKeys;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Difference between a snapshot of a workout's exercises and the edited list
+ * Only rows that were added, removed or actually changed end up in the result.
+ */
+public class ExerciseDiff {
+
+    public final List<Exercise> inserts = new ArrayList<>();
+    public final List<Exercise> updates = new ArrayList<>();
+    public final List<Exercise> deletes = new ArrayList<>();
+
+    private ExerciseDiff() {
+    }
+
+    /**
+     * Compute the changes needed to turn the original list into the edited one
+     * Edited exercises are assigned the workout ID and an order key that fits their list
+     * position; see {@link #assignOrder(List)}.
+     * @param original Snapshot taken when the workout was loaded (must not share instances with edited)
+     * @param edited Exercises in their new order
+     * @param workoutId Workout the exercises belong to
+     * @return The diff
+     */
+    public static ExerciseDiff compute(List<Exercise> original, List<Exercise> edited, int workoutId) {
+        ExerciseDiff diff = new ExerciseDiff();
+
+        Map<Integer, Exercise> originalById = new HashMap<>();
+        for (Exercise exercise : original) {
+            originalById.put(exercise.getExerciseId(), exercise);
+        }
+
+        assignOrder(edited);
+
+        Set<Integer> keptIds = new HashSet<>();
+        for (int i = 0; i < edited.size(); i++) {
+            Exercise exercise = edited.get(i);
+            exercise.setWorkoutId(workoutId);
+
+            if (exercise.getExerciseId() == 0) {
+                diff.inserts.add(exercise);
+                continue;
+            }
+
+            keptIds.add(exercise.getExerciseId());
+            Exercise before = originalById.get(exercise.getExerciseId());
+            if (before == null || !sameContent(before, exercise)) {
+                diff.updates.add(exercise);
+            }
+        }
+
+        for (Exercise exercise : original) {
+            if (!keptIds.contains(exercise.getExerciseId())) {
+                diff.deletes.add(exercise);
+            }
+        }
+
+        return diff;
+    }
+
+    /**
+     * Give the exercises order keys that increase along the list
+     * Exercises that are still in order keep their key, so moving one exercise changes
+     * one key; new exercises (without an ID) always get one.
+     * @param exercises Exercises in their new order; keys are updated in place
+     * @return Existing exercises whose key changed
+     */
+    public static List<Exercise> assignOrder(List<Exercise> exercises) {
+        long[] current = new long[exercises.size()];
+        for (int i = 0; i < current.length; i++) {
+            Exercise exercise = exercises.get(i);
+            current[i] = exercise.getExerciseId() == 0 ? OrderKeys.NONE : exercise.getOrderIndex();
+        }
+
+        int[] keys = OrderKeys.assign(current);
+        List<Exercise> changed = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            Exercise exercise = exercises.get(i);
+            if (exercise.getExerciseId() != 0 && exercise.getOrderIndex() != keys[i]) {
+                changed.add(exercise);
+            }
+            exercise.setOrderIndex(keys[i]);
+        }
+        return changed;
+    }
+
+    /**
+     * Check if there is nothing to write
+     */
+    public boolean isEmpty() {
+        return inserts.isEmpty() && updates.isEmpty() && deletes.isEmpty();
+    }
+
+    private static boolean sameContent(Exercise a, Exercise b) {
+        return a.getWorkoutId() == b.getWorkoutId()
+            && a.getExerciseName().equals(b.getExerciseName())
+            && a.getSets() == b.getSets()
+            && a.getReps() == b.getReps()
+            && Objects.equals(a.getInstructions(), b.getInstructions())
+            && a.isCompleted() == b.isCompleted()
+            && a.getOrderIndex() == b.getOrderIndex();
+    }
+}
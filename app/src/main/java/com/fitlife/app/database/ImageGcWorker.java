@@ -0,0 +1,168 @@
+package com.fitlife.app.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.fitlife.app.database.dao.ImageDao;
+import com.fitlife.app.utils.Constants;
+import com.fitlife.app.utils.ImageRenditions;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic sweep deleting workout image files that no workout refers to
+ * ImageStore deletes an image when its workout is edited or deleted, but files outlive
+ * their workouts when a user is deleted (the cascade bypasses the app), when a release
+ * falls within the grace period, or when the process dies in between. The sweep streams
+ * the image directory, keeps every file whose original is referenced and deletes the
+ * rest in batches once they are older than the grace period.
+ */
+public class ImageGcWorker extends Worker {
+
+    public static final String KEY_BYTES_RECLAIMED = "bytes_reclaimed";
+
+    private static final String TAG = "ImageGcWorker";
+    private static final String WORK_NAME = "image_gc";
+    private static final long INTERVAL_HOURS = 24;
+    private static final int BATCH_SIZE = 64;
+
+    private final ImageStore imageStore;
+    private final ImageDao imageDao;
+
+    // Names of referenced originals in the image directory
+    private final Set<String> referenced = new HashSet<>();
+    private final List<File> batch = new ArrayList<>(BATCH_SIZE);
+    private long cutoff;
+    private long bytesReclaimed;
+
+    public ImageGcWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+        imageStore = ImageStore.getInstance(context);
+        imageDao = AppDatabase.getInstance(context).imageDao();
+    }
+
+    /**
+     * Schedule the daily sweep unless it is already scheduled
+     * @param context Any context
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+            .setRequiresBatteryNotLow(true)
+            .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                ImageGcWorker.class, INTERVAL_HOURS, TimeUnit.HOURS)
+            .setConstraints(constraints)
+            .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+            WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        File directory = new File(getApplicationContext().getFilesDir(), Constants.IMAGE_DIRECTORY);
+        if (!directory.isDirectory()) {
+            return Result.success(output());
+        }
+        // Files saved after this may belong to a workout that is not inserted yet
+        cutoff = System.currentTimeMillis() - Constants.IMAGE_GRACE_PERIOD_MS;
+        readReferencedNames();
+
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                sweepStreamed(directory);
+            } else {
+                sweepListed(directory);
+            }
+            flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Result.retry();
+        }
+
+        Log.i(TAG, bytesReclaimed + " bytes of unreferenced images reclaimed");
+        return Result.success(output());
+    }
+
+    private void readReferencedNames() {
+        try (Cursor cursor = imageDao.getReferencedPaths()) {
+            while (cursor.moveToNext()) {
+                referenced.add(new File(cursor.getString(0)).getName());
+            }
+        }
+    }
+
+    @RequiresApi(Build.VERSION_CODES.O)
+    private void sweepStreamed(File directory) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath())) {
+            for (Path path : stream) {
+                if (!visit(path.toFile())) break;
+            }
+        }
+    }
+
+    /**
+     * No streaming directory API before Android 8, so the names are listed at once
+     */
+    private void sweepListed(File directory) throws IOException {
+        String[] names = directory.list();
+        if (names == null) {
+            throw new IOException("Cannot list " + directory);
+        }
+        for (String name : names) {
+            if (!visit(new File(directory, name))) break;
+        }
+    }
+
+    /**
+     * Queue a file for deletion if nothing refers to it
+     * @return false once the work has been stopped
+     */
+    private boolean visit(File file) {
+        if (isStopped()) {
+            return false;
+        }
+        if (referenced.contains(ImageRenditions.originalOf(file.getName()))
+                || ImageStore.savedAt(file) > cutoff || !file.isFile()) {
+            return true;
+        }
+        batch.add(file);
+        if (batch.size() >= BATCH_SIZE) {
+            flush();
+        }
+        return true;
+    }
+
+    private void flush() {
+        if (batch.isEmpty()) return;
+        bytesReclaimed += imageStore.deleteOrphans(batch, cutoff);
+        batch.clear();
+    }
+
+    private Data output() {
+        return new Data.Builder()
+            .putLong(KEY_BYTES_RECLAIMED, bytesReclaimed)
+            .build();
+    }
+}
@@ -0,0 +1,210 @@
+package com.fitlife.app.database;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import com.fitlife.app.database.dao.ImageDao;
+import com.fitlife.app.utils.Constants;
+import com.fitlife.app.utils.ContentHash;
+import com.fitlife.app.utils.ImageHelper;
+import com.fitlife.app.utils.ImageRenditions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Content-addressed store for workout images
+ * Each image is saved as {@code <sha256 of the JPEG bytes>.jpg}, so workouts using the
+ * same photo share one file, its renditions and its memory cache entry. Triggers count
+ * the workouts using each file in the images table; a file is deleted when it is
+ * released and the count is 0. Files that are never released (e.g. after a user is
+ * deleted) are swept up by ImageGcWorker.
+ */
+public class ImageStore {
+
+    private static final String EXTENSION = ".jpg";
+    // Hex digits of a SHA-256
+    private static final int HASH_LENGTH = 64;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static ImageStore instance;
+
+    private final File directory;
+    private final AppDatabase database;
+    private final ImageDao imageDao;
+    // Serialises saves and deletes, so a file is never deleted while it is being reused
+    private final Object lock = new Object();
+
+    private ImageStore(Context context) {
+        this(new File(context.getFilesDir(), Constants.IMAGE_DIRECTORY),
+            AppDatabase.getInstance(context));
+    }
+
+    ImageStore(File directory, AppDatabase database) {
+        this.directory = directory;
+        this.database = database;
+        imageDao = database.imageDao();
+    }
+
+    /**
+     * Get the singleton instance
+     * @param context Any context
+     * @return ImageStore instance
+     */
+    public static synchronized ImageStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new ImageStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Store an image, reusing the file of an identical one; runs on a background thread
+     * A new file gets its renditions written next to it; use ImageRenditions.existing
+     * for the workout's bitmask.
+     * @param bitmap Image to store
+     * @return Absolute path of the stored image, or null if failed
+     */
+    public String save(Bitmap bitmap) {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        if (!bitmap.compress(Bitmap.CompressFormat.JPEG, Constants.IMAGE_COMPRESSION_QUALITY, encoded)) {
+            return null;
+        }
+        byte[] bytes = encoded.toByteArray();
+        File file = new File(directory, sha256(bytes) + EXTENSION);
+
+        synchronized (lock) {
+            if (file.exists()) {
+                // Restarts the grace period, so release() keeps the file until the
+                // workout using it is saved. Thumbnails of content-addressed files do
+                // not depend on this time (see ImageLoader).
+                file.setLastModified(System.currentTimeMillis());
+                return file.getAbsolutePath();
+            }
+
+            if (!directory.exists()) {
+                directory.mkdirs();
+            }
+            // Written aside and renamed, so a file with a hash name is always complete
+            File temp = new File(directory, file.getName() + TEMP_SUFFIX);
+            try (FileOutputStream fos = new FileOutputStream(temp)) {
+                fos.write(bytes);
+            } catch (IOException e) {
+                e.printStackTrace();
+                temp.delete();
+                return null;
+            }
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                return null;
+            }
+            ImageRenditions.write(bitmap, file.getAbsolutePath());
+            return file.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Delete an image if no workout uses it any more; runs on a background thread
+     * Call after the write that dropped the workout's reference has committed. Files
+     * saved within the grace period are kept, as a workout using them may be about to
+     * be inserted.
+     * @param path Absolute path of the image, may be null
+     */
+    public void release(String path) {
+        if (path == null || path.isEmpty()) {
+            return;
+        }
+        synchronized (lock) {
+            long age = System.currentTimeMillis() - new File(path).lastModified();
+            if (age < Constants.IMAGE_GRACE_PERIOD_MS) {
+                return;
+            }
+            if (imageDao.deleteIfUnreferenced(path) > 0) {
+                ImageHelper.deleteImage(path);
+            }
+        }
+    }
+
+    /**
+     * Delete files a sweep found no workout referring to; runs on a background thread
+     * Each file is checked again under the lock: one that a save reused since the sweep
+     * started (so it is within the grace period again) or that a workout refers to by
+     * now is kept.
+     * @param files Originals, renditions or leftover temporary files
+     * @param cutoff Files of images saved after this time (millis, see savedAt) are kept
+     * @return Bytes reclaimed
+     */
+    long deleteOrphans(List<File> files, long cutoff) {
+        synchronized (lock) {
+            // One commit for the rows of the whole batch
+            return database.runInTransaction(() -> {
+                long reclaimed = 0;
+                for (File file : files) {
+                    if (savedAt(file) > cutoff) continue;
+                    String original = new File(file.getParentFile(),
+                        ImageRenditions.originalOf(file.getName())).getAbsolutePath();
+                    if (imageDao.getRefCount(original) > 0) continue;
+
+                    long length = file.length();
+                    if (file.delete()) {
+                        reclaimed += length;
+                        if (original.equals(file.getAbsolutePath())) {
+                            imageDao.deleteIfUnreferenced(original);
+                        }
+                    }
+                }
+                return reclaimed;
+            });
+        }
+    }
+
+    /**
+     * Whether a file is an image stored by content, or one of its renditions
+     * The content of such a file never changes under its name.
+     * @param name File name
+     */
+    public static boolean isContentAddressed(String name) {
+        String original = ImageRenditions.originalOf(name);
+        if (original.length() != HASH_LENGTH + EXTENSION.length() || !original.endsWith(EXTENSION)) {
+            return false;
+        }
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            char c = original.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Time the image a file belongs to was last saved
+     * That is the original's modification time, which a save reusing the image renews,
+     * also for the renditions and the temporary file: their own times are not renewed.
+     * @param file Original, rendition or temporary file
+     * @return Time in millis, or 0 if the file does not exist
+     */
+    static long savedAt(File file) {
+        String name = file.getName();
+        if (name.endsWith(TEMP_SUFFIX)) {
+            name = name.substring(0, name.length() - TEMP_SUFFIX.length());
+        }
+        File original = new File(file.getParentFile(), ImageRenditions.originalOf(name));
+        // Without its original the file is left over from a failed save or delete
+        return original.exists() ? original.lastModified() : file.lastModified();
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return ContentHash.toHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java and Android runtime provides SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.fitlife.app.database;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.room.InvalidationTracker;
+
+import java.util.Set;
+
+/**
+ * Lifecycle-aware bridge from Room's InvalidationTracker to a screen
+ * The callback runs on the main thread when one of the given tables is written
+ * while the screen is started. Writes that happen while the screen is stopped are
+ * remembered and delivered once on the next start, so returning to a screen whose
+ * data did not change costs no database work.
+ */
+public class TableChangeObserver implements LifecycleEventObserver {
+
+    private final AppDatabase database;
+    private final Runnable onChanged;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final InvalidationTracker.Observer trackerObserver;
+
+    // Only touched on the main thread
+    private boolean pending;
+    private boolean started;
+
+    private TableChangeObserver(AppDatabase database, Runnable onChanged, String... tables) {
+        this.database = database;
+        this.onChanged = onChanged;
+        this.trackerObserver = new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> invalidated) {
+                mainHandler.post(TableChangeObserver.this::dispatch);
+            }
+        };
+    }
+
+    /**
+     * Observe tables for as long as the owner is alive
+     * @param database Database instance
+     * @param owner Lifecycle owner (activity)
+     * @param onChanged Callback run on the main thread
+     * @param tables Table names to observe
+     */
+    public static void observe(AppDatabase database, LifecycleOwner owner,
+                               Runnable onChanged, String... tables) {
+        TableChangeObserver observer = new TableChangeObserver(database, onChanged, tables);
+        database.getInvalidationTracker().addObserver(observer.trackerObserver);
+        owner.getLifecycle().addObserver(observer);
+    }
+
+    @Override
+    public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+        switch (event) {
+            case ON_START:
+                started = true;
+                if (pending) {
+                    dispatch();
+                }
+                break;
+            case ON_STOP:
+                started = false;
+                break;
+            case ON_DESTROY:
+                database.getInvalidationTracker().removeObserver(trackerObserver);
+                source.getLifecycle().removeObserver(this);
+                mainHandler.removeCallbacksAndMessages(null);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void dispatch() {
+        if (started) {
+            pending = false;
+            onChanged.run();
+        } else {
+            pending = true;
+        }
+    }
+}
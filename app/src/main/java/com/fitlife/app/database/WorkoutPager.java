@@ -0,0 +1,228 @@
+package com.fitlife.app.database;
+
+import com.fitlife.app.database.dao.WorkoutDao;
+import com.fitlife.app.database.entities.Workout;
+import com.fitlife.app.models.WorkoutSummary;
+import com.fitlife.app.utils.AppExecutors;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Keyset pager for a user's workout summaries, ordered by (created_at, workout_id) descending
+ * Each page is a small indexed query (with exercise counts for the page's rows) that
+ * continues from the first or last loaded row. Only a window of at most maxLoadedRows
+ * around the viewport is held: loading a page at one end drops the page furthest away
+ * at the other, and scrolling back loads it again by keyset. Rows dropped above the
+ * viewport are removed from the top of the list, which keeps the visible rows in place.
+ * All public methods must be called on the main thread.
+ */
+public class WorkoutPager {
+
+    /**
+     * Callbacks delivered on the main thread
+     */
+    public interface OnPageLoadedListener {
+        /**
+         * Called with the rows of the current window
+         */
+        void onPageLoaded(List<WorkoutSummary> workouts);
+        
+        /**
+         * Called when a page query fails
+         */
+        void onLoadFailed(Exception e);
+    }
+
+    private final WorkoutDao workoutDao;
+    private final int userId;
+    private final int pageSize;
+    private final int prefetchDistance;
+    private final int maxPages;
+    private final OnPageLoadedListener listener;
+
+    private final Executor executor = AppExecutors.getInstance().diskIO();
+    private final Executor mainThread = AppExecutors.getInstance().mainThread();
+
+    // The window, top to bottom
+    private final LinkedList<List<WorkoutSummary>> pages = new LinkedList<>();
+    private int loadedCount;
+    private boolean loading;
+    // Whether the window starts at the newest workout / ends at the oldest
+    private boolean startReached = true;
+    private boolean endReached;
+    // Bumped on refresh so that results of older loads are discarded
+    private int generation;
+
+    /**
+     * @param maxLoadedRows Most rows held at once; at least three pages are kept so the
+     *     page being dropped is never on screen
+     */
+    public WorkoutPager(WorkoutDao workoutDao, int userId, int pageSize, int prefetchDistance,
+                        int maxLoadedRows, OnPageLoadedListener listener) {
+        this.workoutDao = workoutDao;
+        this.userId = userId;
+        this.pageSize = pageSize;
+        this.prefetchDistance = prefetchDistance;
+        this.maxPages = Math.max(3, maxLoadedRows / pageSize);
+        this.listener = listener;
+    }
+
+    /**
+     * Reload the rows of the current window, keeping its first row
+     * The window keeps its number of pages, so the list does not shrink under the
+     * user's scroll position. At the top of the list, new workouts show up as well.
+     */
+    public void refresh() {
+        final int requestGeneration = ++generation;
+        final int limit = Math.max(1, pages.size()) * pageSize;
+        final Workout first = startReached || loadedCount == 0 ? null : pages.getFirst().get(0).workout;
+        loading = true;
+
+        executor.execute(() -> {
+            try {
+                List<WorkoutSummary> rows = first == null
+                    ? workoutDao.getFirstSummariesPage(userId, limit)
+                    // From the first row on, itself included
+                    : workoutDao.getSummariesPageAfter(userId, first.getCreatedAt(),
+                        first.getWorkoutId() + 1, limit);
+                mainThread.execute(() -> {
+                    if (requestGeneration != generation) return;
+                    loading = false;
+                    pages.clear();
+                    loadedCount = 0;
+                    for (int start = 0; start < rows.size(); start += pageSize) {
+                        addPage(false, rows.subList(start, Math.min(rows.size(), start + pageSize)));
+                    }
+                    endReached = rows.size() < limit;
+                    publish();
+                });
+            } catch (Exception e) {
+                e.printStackTrace();
+                postFailure(requestGeneration, e);
+            }
+        });
+    }
+
+    /**
+     * Load the page after the last loaded workout, if any
+     */
+    public void loadNextPage() {
+        if (loading || endReached) return;
+        if (loadedCount == 0) {
+            refresh();
+            return;
+        }
+
+        final int requestGeneration = generation;
+        List<WorkoutSummary> lastPage = pages.getLast();
+        final Workout last = lastPage.get(lastPage.size() - 1).workout;
+        loading = true;
+
+        executor.execute(() -> {
+            try {
+                List<WorkoutSummary> page = workoutDao.getSummariesPageAfter(
+                    userId, last.getCreatedAt(), last.getWorkoutId(), pageSize);
+                mainThread.execute(() -> {
+                    if (requestGeneration != generation) return;
+                    loading = false;
+                    endReached = page.size() < pageSize;
+                    if (!page.isEmpty()) {
+                        addPage(false, page);
+                        if (pages.size() > maxPages) {
+                            loadedCount -= pages.removeFirst().size();
+                            startReached = false;
+                        }
+                    }
+                    publish();
+                });
+            } catch (Exception e) {
+                e.printStackTrace();
+                postFailure(requestGeneration, e);
+            }
+        });
+    }
+
+    /**
+     * Load the page before the first loaded workout, once pages above were dropped
+     */
+    public void loadPreviousPage() {
+        if (loading || startReached || loadedCount == 0) return;
+
+        final int requestGeneration = generation;
+        final Workout first = pages.getFirst().get(0).workout;
+        loading = true;
+
+        executor.execute(() -> {
+            try {
+                List<WorkoutSummary> page = workoutDao.getSummariesPageBefore(
+                    userId, first.getCreatedAt(), first.getWorkoutId(), pageSize);
+                mainThread.execute(() -> {
+                    if (requestGeneration != generation) return;
+                    loading = false;
+                    startReached = page.size() < pageSize;
+                    if (!page.isEmpty()) {
+                        addPage(true, page);
+                        if (pages.size() > maxPages) {
+                            loadedCount -= pages.removeLast().size();
+                            endReached = false;
+                        }
+                    }
+                    publish();
+                });
+            } catch (Exception e) {
+                e.printStackTrace();
+                postFailure(requestGeneration, e);
+            }
+        });
+    }
+
+    /**
+     * Notify the pager which rows are on screen
+     * Prefetches a page once the user gets close to either end of the window
+     * @param first First visible position, negative while the list header is visible
+     * @param last Last visible position
+     */
+    public void onItemsVisible(int first, int last) {
+        if (last >= loadedCount - prefetchDistance) {
+            loadNextPage();
+        }
+        if (first < prefetchDistance) {
+            loadPreviousPage();
+        }
+    }
+
+    /**
+     * Drop results of loads still in flight; the pager must not be used afterwards
+     */
+    public void close() {
+        generation++;
+    }
+
+    private void addPage(boolean atStart, List<WorkoutSummary> page) {
+        if (atStart) {
+            pages.addFirst(page);
+        } else {
+            pages.addLast(page);
+        }
+        loadedCount += page.size();
+    }
+
+    private void publish() {
+        List<WorkoutSummary> rows = new ArrayList<>(loadedCount);
+        for (List<WorkoutSummary> page : pages) {
+            rows.addAll(page);
+        }
+        listener.onPageLoaded(rows);
+    }
+    
+    private void postFailure(int requestGeneration, Exception e) {
+        mainThread.execute(() -> {
+            if (requestGeneration != generation) return;
+            loading = false;
+            listener.onLoadFailed(e);
+        });
+    }
+}
@@ -0,0 +1,126 @@
+package com.fitlife.app.database;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.fitlife.app.database.dao.SearchDao;
+import com.fitlife.app.models.WorkoutSummary;
+import com.fitlife.app.utils.AppExecutors;
+import com.fitlife.app.utils.SearchQueryBuilder;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Debounced full-text search over a user's workouts
+ * Each new query text replaces the pending one, and the search only runs once
+ * typing has paused. Results of a search that was overtaken by newer text are
+ * dropped instead of being delivered. All public methods must be called on the main thread.
+ */
+public class WorkoutSearch {
+    
+    /**
+     * Callbacks delivered on the main thread
+     */
+    public interface OnResultsListener {
+        /**
+         * Called with the results for the current query
+         */
+        void onResults(List<WorkoutSummary> results);
+        
+        /**
+         * Called when a search fails
+         */
+        void onSearchFailed(Exception e);
+    }
+    
+    private final SearchDao searchDao;
+    private final int userId;
+    private final int limit;
+    private final long debounceMs;
+    private final OnResultsListener listener;
+    
+    private final Executor executor = AppExecutors.getInstance().diskIO();
+    private final Executor mainThread = AppExecutors.getInstance().mainThread();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable runPending = this::run;
+    
+    private SearchQueryBuilder query = SearchQueryBuilder.parse(null);
+    // Bumped whenever the query changes so that results of older searches are discarded
+    private volatile int generation;
+    
+    public WorkoutSearch(SearchDao searchDao, int userId, int limit, long debounceMs,
+                         OnResultsListener listener) {
+        this.searchDao = searchDao;
+        this.userId = userId;
+        this.limit = limit;
+        this.debounceMs = debounceMs;
+        this.listener = listener;
+    }
+    
+    /**
+     * Set the text to search for; the search runs after the debounce delay
+     * @param text Text typed by the user
+     */
+    public void setQuery(String text) {
+        SearchQueryBuilder parsed = SearchQueryBuilder.parse(text);
+        if (parsed.getTerms().equals(query.getTerms())) return;
+        
+        query = parsed;
+        generation++;
+        handler.removeCallbacks(runPending);
+        if (!query.isEmpty()) {
+            handler.postDelayed(runPending, debounceMs);
+        }
+    }
+    
+    /**
+     * Check if there is a query to search for
+     */
+    public boolean isActive() {
+        return !query.isEmpty();
+    }
+    
+    /**
+     * Run the current query again right away, e.g. after the data changed
+     */
+    public void refresh() {
+        if (query.isEmpty()) return;
+        handler.removeCallbacks(runPending);
+        run();
+    }
+    
+    /**
+     * Drop pending and running searches; the search must not be used afterwards
+     */
+    public void close() {
+        generation++;
+        handler.removeCallbacks(runPending);
+    }
+    
+    private void run() {
+        final int requestGeneration = generation;
+        final String all = query.build();
+        final String workoutName = query.build("workout_name");
+        final String exerciseName = query.build("exercise_name");
+        
+        executor.execute(() -> {
+            // Skip searches that were overtaken while waiting for a thread
+            if (requestGeneration != generation) return;
+            try {
+                List<WorkoutSummary> results =
+                    searchDao.searchWorkouts(userId, all, workoutName, exerciseName, limit);
+                mainThread.execute(() -> {
+                    if (requestGeneration != generation) return;
+                    listener.onResults(results);
+                });
+            } catch (Exception e) {
+                e.printStackTrace();
+                mainThread.execute(() -> {
+                    if (requestGeneration != generation) return;
+                    listener.onSearchFailed(e);
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,40 @@
+package com.fitlife.app.database.dao;
+
+import android.database.Cursor;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+/**
+ * Data Access Object for exporting a user's workouts
+ * Rows are returned as cursors so an export never holds more than the current row.
+ */
+@Dao
+public interface BackupDao {
+
+    /**
+     * Get every workout, exercise and equipment row of a user as one flat cursor
+     * Rows are grouped by workout, then exercise; a workout without exercises (or an
+     * exercise without equipment) has NULL child columns. Each ORDER BY column pair
+     * matches an index (plus rowid), so the rows stream without a sort.
+     * @param userId User ID
+     * @return Cursor over the joined rows; the caller closes it
+     */
+    @Query("SELECT w.workout_id, w.workout_name, w.description, w.created_at, w.updated_at, " +
+           "w.is_completed, x.exercise_id, x.exercise_name, x.sets, x.reps, x.instructions, " +
+           "x.is_completed AS exercise_completed, x.order_index, q.equipment_name " +
+           "FROM workouts w " +
+           "LEFT JOIN exercises x ON x.workout_id = w.workout_id " +
+           "LEFT JOIN equipment q ON q.exercise_id = x.exercise_id " +
+           "WHERE w.user_id = :userId " +
+           "ORDER BY w.created_at, w.workout_id, x.order_index, x.exercise_id, q.equipment_id")
+    Cursor getExportRows(int userId);
+
+    /**
+     * Get the number of workouts an export of the user will contain
+     * @param userId User ID
+     * @return Number of workouts
+     */
+    @Query("SELECT COUNT(*) FROM workouts WHERE user_id = :userId")
+    int getWorkoutCount(int userId);
+}
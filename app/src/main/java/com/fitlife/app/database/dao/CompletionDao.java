@@ -0,0 +1,67 @@
+package com.fitlife.app.database.dao;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import com.fitlife.app.database.entities.WorkoutCompletion;
+import com.fitlife.app.models.CompletionBucket;
+
+import java.util.List;
+
+/**
+ * Data Access Object for completion history
+ * Completions are recorded by triggers when a workout becomes completed, and the
+ * rollups are kept up to date by triggers as well, so this DAO only reads. Rollup
+ * reads are primary key lookups touching one row per bucket.
+ */
+@Dao
+public interface CompletionDao {
+    
+    /**
+     * Get the number of completions in one bucket
+     * @param userId User ID
+     * @param period CompletionRollup.PERIOD_DAY, PERIOD_WEEK or PERIOD_MONTH
+     * @param bucketStart Bucket key (see CompletionPeriods)
+     * @return Completions in the bucket
+     */
+    @Query("SELECT COALESCE((SELECT completed_count FROM completion_rollups " +
+           "WHERE user_id = :userId AND period = :period AND bucket_start = :bucketStart), 0)")
+    int getCompletedCount(int userId, String period, String bucketStart);
+    
+    /**
+     * Get the non-empty buckets from a start bucket onwards, oldest first
+     * E.g. the last 12 weeks; buckets without completions are not returned.
+     * @param userId User ID
+     * @param period CompletionRollup.PERIOD_DAY, PERIOD_WEEK or PERIOD_MONTH
+     * @param fromBucketStart First bucket key to include
+     * @return Buckets in ascending order
+     */
+    @Query("SELECT bucket_start, completed_count FROM completion_rollups " +
+           "WHERE user_id = :userId AND period = :period AND bucket_start >= :fromBucketStart " +
+           "ORDER BY bucket_start ASC")
+    List<CompletionBucket> getBucketsSince(int userId, String period, String fromBucketStart);
+    
+    /**
+     * Get the most recent days with at least one completion, newest first
+     * Enough input for CompletionPeriods.countStreak.
+     * @param userId User ID
+     * @param todayKey Key of the current day
+     * @param limit Maximum number of days (longest streak that can be reported)
+     * @return Day keys in descending order
+     */
+    @Query("SELECT bucket_start FROM completion_rollups " +
+           "WHERE user_id = :userId AND period = 'day' AND bucket_start <= :todayKey " +
+           "ORDER BY bucket_start DESC LIMIT :limit")
+    List<String> getRecentActiveDays(int userId, String todayKey, int limit);
+    
+    /**
+     * Get completion events for a user in a time range, newest first
+     * @param userId User ID
+     * @param from Start of the range (epoch millis, inclusive)
+     * @param to End of the range (epoch millis, exclusive)
+     * @return Completion events
+     */
+    @Query("SELECT * FROM workout_completions WHERE user_id = :userId " +
+           "AND completed_at >= :from AND completed_at < :to ORDER BY completed_at DESC")
+    List<WorkoutCompletion> getCompletions(int userId, long from, long to);
+}
@@ -4,8 +4,10 @@ import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
+import com.fitlife.app.database.ExerciseDiff;
 import com.fitlife.app.database.entities.Exercise;
 
 import java.util.List;
@@ -39,6 +41,13 @@ public interface ExerciseDao {
     @Update
     void update(Exercise exercise);
     
+    /**
+     * Update multiple exercises
+     * @param exercises List of exercises to update
+     */
+    @Update
+    void updateAll(List<Exercise> exercises);
+    
     /**
      * Delete an exercise
      * @param exercise Exercise to delete
@@ -78,6 +87,26 @@ public interface ExerciseDao {
     @Query("UPDATE exercises SET is_completed = :isCompleted WHERE exercise_id = :exerciseId")
     void updateCompletionStatus(int exerciseId, boolean isCompleted);
     
+    /**
+     * Move an exercise to a new position in its workout
+     * @param exerciseId Exercise ID
+     * @param orderIndex New order key
+     */
+    @Query("UPDATE exercises SET order_index = :orderIndex WHERE exercise_id = :exerciseId")
+    void updateOrderIndex(int exerciseId, int orderIndex);
+    
+    /**
+     * Write the order keys of reordered exercises in one transaction
+     * Only the order column is written, so pending completion toggles are not overwritten.
+     * @param exercises Exercises whose order key changed
+     */
+    @Transaction
+    default void updateOrderIndexes(List<Exercise> exercises) {
+        for (Exercise exercise : exercises) {
+            updateOrderIndex(exercise.getExerciseId(), exercise.getOrderIndex());
+        }
+    }
+    
     /**
      * Reset all exercises in a workout to incomplete
      * @param workoutId Workout ID
@@ -114,4 +143,27 @@ public interface ExerciseDao {
      */
     @Delete
     void delete(List<Exercise> exercises);
+
+    /**
+     * Save an edited exercise list in one transaction
+     * Only inserted, deleted and actually changed rows are written.
+     * @param original Snapshot of the exercises as loaded
+     * @param edited Exercises in their new order
+     * @param workoutId Workout the exercises belong to
+     * @return The applied diff
+     */
+    @Transaction
+    default ExerciseDiff applyChanges(List<Exercise> original, List<Exercise> edited, int workoutId) {
+        ExerciseDiff diff = ExerciseDiff.compute(original, edited, workoutId);
+        if (!diff.deletes.isEmpty()) {
+            delete(diff.deletes);
+        }
+        if (!diff.updates.isEmpty()) {
+            updateAll(diff.updates);
+        }
+        if (!diff.inserts.isEmpty()) {
+            insertAll(diff.inserts);
+        }
+        return diff;
+    }
 }
@@ -0,0 +1,41 @@
+package com.fitlife.app.database.dao;
+
+import android.database.Cursor;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+/**
+ * Data Access Object for stored workout images
+ * Reference counts are maintained by triggers on workouts (see DatabaseTriggers); this
+ * DAO only removes rows that nothing refers to any more.
+ */
+@Dao
+public interface ImageDao {
+    
+    /**
+     * Get the number of workouts using an image
+     * @param path Absolute path of the image
+     * @return Reference count, 0 if the image is not known
+     */
+    @Query("SELECT COALESCE((SELECT ref_count FROM images WHERE path = :path), 0)")
+    int getRefCount(String path);
+    
+    /**
+     * Delete an image row if no workout uses it
+     * Checked and deleted in one statement, so a workout saved concurrently with the
+     * same image either keeps the row or recreates it.
+     * @param path Absolute path of the image
+     * @return 1 if the row was deleted and its file may be removed, otherwise 0
+     */
+    @Query("DELETE FROM images WHERE path = :path AND ref_count <= 0")
+    int deleteIfUnreferenced(String path);
+    
+    /**
+     * Get the image path of every workout, for the garbage collector
+     * Streamed as a cursor, so the paths are never all held as one list.
+     * @return Cursor over distinct non-null image paths; the caller closes it
+     */
+    @Query("SELECT DISTINCT image_path FROM workouts WHERE image_path IS NOT NULL")
+    Cursor getReferencedPaths();
+}
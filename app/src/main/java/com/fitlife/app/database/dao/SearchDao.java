@@ -0,0 +1,53 @@
+package com.fitlife.app.database.dao;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import com.fitlife.app.models.WorkoutSummary;
+
+import java.util.List;
+
+/**
+ * Data Access Object for full-text search over workouts and their exercises
+ * Match expressions are built with SearchQueryBuilder.
+ */
+@Dao
+public interface SearchDao {
+    
+    /**
+     * Search a user's workouts, best matches first
+     * Every source is an FTS index lookup; a workout ranks by its best hit:
+     * workout name, then workout description, then exercise name, then instructions.
+     * Ties are broken newest first.
+     * @param userId User ID
+     * @param query Match expression for all columns
+     * @param workoutNameQuery Match expression restricted to the workout name
+     * @param exerciseNameQuery Match expression restricted to the exercise name
+     * @param limit Maximum number of results
+     * @return Matching workout summaries
+     */
+    @Query("SELECT w.*, COUNT(e.exercise_id) AS exercise_count, " +
+           "COALESCE(SUM(e.is_completed), 0) AS completed_exercise_count " +
+           "FROM (SELECT hits.workout_id, MAX(hits.score) AS score FROM (" +
+           "SELECT docid AS workout_id, 4 AS score FROM workouts_fts " +
+           "WHERE workouts_fts MATCH :workoutNameQuery " +
+           "UNION ALL SELECT docid, 3 FROM workouts_fts " +
+           "WHERE workouts_fts MATCH :query " +
+           "UNION ALL SELECT ex.workout_id, 2 FROM exercises_fts " +
+           "INNER JOIN exercises ex ON ex.exercise_id = exercises_fts.docid " +
+           "WHERE exercises_fts MATCH :exerciseNameQuery " +
+           "UNION ALL SELECT ex.workout_id, 1 FROM exercises_fts " +
+           "INNER JOIN exercises ex ON ex.exercise_id = exercises_fts.docid " +
+           "WHERE exercises_fts MATCH :query) AS hits " +
+           "INNER JOIN workouts mw ON mw.workout_id = hits.workout_id " +
+           "WHERE mw.user_id = :userId " +
+           "GROUP BY hits.workout_id " +
+           "ORDER BY score DESC, mw.created_at DESC, hits.workout_id DESC " +
+           "LIMIT :limit) AS m " +
+           "INNER JOIN workouts w ON w.workout_id = m.workout_id " +
+           "LEFT JOIN exercises e ON e.workout_id = w.workout_id " +
+           "GROUP BY w.workout_id " +
+           "ORDER BY m.score DESC, w.created_at DESC, w.workout_id DESC")
+    List<WorkoutSummary> searchWorkouts(int userId, String query, String workoutNameQuery,
+                                        String exerciseNameQuery, int limit);
+}
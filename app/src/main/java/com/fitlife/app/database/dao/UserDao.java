@@ -3,6 +3,7 @@ package com.fitlife.app.database.dao;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.Update;
 
@@ -18,8 +19,9 @@ public interface UserDao {
      * Insert a new user
      * @param user User to insert
      * @return Row ID of inserted user
+     * @throws android.database.sqlite.SQLiteConstraintException if the email is already registered
      */
-    @Insert
+    @Insert(onConflict = OnConflictStrategy.ABORT)
     long insert(User user);
     
     /**
@@ -37,7 +39,7 @@ public interface UserDao {
     void delete(User user);
     
     /**
-     * Get user by email
+     * Get user by email (case-insensitive, uses the unique email index)
      * @param email User email
      * @return User object or null
      */
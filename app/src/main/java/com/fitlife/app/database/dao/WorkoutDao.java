@@ -1,12 +1,17 @@
 package com.fitlife.app.database.dao;
 
+import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.fitlife.app.database.entities.Workout;
+import com.fitlife.app.models.DashboardStats;
+import com.fitlife.app.models.WorkoutSummary;
+import com.fitlife.app.models.WorkoutWithExerciseDetails;
 
 import java.util.List;
 
@@ -46,6 +51,65 @@ public interface WorkoutDao {
     @Query("SELECT * FROM workouts WHERE user_id = :userId ORDER BY created_at DESC")
     List<Workout> getWorkoutsByUserId(int userId);
     
+    /**
+     * Get the first page of workout summaries for a user (newest first)
+     * The page is picked from the workouts index first, so only the exercises of
+     * the rows on the page are grouped.
+     * @param userId User ID
+     * @param limit Page size
+     * @return Up to limit summaries
+     */
+    @Query("SELECT w.*, COUNT(e.exercise_id) AS exercise_count, " +
+           "COALESCE(SUM(e.is_completed), 0) AS completed_exercise_count " +
+           "FROM (SELECT * FROM workouts WHERE user_id = :userId " +
+           "ORDER BY created_at DESC, workout_id DESC LIMIT :limit) AS w " +
+           "LEFT JOIN exercises e ON e.workout_id = w.workout_id " +
+           "GROUP BY w.workout_id " +
+           "ORDER BY w.created_at DESC, w.workout_id DESC")
+    List<WorkoutSummary> getFirstSummariesPage(int userId, int limit);
+    
+    /**
+     * Get the page of workout summaries that follows the given keyset position
+     * The created_at range lets SQLite seek in the (user_id, created_at) index;
+     * workout_id only breaks ties between rows created in the same millisecond.
+     * @param userId User ID
+     * @param createdAt created_at of the last workout on the previous page
+     * @param workoutId workout_id of the last workout on the previous page
+     * @param limit Page size
+     * @return Up to limit summaries
+     */
+    @Query("SELECT w.*, COUNT(e.exercise_id) AS exercise_count, " +
+           "COALESCE(SUM(e.is_completed), 0) AS completed_exercise_count " +
+           "FROM (SELECT * FROM workouts WHERE user_id = :userId " +
+           "AND created_at <= :createdAt " +
+           "AND (created_at < :createdAt OR workout_id < :workoutId) " +
+           "ORDER BY created_at DESC, workout_id DESC LIMIT :limit) AS w " +
+           "LEFT JOIN exercises e ON e.workout_id = w.workout_id " +
+           "GROUP BY w.workout_id " +
+           "ORDER BY w.created_at DESC, w.workout_id DESC")
+    List<WorkoutSummary> getSummariesPageAfter(int userId, long createdAt, int workoutId, int limit);
+    
+    /**
+     * Get the page of workout summaries that precedes the given keyset position
+     * The newer rows are read in ascending order from the position and returned newest
+     * first, like every other page.
+     * @param userId User ID
+     * @param createdAt created_at of the first workout on the following page
+     * @param workoutId workout_id of the first workout on the following page
+     * @param limit Page size
+     * @return Up to limit summaries
+     */
+    @Query("SELECT w.*, COUNT(e.exercise_id) AS exercise_count, " +
+           "COALESCE(SUM(e.is_completed), 0) AS completed_exercise_count " +
+           "FROM (SELECT * FROM workouts WHERE user_id = :userId " +
+           "AND created_at >= :createdAt " +
+           "AND (created_at > :createdAt OR workout_id > :workoutId) " +
+           "ORDER BY created_at ASC, workout_id ASC LIMIT :limit) AS w " +
+           "LEFT JOIN exercises e ON e.workout_id = w.workout_id " +
+           "GROUP BY w.workout_id " +
+           "ORDER BY w.created_at DESC, w.workout_id DESC")
+    List<WorkoutSummary> getSummariesPageBefore(int userId, long createdAt, int workoutId, int limit);
+    
     /**
      * Get workout by ID
      * @param workoutId Workout ID
@@ -54,6 +118,26 @@ public interface WorkoutDao {
     @Query("SELECT * FROM workouts WHERE workout_id = :workoutId LIMIT 1")
     Workout getWorkoutById(int workoutId);
     
+    /**
+     * Observe a workout together with its exercises and their equipment
+     * The relations are loaded in the same transaction as the workout, and the
+     * result is re-queried when any of the three tables is written.
+     * @param workoutId Workout ID
+     * @return LiveData of the workout graph (null if deleted)
+     */
+    @Transaction
+    @Query("SELECT * FROM workouts WHERE workout_id = :workoutId LIMIT 1")
+    LiveData<WorkoutWithExerciseDetails> observeWorkoutWithDetails(int workoutId);
+    
+    /**
+     * Get a workout together with its exercises and their equipment
+     * @param workoutId Workout ID
+     * @return The workout graph, or null if not found
+     */
+    @Transaction
+    @Query("SELECT * FROM workouts WHERE workout_id = :workoutId LIMIT 1")
+    WorkoutWithExerciseDetails getWorkoutWithDetails(int workoutId);
+    
     /**
      * Get completed workouts for a user
      * @param userId User ID
@@ -78,6 +162,36 @@ public interface WorkoutDao {
     @Query("UPDATE workouts SET is_completed = :isCompleted, updated_at = :timestamp WHERE workout_id = :workoutId")
     void updateCompletionStatus(int workoutId, boolean isCompleted, long timestamp);
     
+    /**
+     * Store a workout's content hash
+     * @param workoutId Workout ID
+     * @param contentHash Hash from ContentHash
+     */
+    @Query("UPDATE workouts SET content_hash = :contentHash WHERE workout_id = :workoutId")
+    void updateContentHash(int workoutId, String contentHash);
+    
+    /**
+     * Get which of the given content hashes a user's workouts already have
+     * @param userId User ID
+     * @param contentHashes Hashes to look up (at most 999 per call)
+     * @return The hashes that exist
+     */
+    @Query("SELECT content_hash FROM workouts WHERE user_id = :userId AND content_hash IN (:contentHashes)")
+    List<String> getExistingContentHashes(int userId, List<String> contentHashes);
+    
+    /**
+     * Recompute a workout's content hash from its stored exercises and equipment
+     * Call after changing a workout's content, in the same transaction.
+     * @param workoutId Workout ID
+     */
+    @Transaction
+    default void refreshContentHash(int workoutId) {
+        WorkoutWithExerciseDetails details = getWorkoutWithDetails(workoutId);
+        if (details != null) {
+            updateContentHash(workoutId, details.computeContentHash());
+        }
+    }
+    
     /**
      * Get total workout count for a user
      * @param userId User ID
@@ -93,7 +207,27 @@ public interface WorkoutDao {
      */
     @Query("SELECT COUNT(*) FROM workouts WHERE user_id = :userId AND is_completed = 1")
     int getCompletedWorkoutCount(int userId);
-    
+
+    /**
+     * Get all dashboard statistics for a user in a single statement
+     * Completions this week come from the weekly rollup, so they include workouts
+     * that were reset or deleted since.
+     * @param userId User ID
+     * @param weekKey Key of the current week (see CompletionPeriods.weekKey)
+     * @return Aggregated statistics
+     */
+    @Query("SELECT COUNT(*) AS total_workouts, " +
+           "COALESCE(SUM(is_completed), 0) AS completed_workouts, " +
+           "(SELECT COALESCE(SUM(completed_count), 0) FROM completion_rollups " +
+           "WHERE user_id = :userId AND period = 'week' AND bucket_start = :weekKey) " +
+           "AS completed_this_week, " +
+           "(SELECT COUNT(DISTINCT e.equipment_name) FROM equipment e " +
+           "INNER JOIN exercises ex ON e.exercise_id = ex.exercise_id " +
+           "INNER JOIN workouts w ON ex.workout_id = w.workout_id " +
+           "WHERE w.user_id = :userId) AS equipment_count " +
+           "FROM workouts WHERE user_id = :userId")
+    DashboardStats getDashboardStats(int userId, String weekKey);
+
     /**
      * Reset all workouts to incomplete for a user
      * @param userId User ID
@@ -0,0 +1,82 @@
+package com.fitlife.app.database.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+
+/**
+ * Number of workout completions per user in one day, week or month
+ * Maintained incrementally by triggers on workout_completions. Buckets are keyed by
+ * their first local date as yyyy-MM-dd (see CompletionPeriods); weeks start on Monday.
+ */
+@Entity(tableName = "completion_rollups",
+        primaryKeys = {"user_id", "period", "bucket_start"},
+        foreignKeys = @ForeignKey(entity = User.class,
+                parentColumns = "user_id",
+                childColumns = "user_id",
+                onDelete = ForeignKey.CASCADE))
+public class CompletionRollup {
+    
+    public static final String PERIOD_DAY = "day";
+    public static final String PERIOD_WEEK = "week";
+    public static final String PERIOD_MONTH = "month";
+    
+    @ColumnInfo(name = "user_id")
+    private int userId;
+    
+    @ColumnInfo(name = "period")
+    @NonNull
+    private String period;
+    
+    @ColumnInfo(name = "bucket_start")
+    @NonNull
+    private String bucketStart;
+    
+    @ColumnInfo(name = "completed_count")
+    private int completedCount;
+    
+    // Constructor
+    public CompletionRollup(int userId, @NonNull String period, @NonNull String bucketStart,
+                            int completedCount) {
+        this.userId = userId;
+        this.period = period;
+        this.bucketStart = bucketStart;
+        this.completedCount = completedCount;
+    }
+    
+    // Getters and Setters
+    public int getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+    
+    @NonNull
+    public String getPeriod() {
+        return period;
+    }
+    
+    public void setPeriod(@NonNull String period) {
+        this.period = period;
+    }
+    
+    @NonNull
+    public String getBucketStart() {
+        return bucketStart;
+    }
+    
+    public void setBucketStart(@NonNull String bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+    
+    public int getCompletedCount() {
+        return completedCount;
+    }
+    
+    public void setCompletedCount(int completedCount) {
+        this.completedCount = completedCount;
+    }
+}
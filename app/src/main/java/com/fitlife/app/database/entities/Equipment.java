@@ -15,7 +15,8 @@ import androidx.room.PrimaryKey;
                 parentColumns = "exercise_id",
                 childColumns = "exercise_id",
                 onDelete = ForeignKey.CASCADE),
-        indices = {@Index("exercise_id")})
+        indices = {@Index("exercise_id"),
+                @Index({"equipment_name", "exercise_id"})})
 public class Equipment {
     
     @PrimaryKey(autoGenerate = true)
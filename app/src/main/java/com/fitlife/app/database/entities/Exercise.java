@@ -8,6 +8,8 @@ import androidx.room.Ignore;
 import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Exercise entity representing an exercise within a workout
  */
@@ -16,7 +18,7 @@ import androidx.room.PrimaryKey;
                 parentColumns = "workout_id",
                 childColumns = "workout_id",
                 onDelete = ForeignKey.CASCADE),
-        indices = {@Index("workout_id")})
+        indices = {@Index({"workout_id", "order_index"})})
 public class Exercise {
     
     @PrimaryKey(autoGenerate = true)
@@ -45,6 +47,12 @@ public class Exercise {
     @ColumnInfo(name = "order_index")
     private int orderIndex;
     
+    // Negative key that identifies an exercise in lists before it has a database ID
+    private static final AtomicLong NEXT_LOCAL_KEY = new AtomicLong(-1);
+    
+    @Ignore
+    private long localKey = NEXT_LOCAL_KEY.getAndDecrement();
+    
     // Constructor
     public Exercise(int workoutId, @NonNull String exerciseName, int sets, int reps, 
                    String instructions, int orderIndex) {
@@ -62,6 +70,16 @@ public class Exercise {
     public Exercise(int workoutId, @NonNull String exerciseName, int sets, int reps) {
         this(workoutId, exerciseName, sets, reps, null, 0);
     }
+
+    // Copy constructor (used to snapshot exercises before editing)
+    @Ignore
+    public Exercise(@NonNull Exercise other) {
+        this(other.workoutId, other.exerciseName, other.sets, other.reps,
+             other.instructions, other.orderIndex);
+        this.exerciseId = other.exerciseId;
+        this.isCompleted = other.isCompleted;
+        this.localKey = other.localKey;
+    }
     
     // Getters and Setters
     public int getExerciseId() {
@@ -128,4 +146,12 @@ public class Exercise {
     public void setOrderIndex(int orderIndex) {
         this.orderIndex = orderIndex;
     }
+    
+    /**
+     * ID that stays the same for this exercise across edits and copies
+     * The database ID once saved, otherwise a negative in-memory key.
+     */
+    public long getStableId() {
+        return exerciseId != 0 ? exerciseId : localKey;
+    }
 }
@@ -0,0 +1,38 @@
+package com.fitlife.app.database.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Full-text index over exercise names and instructions
+ * External content table: the text lives only in exercises, and Room keeps the
+ * index in sync with triggers. Its docid is the exercise_id.
+ */
+@Fts4(contentEntity = Exercise.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "exercises_fts")
+public class ExerciseFts {
+    
+    @ColumnInfo(name = "exercise_name")
+    @NonNull
+    private String exerciseName;
+    
+    @ColumnInfo(name = "instructions")
+    private String instructions;
+    
+    public ExerciseFts(@NonNull String exerciseName, String instructions) {
+        this.exerciseName = exerciseName;
+        this.instructions = instructions;
+    }
+    
+    @NonNull
+    public String getExerciseName() {
+        return exerciseName;
+    }
+    
+    public String getInstructions() {
+        return instructions;
+    }
+}
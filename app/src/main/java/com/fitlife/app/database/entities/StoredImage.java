@@ -0,0 +1,63 @@
+package com.fitlife.app.database.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Workout image file with the number of workouts that use it
+ * Files are named by the SHA-256 of their encoded bytes, so identical photos share
+ * one file. Rows and reference counts are maintained by triggers on workouts; a row
+ * whose count drops to 0 is removed together with its file by ImageStore.
+ */
+@Entity(tableName = "images",
+        indices = {@Index(value = {"content_hash"})})
+public class StoredImage {
+    
+    @PrimaryKey
+    @ColumnInfo(name = "path")
+    @NonNull
+    private String path;
+    
+    // Null for images saved before files were named by content
+    @ColumnInfo(name = "content_hash")
+    private String contentHash;
+    
+    @ColumnInfo(name = "ref_count")
+    private int refCount;
+    
+    // Constructor
+    public StoredImage(@NonNull String path, String contentHash, int refCount) {
+        this.path = path;
+        this.contentHash = contentHash;
+        this.refCount = refCount;
+    }
+    
+    // Getters and Setters
+    @NonNull
+    public String getPath() {
+        return path;
+    }
+    
+    public void setPath(@NonNull String path) {
+        this.path = path;
+    }
+    
+    public String getContentHash() {
+        return contentHash;
+    }
+    
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+    
+    public int getRefCount() {
+        return refCount;
+    }
+    
+    public void setRefCount(int refCount) {
+        this.refCount = refCount;
+    }
+}
@@ -3,12 +3,14 @@ package com.fitlife.app.database.entities;
 import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 /**
  * User entity representing a user in the database
  */
-@Entity(tableName = "users")
+@Entity(tableName = "users",
+        indices = {@Index(value = "email", unique = true)})
 public class User {
     
     @PrimaryKey(autoGenerate = true)
@@ -19,7 +21,8 @@ public class User {
     @NonNull
     private String fullName;
     
-    @ColumnInfo(name = "email")
+    // NOCASE so that comparisons and the unique index ignore letter case
+    @ColumnInfo(name = "email", collate = ColumnInfo.NOCASE)
     @NonNull
     private String email;
     
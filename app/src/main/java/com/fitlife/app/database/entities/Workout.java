@@ -16,7 +16,9 @@ import androidx.room.PrimaryKey;
                 parentColumns = "user_id",
                 childColumns = "user_id",
                 onDelete = ForeignKey.CASCADE),
-        indices = {@Index("user_id")})
+        indices = {@Index({"user_id", "created_at"}),
+                @Index({"user_id", "is_completed", "updated_at"}),
+                @Index({"user_id", "content_hash"})})
 public class Workout {
     
     @PrimaryKey(autoGenerate = true)
@@ -36,6 +38,10 @@ public class Workout {
     @ColumnInfo(name = "image_path")
     private String imagePath;
     
+    // Bitmask of the smaller copies saved next to the image (see ImageRenditions)
+    @ColumnInfo(name = "image_renditions", defaultValue = "0")
+    private int imageRenditions;
+    
     @ColumnInfo(name = "created_at")
     private long createdAt;
     
@@ -45,6 +51,10 @@ public class Workout {
     @ColumnInfo(name = "is_completed")
     private boolean isCompleted;
     
+    // See ContentHash; null until computed
+    @ColumnInfo(name = "content_hash")
+    private String contentHash;
+    
     // Constructor
     public Workout(int userId, @NonNull String workoutName, String description, String imagePath) {
         this.userId = userId;
@@ -61,6 +71,18 @@ public class Workout {
     public Workout(int userId, @NonNull String workoutName, String description) {
         this(userId, workoutName, description, null);
     }
+
+    // Copy constructor (used to change a workout that is already shown in a list)
+    @Ignore
+    public Workout(@NonNull Workout other) {
+        this(other.userId, other.workoutName, other.description, other.imagePath);
+        this.workoutId = other.workoutId;
+        this.imageRenditions = other.imageRenditions;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.isCompleted = other.isCompleted;
+        this.contentHash = other.contentHash;
+    }
     
     // Getters and Setters
     public int getWorkoutId() {
@@ -104,6 +126,14 @@ public class Workout {
         this.imagePath = imagePath;
     }
     
+    public int getImageRenditions() {
+        return imageRenditions;
+    }
+    
+    public void setImageRenditions(int imageRenditions) {
+        this.imageRenditions = imageRenditions;
+    }
+    
     public long getCreatedAt() {
         return createdAt;
     }
@@ -127,4 +157,12 @@ public class Workout {
     public void setCompleted(boolean completed) {
         isCompleted = completed;
     }
+    
+    public String getContentHash() {
+        return contentHash;
+    }
+    
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
 }
@@ -0,0 +1,74 @@
+package com.fitlife.app.database.entities;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Completion event: one row each time a workout becomes completed, at most one per local day
+ * Rows are written by a trigger on workouts and are never changed, so history survives
+ * resetting or deleting workouts. The workout_id is kept for reference only.
+ */
+@Entity(tableName = "workout_completions",
+        foreignKeys = @ForeignKey(entity = User.class,
+                parentColumns = "user_id",
+                childColumns = "user_id",
+                onDelete = ForeignKey.CASCADE),
+        indices = {@Index({"user_id", "completed_at"})})
+public class WorkoutCompletion {
+    
+    @PrimaryKey(autoGenerate = true)
+    @ColumnInfo(name = "completion_id")
+    private int completionId;
+    
+    @ColumnInfo(name = "workout_id")
+    private int workoutId;
+    
+    @ColumnInfo(name = "user_id")
+    private int userId;
+    
+    @ColumnInfo(name = "completed_at")
+    private long completedAt;
+    
+    // Constructor
+    public WorkoutCompletion(int workoutId, int userId, long completedAt) {
+        this.workoutId = workoutId;
+        this.userId = userId;
+        this.completedAt = completedAt;
+    }
+    
+    // Getters and Setters
+    public int getCompletionId() {
+        return completionId;
+    }
+    
+    public void setCompletionId(int completionId) {
+        this.completionId = completionId;
+    }
+    
+    public int getWorkoutId() {
+        return workoutId;
+    }
+    
+    public void setWorkoutId(int workoutId) {
+        this.workoutId = workoutId;
+    }
+    
+    public int getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+    
+    public long getCompletedAt() {
+        return completedAt;
+    }
+    
+    public void setCompletedAt(long completedAt) {
+        this.completedAt = completedAt;
+    }
+}
@@ -0,0 +1,38 @@
+package com.fitlife.app.database.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Full-text index over workout names and descriptions
+ * External content table: the text lives only in workouts, and Room keeps the
+ * index in sync with triggers. Its docid is the workout_id.
+ */
+@Fts4(contentEntity = Workout.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "workouts_fts")
+public class WorkoutFts {
+    
+    @ColumnInfo(name = "workout_name")
+    @NonNull
+    private String workoutName;
+    
+    @ColumnInfo(name = "description")
+    private String description;
+    
+    public WorkoutFts(@NonNull String workoutName, String description) {
+        this.workoutName = workoutName;
+        this.description = description;
+    }
+    
+    @NonNull
+    public String getWorkoutName() {
+        return workoutName;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,79 @@
+package com.fitlife.app.gestures;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ItemTouchHelper;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Drag-and-drop callback for reordering the items of one adapter
+ * Items are picked up with a long press. The list may be a ConcatAdapter; only items of
+ * the given adapter can be dragged, and only over each other.
+ */
+public abstract class DragReorderCallback extends ItemTouchHelper.SimpleCallback {
+
+    private final RecyclerView.Adapter<?> adapter;
+    private boolean moved;
+
+    public DragReorderCallback(RecyclerView.Adapter<?> adapter) {
+        super(ItemTouchHelper.UP | ItemTouchHelper.DOWN, 0);
+        this.adapter = adapter;
+    }
+
+    @Override
+    public int getDragDirs(@NonNull RecyclerView recyclerView,
+                           @NonNull RecyclerView.ViewHolder viewHolder) {
+        return viewHolder.getBindingAdapter() == adapter
+            ? super.getDragDirs(recyclerView, viewHolder) : 0;
+    }
+
+    @Override
+    public boolean canDropOver(@NonNull RecyclerView recyclerView,
+                               @NonNull RecyclerView.ViewHolder current,
+                               @NonNull RecyclerView.ViewHolder target) {
+        return target.getBindingAdapter() == adapter;
+    }
+
+    @Override
+    public boolean onMove(@NonNull RecyclerView recyclerView,
+                          @NonNull RecyclerView.ViewHolder viewHolder,
+                          @NonNull RecyclerView.ViewHolder target) {
+        // Positions within the item's own adapter
+        int from = viewHolder.getBindingAdapterPosition();
+        int to = target.getBindingAdapterPosition();
+        if (from == RecyclerView.NO_POSITION || to == RecyclerView.NO_POSITION) {
+            return false;
+        }
+        moved = true;
+        onItemMoved(from, to);
+        return true;
+    }
+
+    @Override
+    public void onSwiped(@NonNull RecyclerView.ViewHolder viewHolder, int direction) {
+        // Swiping is not enabled
+    }
+
+    @Override
+    public void clearView(@NonNull RecyclerView recyclerView,
+                          @NonNull RecyclerView.ViewHolder viewHolder) {
+        super.clearView(recyclerView, viewHolder);
+        if (moved) {
+            moved = false;
+            onDragFinished();
+        }
+    }
+
+    /**
+     * Called for every step while an item is dragged over another
+     * @param from Current position of the dragged item within its adapter
+     * @param to Position it moves to
+     */
+    public abstract void onItemMoved(int from, int to);
+
+    /**
+     * Called once when an item that was moved is dropped
+     * Screens that save right away write the new order here.
+     */
+    public void onDragFinished() {
+    }
+}
@@ -36,9 +36,16 @@ public abstract class SwipeGestureCallback extends ItemTouchHelper.SimpleCallbac
         return false; // We don't support drag-and-drop
     }
     
+    @Override
+    public int getSwipeDirs(@NonNull RecyclerView recyclerView,
+                            @NonNull RecyclerView.ViewHolder viewHolder) {
+        return canSwipe(viewHolder) ? super.getSwipeDirs(recyclerView, viewHolder) : 0;
+    }
+    
     @Override
     public void onSwiped(@NonNull RecyclerView.ViewHolder viewHolder, int direction) {
-        int position = viewHolder.getAdapterPosition();
+        // Position within the item's own adapter (the list may be a ConcatAdapter)
+        int position = viewHolder.getBindingAdapterPosition();
         
         if (direction == ItemTouchHelper.RIGHT) {
             // Swipe right - mark as complete
@@ -128,15 +135,24 @@ public abstract class SwipeGestureCallback extends ItemTouchHelper.SimpleCallbac
         }
     }
     
+    /**
+     * Check if an item can be swiped; lists with header sections override this
+     * @param viewHolder Item view holder
+     * @return true to allow swiping
+     */
+    public boolean canSwipe(RecyclerView.ViewHolder viewHolder) {
+        return true;
+    }
+    
     /**
      * Called when user swipes right (mark complete)
-     * @param position Position of the item
+     * @param position Position of the item within its adapter
      */
     public abstract void onSwipeRight(int position);
     
     /**
      * Called when user swipes left (delete)
-     * @param position Position of the item
+     * @param position Position of the item within its adapter
      */
     public abstract void onSwipeLeft(int position);
 }
@@ -0,0 +1,17 @@
+package com.fitlife.app.models;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * Projection of one completion rollup bucket
+ * Filled from completion_rollups by CompletionDao
+ */
+public class CompletionBucket {
+
+    // First local date of the bucket (yyyy-MM-dd)
+    @ColumnInfo(name = "bucket_start")
+    public String bucketStart;
+
+    @ColumnInfo(name = "completed_count")
+    public int completedCount;
+}
@@ -0,0 +1,22 @@
+package com.fitlife.app.models;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * Projection holding the dashboard statistics for a user
+ * Filled by a single aggregate query in WorkoutDao
+ */
+public class DashboardStats {
+
+    @ColumnInfo(name = "total_workouts")
+    public int totalWorkouts;
+
+    @ColumnInfo(name = "completed_workouts")
+    public int completedWorkouts;
+
+    @ColumnInfo(name = "completed_this_week")
+    public int completedThisWeek;
+
+    @ColumnInfo(name = "equipment_count")
+    public int equipmentCount;
+}
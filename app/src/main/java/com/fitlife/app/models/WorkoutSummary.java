@@ -0,0 +1,43 @@
+package com.fitlife.app.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Embedded;
+
+import com.fitlife.app.database.entities.Workout;
+
+/**
+ * Model class representing a Workout with its exercise counts
+ * Filled by an aggregate query, so a whole page of the workout list
+ * gets its counts without one query per row
+ */
+public class WorkoutSummary {
+    
+    @Embedded
+    public Workout workout;
+    
+    @ColumnInfo(name = "exercise_count")
+    public int exerciseCount;
+    
+    @ColumnInfo(name = "completed_exercise_count")
+    public int completedExerciseCount;
+    
+    /**
+     * Copy this summary with a different workout completion state
+     * Items shown in a list must not be mutated, so changes are made on a copy.
+     */
+    public WorkoutSummary withCompleted(boolean isCompleted) {
+        WorkoutSummary copy = new WorkoutSummary();
+        copy.workout = new Workout(workout);
+        copy.workout.setCompleted(isCompleted);
+        copy.exerciseCount = exerciseCount;
+        copy.completedExerciseCount = completedExerciseCount;
+        return copy;
+    }
+    
+    /**
+     * Get completion percentage (0-100)
+     */
+    public int getCompletionPercentage() {
+        return WorkoutWithExercises.getCompletionPercentage(completedExerciseCount, exerciseCount);
+    }
+}
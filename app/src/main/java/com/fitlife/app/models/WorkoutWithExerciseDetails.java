@@ -0,0 +1,84 @@
+package com.fitlife.app.models;
+
+import androidx.room.Embedded;
+import androidx.room.Relation;
+
+import com.fitlife.app.database.entities.Equipment;
+import com.fitlife.app.database.entities.Exercise;
+import com.fitlife.app.database.entities.Workout;
+import com.fitlife.app.utils.ContentHash;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Model class representing a Workout with its Exercises and their Equipment
+ * Room loads each level with one batched IN (...) query, so the whole graph
+ * takes three statements no matter how many exercises the workout has.
+ * Query it from a @Transaction method so all levels come from the same snapshot.
+ */
+public class WorkoutWithExerciseDetails {
+    
+    @Embedded
+    public Workout workout;
+    
+    @Relation(
+        entity = Exercise.class,
+        parentColumn = "workout_id",
+        entityColumn = "workout_id"
+    )
+    public List<ExerciseWithEquipment> exercises;
+    
+    /**
+     * Get the exercises with their equipment in display order
+     * Relations are returned in no particular order, so they are sorted by order index.
+     */
+    public List<ExerciseWithEquipment> getSortedExercises() {
+        if (exercises == null) return Collections.emptyList();
+        List<ExerciseWithEquipment> sorted = new ArrayList<>(exercises);
+        Collections.sort(sorted, (a, b) -> {
+            int byOrder = Integer.compare(a.exercise.getOrderIndex(), b.exercise.getOrderIndex());
+            return byOrder != 0 ? byOrder
+                : Integer.compare(a.exercise.getExerciseId(), b.exercise.getExerciseId());
+        });
+        return sorted;
+    }
+    
+    /**
+     * Compute the content hash of the workout as loaded
+     */
+    public String computeContentHash() {
+        ContentHash hash = new ContentHash(workout.getWorkoutName(), workout.getDescription(),
+            workout.getCreatedAt());
+        if (exercises != null) {
+            for (ExerciseWithEquipment item : exercises) {
+                Exercise exercise = item.exercise;
+                hash.addExercise(exercise.getExerciseName(), exercise.getSets(), exercise.getReps(),
+                    exercise.getInstructions());
+                if (item.equipment == null) continue;
+                for (Equipment equipment : item.equipment) {
+                    hash.addEquipment(equipment.getEquipmentName());
+                }
+            }
+        }
+        return hash.build();
+    }
+    
+    /**
+     * Get the distinct equipment names used by all exercises, sorted by name
+     */
+    public List<String> getUniqueEquipmentNames() {
+        TreeSet<String> names = new TreeSet<>();
+        if (exercises != null) {
+            for (ExerciseWithEquipment item : exercises) {
+                if (item.equipment == null) continue;
+                for (Equipment equipment : item.equipment) {
+                    names.add(equipment.getEquipmentName());
+                }
+            }
+        }
+        return new ArrayList<>(names);
+    }
+}
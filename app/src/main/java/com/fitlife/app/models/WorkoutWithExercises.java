@@ -61,7 +61,17 @@ public class WorkoutWithExercises {
      * Get completion percentage (0-100)
      */
     public int getCompletionPercentage() {
-        if (exercises == null || exercises.isEmpty()) return 0;
-        return (int) ((getCompletedExerciseCount() * 100.0) / getExerciseCount());
+        return getCompletionPercentage(getCompletedExerciseCount(), getExerciseCount());
+    }
+    
+    /**
+     * Get completion percentage (0-100) from exercise counts
+     * Shared with WorkoutSummary, which gets the counts from an aggregate query
+     * @param completedCount Number of completed exercises
+     * @param totalCount Total number of exercises
+     */
+    public static int getCompletionPercentage(int completedCount, int totalCount) {
+        if (totalCount <= 0) return 0;
+        return (int) ((completedCount * 100.0) / totalCount);
     }
 }
@@ -0,0 +1,145 @@
+package com.fitlife.app.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * App-wide executors for background work
+ * Disk IO (database, files) and CPU work (image decoding) run on separate bounded
+ * pools so a burst of image work cannot delay database reads. Long-running file jobs
+ * (backups, cache trims) get their own thread, so they never occupy the disk IO pool
+ * that Room's LiveData queries and the screens' short reads and writes share. Pool
+ * threads run at background priority and are released after a short idle period.
+ */
+public class AppExecutors {
+
+    private static final int DISK_IO_THREADS = 3;
+    private static final int COMPUTATION_THREADS =
+        Math.max(2, Math.min(Runtime.getRuntime().availableProcessors() - 1, 4));
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static AppExecutors instance;
+
+    private final ThreadPoolExecutor diskIO;
+    private final ThreadPoolExecutor computation;
+    private final ThreadPoolExecutor journalIO;
+    private final ThreadPoolExecutor bulkIO;
+    private final MainThreadExecutor mainThread;
+
+    private AppExecutors() {
+        diskIO = newPool(DISK_IO_THREADS, "fitlife-io");
+        computation = newPool(COMPUTATION_THREADS, "fitlife-cpu");
+        journalIO = newPool(1, "fitlife-journal");
+        bulkIO = newPool(1, "fitlife-bulk");
+        mainThread = new MainThreadExecutor();
+    }
+
+    /**
+     * Get the singleton instance
+     * @return AppExecutors instance
+     */
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    /**
+     * Executor for short database and file work
+     * Anything that may take seconds or more belongs on bulkIO.
+     */
+    public Executor diskIO() {
+        return diskIO;
+    }
+
+    /**
+     * Executor for CPU-bound work such as bitmap decoding and scaling
+     */
+    public Executor computation() {
+        return computation;
+    }
+
+    /**
+     * Single thread for small file appends that must stay in order, such as the
+     * completion journal; nothing long-running may be queued here
+     */
+    public Executor journalIO() {
+        return journalIO;
+    }
+
+    /**
+     * Single thread for long-running database and file jobs such as exports, imports
+     * and cache trims; they queue behind each other
+     */
+    public Executor bulkIO() {
+        return bulkIO;
+    }
+
+    /**
+     * Executor that runs on the main thread
+     */
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    /**
+     * Run an action on the main thread unless the owner has been destroyed by then
+     * Use this to deliver background results to an activity instead of runOnUiThread.
+     * @param owner Lifecycle owner (activity) the result belongs to
+     * @param action Action to run
+     */
+    public void postToMain(LifecycleOwner owner, Runnable action) {
+        mainThread.execute(() -> {
+            if (owner.getLifecycle().getCurrentState() != Lifecycle.State.DESTROYED) {
+                action.run();
+            }
+        });
+    }
+
+    private static ThreadPoolExecutor newPool(int threads, String name) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), new BackgroundThreadFactory(name));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static class BackgroundThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger(1);
+
+        BackgroundThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            return new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, name + "-" + count.getAndIncrement());
+        }
+    }
+
+    private static class MainThreadExecutor implements Executor {
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            handler.post(command);
+        }
+    }
+}
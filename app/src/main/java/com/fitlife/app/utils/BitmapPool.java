@@ -0,0 +1,182 @@
+package com.fitlife.app.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pool of mutable bitmaps that are no longer shown, for decoding into with inBitmap
+ * Bitmaps are bucketed by allocation size. A request is served from the smallest bucket
+ * that fits, reconfigured to the requested dimensions, as long as that does not waste
+ * more than MAX_SIZE_MULTIPLE times the memory needed. The least recently pooled
+ * bitmaps are dropped once the pool exceeds its size limit. Thread-safe.
+ */
+public class BitmapPool {
+
+    private static final int MAX_SIZE_MULTIPLE = 4;
+
+    private static BitmapPool instance;
+
+    private final long maxBytes;
+    private final TreeMap<Integer, ArrayDeque<Bitmap>> buckets = new TreeMap<>();
+    // Pooled bitmaps, oldest first
+    private final LinkedHashSet<Bitmap> order = new LinkedHashSet<>();
+    private long bytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get the singleton instance
+     * @return BitmapPool instance
+     */
+    public static synchronized BitmapPool getInstance() {
+        if (instance == null) {
+            // A sixteenth of the heap, half of what the image memory cache may use
+            instance = new BitmapPool(Runtime.getRuntime().maxMemory() / 16);
+        }
+        return instance;
+    }
+
+    /**
+     * Take a bitmap out of the pool, reconfigured to a size and config
+     * Its pixels are undefined; the caller must draw or decode over all of them.
+     * @return Pooled bitmap, or null if none fits (counted as a miss)
+     */
+    public synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+        int needed = width * height * bytesPerPixel(config);
+        Map.Entry<Integer, ArrayDeque<Bitmap>> bucket = buckets.ceilingEntry(needed);
+        if (bucket == null || bucket.getKey() > (long) needed * MAX_SIZE_MULTIPLE) {
+            misses++;
+            return null;
+        }
+
+        Bitmap bitmap = bucket.getValue().pollLast();
+        if (bucket.getValue().isEmpty()) {
+            buckets.remove(bucket.getKey());
+        }
+        order.remove(bitmap);
+        bytes -= bitmap.getAllocationByteCount();
+        hits++;
+
+        bitmap.reconfigure(width, height, config);
+        return bitmap;
+    }
+
+    /**
+     * Return a bitmap that is no longer drawn anywhere
+     * Bitmaps that cannot be reused are recycled instead.
+     */
+    public synchronized void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        int size = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || size > maxBytes / 2 || !order.add(bitmap)) {
+            bitmap.recycle();
+            return;
+        }
+
+        ArrayDeque<Bitmap> bucket = buckets.get(size);
+        if (bucket == null) {
+            bucket = new ArrayDeque<>();
+            buckets.put(size, bucket);
+        }
+        bucket.addLast(bitmap);
+        bytes += size;
+        trimTo(maxBytes);
+    }
+
+    /**
+     * Decode a file into a pooled bitmap when one fits, falling back to a new allocation
+     * @param path File to decode
+     * @param options Options with outWidth and outHeight from a bounds decode and
+     *     inSampleSize set
+     * @return Decoded bitmap or null if failed
+     */
+    public Bitmap decodeFile(String path, BitmapFactory.Options options) {
+        prepareForDecode(options);
+        try {
+            Bitmap bitmap = BitmapFactory.decodeFile(path, options);
+            if (bitmap == null) {
+                put(options.inBitmap);
+            }
+            return bitmap;
+        } catch (IllegalArgumentException e) {
+            // The decoder did not accept the pooled bitmap after all
+            put(options.inBitmap);
+            options.inBitmap = null;
+            return BitmapFactory.decodeFile(path, options);
+        }
+    }
+
+    /**
+     * Set inBitmap to a pooled bitmap large enough for the sampled image, if any
+     * @param options Options with outWidth and outHeight from a bounds decode and
+     *     inSampleSize set
+     */
+    public void prepareForDecode(BitmapFactory.Options options) {
+        int sample = Math.max(1, options.inSampleSize);
+        int width = (options.outWidth + sample - 1) / sample;
+        int height = (options.outHeight + sample - 1) / sample;
+        options.inMutable = true;
+        options.inBitmap = width > 0 && height > 0 ? get(width, height, Bitmap.Config.ARGB_8888) : null;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    public synchronized long getSizeBytes() {
+        return bytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "BitmapPool[hits=" + hits + ", misses=" + misses + ", evictions=" + evictions +
+               ", bytes=" + bytes + "/" + maxBytes + "]";
+    }
+
+    private void trimTo(long limit) {
+        Iterator<Bitmap> oldest = order.iterator();
+        while (bytes > limit && oldest.hasNext()) {
+            Bitmap bitmap = oldest.next();
+            oldest.remove();
+            int size = bitmap.getAllocationByteCount();
+            ArrayDeque<Bitmap> bucket = buckets.get(size);
+            bucket.remove(bitmap);
+            if (bucket.isEmpty()) {
+                buckets.remove(size);
+            }
+            bytes -= size;
+            evictions++;
+            bitmap.recycle();
+        }
+    }
+
+    private static int bytesPerPixel(Bitmap.Config config) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && config == Bitmap.Config.RGBA_F16) return 8;
+        if (config == Bitmap.Config.ALPHA_8) return 1;
+        if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) return 2;
+        return 4;
+    }
+}
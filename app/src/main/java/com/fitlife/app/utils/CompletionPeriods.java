@@ -0,0 +1,105 @@
+package com.fitlife.app.utils;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Bucket keys for completion rollups, computed in local time
+ * Keys are the bucket's first date as yyyy-MM-dd, matching what the rollup triggers
+ * store via SQLite's date(..., 'localtime'). Weeks start on Monday.
+ */
+public final class CompletionPeriods {
+    
+    private static final String KEY_FORMAT = "yyyy-MM-dd";
+    
+    private CompletionPeriods() {
+    }
+    
+    /**
+     * Key of the day containing the given time
+     */
+    public static String dayKey(long timeMillis) {
+        return format(startOfDay(timeMillis));
+    }
+    
+    /**
+     * Key of the (Monday-based) week containing the given time
+     */
+    public static String weekKey(long timeMillis) {
+        Calendar calendar = startOfDay(timeMillis);
+        // Monday = 0 ... Sunday = 6
+        int daysSinceMonday = (calendar.get(Calendar.DAY_OF_WEEK) + 5) % 7;
+        calendar.add(Calendar.DAY_OF_MONTH, -daysSinceMonday);
+        return format(calendar);
+    }
+    
+    /**
+     * Key of the month containing the given time
+     */
+    public static String monthKey(long timeMillis) {
+        Calendar calendar = startOfDay(timeMillis);
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        return format(calendar);
+    }
+    
+    /**
+     * Key of the week a number of weeks before the one containing the given time
+     */
+    public static String weekKeyBefore(long timeMillis, int weeks) {
+        Calendar calendar = startOfDay(timeMillis);
+        calendar.add(Calendar.WEEK_OF_YEAR, -weeks);
+        return weekKey(calendar.getTimeInMillis());
+    }
+    
+    /**
+     * Count consecutive days with a completion, ending today
+     * A streak that ended yesterday still counts, since today is not over yet.
+     * @param activeDaysDesc Day keys with at least one completion, newest first
+     * @param nowMillis Current time
+     * @return Streak length in days
+     */
+    public static int countStreak(List<String> activeDaysDesc, long nowMillis) {
+        Calendar expected = startOfDay(nowMillis);
+        boolean skippedToday = false;
+        
+        int streak = 0;
+        for (String day : activeDaysDesc) {
+            int cmp = day.compareTo(format(expected));
+            if (cmp > 0) {
+                // Later than today (clock changes); ignore
+                continue;
+            }
+            if (cmp < 0 && streak == 0 && !skippedToday) {
+                // Nothing today yet; the streak may still end yesterday
+                skippedToday = true;
+                expected.add(Calendar.DAY_OF_MONTH, -1);
+                cmp = day.compareTo(format(expected));
+            }
+            if (cmp != 0) {
+                break;
+            }
+            streak++;
+            expected.add(Calendar.DAY_OF_MONTH, -1);
+        }
+        return streak;
+    }
+    
+    private static Calendar startOfDay(long timeMillis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timeMillis);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar;
+    }
+    
+    private static String format(Calendar calendar) {
+        // SQLite writes ASCII digits regardless of the device locale
+        SimpleDateFormat format = new SimpleDateFormat(KEY_FORMAT, Locale.US);
+        format.setTimeZone(calendar.getTimeZone());
+        return format.format(calendar.getTime());
+    }
+}
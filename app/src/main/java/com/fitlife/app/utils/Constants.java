@@ -14,7 +14,16 @@ public class Constants {
     
     // Database
     public static final String DATABASE_NAME = "fitlife_database";
-    public static final int DATABASE_VERSION = 1;
+    public static final int DATABASE_VERSION = 10;
+    
+    // Paging
+    public static final int WORKOUT_PAGE_SIZE = 20;
+    public static final int WORKOUT_PREFETCH_DISTANCE = 5;
+    public static final int WORKOUT_MAX_LOADED_ROWS = 8 * WORKOUT_PAGE_SIZE;
+    
+    // Search
+    public static final long SEARCH_DEBOUNCE_MS = 300;
+    public static final int SEARCH_RESULT_LIMIT = 50;
     
     // Intent Extras
     public static final String EXTRA_WORKOUT_ID = "workout_id";
@@ -34,12 +43,27 @@ public class Constants {
     public static final int REQUEST_SMS_PERMISSION = REQUEST_CODE_SMS_PERMISSION;
     public static final int REQUEST_CODE_STORAGE_PERMISSION = 1006;
     public static final int REQUEST_CODE_CONTACTS_PERMISSION = 1007;
+    public static final int REQUEST_CODE_EXPORT_DOCUMENT = 1008;
+    public static final int REQUEST_CODE_IMPORT_DOCUMENT = 1009;
     
     // Image Storage
     public static final String IMAGE_DIRECTORY = "workout_images";
     public static final int IMAGE_COMPRESSION_QUALITY = 85;
     public static final int MAX_IMAGE_WIDTH = 1024;
     public static final int MAX_IMAGE_HEIGHT = 1024;
+    public static final String THUMBNAIL_DIRECTORY = "thumbnails";
+    // Unreferenced image files younger than this are kept: a save may not have
+    // inserted its workout yet
+    public static final long IMAGE_GRACE_PERIOD_MS = 10 * 60 * 1000L;
+    
+    // Write-behind journal for completion toggles
+    public static final String COMPLETION_JOURNAL_FILE = "completion_journal";
+    
+    // Snapshot of the database written for Android backup (see WorkoutSnapshot)
+    public static final String BACKUP_SNAPSHOT_FILE = "backup.snapshot";
+    
+    // Import
+    public static final int IMPORT_CHUNK_SIZE = 100;
     
     // Validation
     public static final int MIN_PASSWORD_LENGTH = 6;
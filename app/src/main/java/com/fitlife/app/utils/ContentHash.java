@@ -0,0 +1,126 @@
+package com.fitlife.app.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Content hash of a workout, used to recognise a workout that is imported again
+ * Covers the workout's name, description and creation time and its exercises with their
+ * equipment. Completion state, timestamps of later edits and the exercise order are left
+ * out, so ticking off or reordering exercises does not change the hash.
+ */
+public final class ContentHash {
+
+    private final List<String> exerciseDigests = new ArrayList<>();
+    private final String workoutName;
+    private final String description;
+    private final long createdAt;
+
+    private List<String> equipment;
+    private MessageDigest exercise;
+
+    /**
+     * Start hashing a workout
+     * @param workoutName Workout name
+     * @param description Description, may be null
+     * @param createdAt Creation time in millis
+     */
+    public ContentHash(String workoutName, String description, long createdAt) {
+        this.workoutName = workoutName;
+        this.description = description;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Add an exercise; equipment added next belongs to it
+     */
+    public ContentHash addExercise(String name, int sets, int reps, String instructions) {
+        finishExercise();
+        exercise = newDigest();
+        update(exercise, name);
+        update(exercise, String.valueOf(sets));
+        update(exercise, String.valueOf(reps));
+        update(exercise, instructions);
+        equipment = new ArrayList<>();
+        return this;
+    }
+
+    /**
+     * Add an equipment item to the last added exercise
+     */
+    public ContentHash addEquipment(String name) {
+        if (equipment == null) {
+            throw new IllegalStateException("addEquipment() before addExercise()");
+        }
+        equipment.add(name);
+        return this;
+    }
+
+    /**
+     * Finish and get the hash as lowercase hex
+     */
+    public String build() {
+        finishExercise();
+        MessageDigest digest = newDigest();
+        update(digest, workoutName);
+        update(digest, description);
+        update(digest, String.valueOf(createdAt));
+        Collections.sort(exerciseDigests);
+        for (String exerciseDigest : exerciseDigests) {
+            update(digest, exerciseDigest);
+        }
+        return toHex(digest.digest());
+    }
+
+    private void finishExercise() {
+        if (exercise == null) return;
+        Collections.sort(equipment);
+        for (String name : equipment) {
+            update(exercise, name);
+        }
+        exerciseDigests.add(toHex(exercise.digest()));
+        exercise = null;
+        equipment = null;
+    }
+
+    /**
+     * Length-prefixed, so ("ab", "c") and ("a", "bc") hash differently; null differs from ""
+     */
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update(new byte[]{
+            (byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+            (byte) (bytes.length >>> 8), (byte) bytes.length});
+        digest.update(bytes);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java and Android runtime provides SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Lowercase hex of a digest
+     */
+    public static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -109,7 +109,8 @@ public class ExerciseDialogHelper {
             // Create or update exercise
             Exercise exercise;
             if (existingExercise != null) {
-                exercise = existingExercise;
+                // Edit a copy so lists holding the original can diff against it
+                exercise = new Exercise(existingExercise);
                 exercise.setExerciseName(exerciseName);
                 exercise.setSets(sets);
                 exercise.setReps(reps);
@@ -0,0 +1,196 @@
+package com.fitlife.app.utils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Dimensions and EXIF orientation read from the first bytes of a JPEG or PNG stream
+ * Only the markers up to the JPEG frame header are read, so the caller can mark the
+ * stream, read the header, reset and decode the same stream. Other formats come back
+ * with unknown (0) dimensions.
+ */
+public final class ImageHeader {
+
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    // Width and height as stored, before rotation; 0 if unknown
+    public final int width;
+    public final int height;
+    // Clockwise rotation to apply, then a horizontal flip for mirrored orientations
+    public final int rotation;
+    public final boolean flipped;
+
+    private ImageHeader(int width, int height, int orientation) {
+        this.width = width;
+        this.height = height;
+        switch (orientation) {
+            case 3: case 4: rotation = 180; break;
+            case 5: case 6: rotation = 90; break;
+            case 7: case 8: rotation = 270; break;
+            default: rotation = 0; break;
+        }
+        flipped = orientation == 2 || orientation == 4 || orientation == 5 || orientation == 7;
+    }
+
+    /**
+     * Whether the image is upright as stored
+     */
+    public boolean isNormal() {
+        return rotation == 0 && !flipped;
+    }
+
+    /**
+     * Read the header from the current position of a stream
+     * @param in Stream at the start of the image
+     * @return Header, with 0 dimensions if the format is not recognised
+     * @throws IOException If the stream cannot be read or ends inside the header
+     */
+    public static ImageHeader read(InputStream in) throws IOException {
+        int first = in.read();
+        int second = in.read();
+        if (first == 0xFF && second == 0xD8) {
+            return readJpeg(in);
+        }
+        if (first == 0x89 && second == 'P') {
+            return readPng(in);
+        }
+        return new ImageHeader(0, 0, 1);
+    }
+
+    private static ImageHeader readJpeg(InputStream in) throws IOException {
+        int orientation = 1;
+        while (true) {
+            if (readByte(in) != 0xFF) {
+                return new ImageHeader(0, 0, orientation);
+            }
+            int marker = readByte(in);
+            while (marker == 0xFF) {
+                marker = readByte(in);
+            }
+            // Start of scan or end of image before any frame header
+            if (marker == 0xDA || marker == 0xD9) {
+                return new ImageHeader(0, 0, orientation);
+            }
+            // Markers without a payload
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                continue;
+            }
+
+            int length = readUnsignedShort(in) - 2;
+            if (length < 0) {
+                return new ImageHeader(0, 0, orientation);
+            }
+            if (isStartOfFrame(marker)) {
+                skip(in, 1);
+                int height = readUnsignedShort(in);
+                int width = readUnsignedShort(in);
+                return new ImageHeader(width, height, orientation);
+            }
+            if (marker == 0xE1 && length >= 14) {
+                byte[] segment = new byte[length];
+                readFully(in, segment);
+                if (segment[0] == 'E' && segment[1] == 'x' && segment[2] == 'i' && segment[3] == 'f'
+                        && segment[4] == 0 && segment[5] == 0) {
+                    orientation = readExifOrientation(segment, 6);
+                }
+            } else {
+                skip(in, length);
+            }
+        }
+    }
+
+    /**
+     * SOF0-SOF15, except DHT (C4), JPG (C8) and DAC (CC)
+     */
+    private static boolean isStartOfFrame(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    /**
+     * Orientation tag from IFD0 of the TIFF structure at offset, or 1 (normal)
+     */
+    private static int readExifOrientation(byte[] data, int tiff) {
+        boolean bigEndian;
+        if (data[tiff] == 'M' && data[tiff + 1] == 'M') {
+            bigEndian = true;
+        } else if (data[tiff] == 'I' && data[tiff + 1] == 'I') {
+            bigEndian = false;
+        } else {
+            return 1;
+        }
+
+        long ifd = tiff + readInt(data, tiff + 4, bigEndian);
+        if (ifd < tiff || ifd + 2 > data.length) {
+            return 1;
+        }
+        int entries = readShort(data, (int) ifd, bigEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > data.length) break;
+            if (readShort(data, entry, bigEndian) == EXIF_ORIENTATION_TAG) {
+                int orientation = readShort(data, entry + 8, bigEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static ImageHeader readPng(InputStream in) throws IOException {
+        // Rest of the signature, IHDR length and type
+        skip(in, 6 + 4 + 4);
+        int width = readInt(in);
+        int height = readInt(in);
+        return new ImageHeader(Math.max(width, 0), Math.max(height, 0), 1);
+    }
+
+    private static int readShort(byte[] data, int offset, boolean bigEndian) {
+        int a = data[offset] & 0xFF;
+        int b = data[offset + 1] & 0xFF;
+        return bigEndian ? (a << 8) | b : (b << 8) | a;
+    }
+
+    private static long readInt(byte[] data, int offset, boolean bigEndian) {
+        long high = readShort(data, offset, bigEndian);
+        long low = readShort(data, offset + 2, bigEndian);
+        return bigEndian ? (high << 16) | low : (low << 16) | high;
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Image header truncated");
+        }
+        return b;
+    }
+
+    private static int readUnsignedShort(InputStream in) throws IOException {
+        return (readByte(in) << 8) | readByte(in);
+    }
+
+    private static int readInt(InputStream in) throws IOException {
+        return (readUnsignedShort(in) << 16) | readUnsignedShort(in);
+    }
+
+    private static void readFully(InputStream in, byte[] buffer) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            int read = in.read(buffer, offset, buffer.length - offset);
+            if (read < 0) {
+                throw new EOFException("Image header truncated");
+            }
+            offset += read;
+        }
+    }
+
+    private static void skip(InputStream in, long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                readByte(in);
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+}
@@ -3,48 +3,30 @@ package com.fitlife.app.utils;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.ImageDecoder;
 import android.graphics.Matrix;
-import android.media.ExifInterface;
 import android.net.Uri;
+import android.os.Build;
+import android.widget.ImageView;
 
+import androidx.annotation.DrawableRes;
+import androidx.annotation.RequiresApi;
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
 /**
  * Image Helper utility for handling image operations
- * Includes saving, loading, compressing, and rotating images
+ * Includes loading, compressing, and rotating images; saving goes through ImageStore
  */
 public class ImageHelper {
     
-    /**
-     * Save bitmap to internal storage
-     * @param context Application context
-     * @param bitmap Bitmap to save
-     * @param workoutId Workout ID for filename
-     * @return Absolute path to saved image, or null if failed
-     */
-    public static String saveImageToInternalStorage(Context context, Bitmap bitmap, int workoutId) {
-        // Create directory if it doesn't exist
-        File directory = new File(context.getFilesDir(), Constants.IMAGE_DIRECTORY);
-        if (!directory.exists()) {
-            directory.mkdirs();
-        }
-        
-        // Generate unique filename
-        String filename = "workout_" + workoutId + "_" + System.currentTimeMillis() + ".jpg";
-        File file = new File(directory, filename);
-        
-        try (FileOutputStream fos = new FileOutputStream(file)) {
-            // Compress and save bitmap
-            bitmap.compress(Bitmap.CompressFormat.JPEG, Constants.IMAGE_COMPRESSION_QUALITY, fos);
-            return file.getAbsolutePath();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
+    private static final int STREAM_BUFFER_SIZE = 16 * 1024;
+    // Enough for EXIF with an embedded thumbnail and colour profiles before the frame header
+    private static final int HEADER_MARK_LIMIT = 256 * 1024;
     
     /**
      * Load bitmap from file path
@@ -61,11 +43,56 @@ public class ImageHelper {
             return null;
         }
         
-        return BitmapFactory.decodeFile(path);
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(path, options);
+        options.inJustDecodeBounds = false;
+        return BitmapPool.getInstance().decodeFile(path, options);
+    }
+    
+    /**
+     * Load an image into a view off the main thread
+     * The bitmap is decoded at the view's size and cached in memory and on disk.
+     * @param imageView Target view
+     * @param path Absolute path to image file (null shows the placeholder)
+     * @param placeholderResId Drawable shown while loading and on failure, or 0 to keep the current one
+     */
+    public static void loadImageAsync(ImageView imageView, String path, @DrawableRes int placeholderResId) {
+        loadImageAsync(imageView, path, 0, placeholderResId);
     }
     
     /**
-     * Delete image from storage
+     * Load a workout image into a view off the main thread, from the smallest
+     * rendition that covers the view
+     * @param imageView Target view
+     * @param path Absolute path to image file (null shows the placeholder)
+     * @param renditions Bitmask of renditions of the image (see ImageRenditions)
+     * @param placeholderResId Drawable shown while loading and on failure, or 0 to keep the current one
+     */
+    public static void loadImageAsync(ImageView imageView, String path, int renditions,
+                                      @DrawableRes int placeholderResId) {
+        ImageLoader.getInstance(imageView.getContext()).load(imageView, path, renditions, placeholderResId);
+    }
+    
+    /**
+     * Cancel a pending loadImageAsync for a view
+     * @param imageView Target view
+     */
+    public static void cancelImageLoad(ImageView imageView) {
+        ImageLoader.getInstance(imageView.getContext()).cancel(imageView);
+    }
+    
+    /**
+     * Cancel a pending loadImageAsync for a view and clear its image so the bitmap can
+     * be reused for other decodes (e.g. when its ViewHolder is recycled)
+     * @param imageView Target view
+     */
+    public static void releaseImage(ImageView imageView) {
+        ImageLoader.getInstance(imageView.getContext()).release(imageView);
+    }
+    
+    /**
+     * Delete image and its renditions from storage
      * @param path Absolute path to image file
      * @return true if deleted successfully
      */
@@ -74,6 +101,7 @@ public class ImageHelper {
             return false;
         }
         
+        ImageRenditions.delete(path);
         File file = new File(path);
         if (file.exists()) {
             return file.delete();
@@ -82,45 +110,179 @@ public class ImageHelper {
     }
     
     /**
-     * Load and resize bitmap from URI
+     * Load, orient and downscale a picked image off the main thread
+     * @param activity Activity the result is delivered to; dropped if it is destroyed first
+     * @param uri Image URI
+     * @param listener Called on the main thread with the bitmap, or null if it could not be loaded
+     */
+    public static void loadAndResizeBitmapAsync(AppCompatActivity activity, Uri uri,
+                                                OnImageLoadedListener listener) {
+        Context context = activity.getApplicationContext();
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.computation().execute(() -> {
+            Bitmap bitmap = loadAndResizeBitmap(context, uri);
+            executors.postToMain(activity, () -> listener.onImageLoaded(bitmap));
+        });
+    }
+    
+    /**
+     * Load bitmap from URI, upright and no larger than MAX_IMAGE_WIDTH x MAX_IMAGE_HEIGHT
+     * The URI is opened once, unless the header is too large to rewind over. Runs on a
+     * background thread.
      * @param context Application context
      * @param uri Image URI
      * @return Resized bitmap or null if failed
      */
     public static Bitmap loadAndResizeBitmap(Context context, Uri uri) {
+        return loadAndResizeBitmap(context, uri, true);
+    }
+    
+    private static Bitmap loadAndResizeBitmap(Context context, Uri uri, boolean reuseBitmap) {
         try {
-            InputStream inputStream = context.getContentResolver().openInputStream(uri);
-            if (inputStream == null) return null;
-            
-            // Decode with inJustDecodeBounds to get dimensions
-            BitmapFactory.Options options = new BitmapFactory.Options();
-            options.inJustDecodeBounds = true;
-            BitmapFactory.decodeStream(inputStream, null, options);
-            inputStream.close();
-            
-            // Calculate sample size
-            options.inSampleSize = calculateInSampleSize(options, 
-                Constants.MAX_IMAGE_WIDTH, Constants.MAX_IMAGE_HEIGHT);
-            
-            // Decode with sample size
-            options.inJustDecodeBounds = false;
-            inputStream = context.getContentResolver().openInputStream(uri);
-            Bitmap bitmap = BitmapFactory.decodeStream(inputStream, null, options);
-            inputStream.close();
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                return decodeWithImageDecoder(context, uri);
+            }
             
-            // Rotate if needed based on EXIF data
-            return rotateImageIfRequired(context, bitmap, uri);
+            InputStream inputStream = open(context, uri);
+            if (inputStream == null) return null;
             
+            try {
+                // Read the header, then rewind and decode the same stream
+                inputStream.mark(HEADER_MARK_LIMIT);
+                ImageHeader header = ImageHeader.read(inputStream);
+                inputStream = rewind(inputStream, context, uri);
+                
+                int width = header.width;
+                int height = header.height;
+                BitmapFactory.Options options = new BitmapFactory.Options();
+                if (width == 0 || height == 0) {
+                    // Not a JPEG or PNG; let the decoder read the bounds
+                    inputStream.mark(HEADER_MARK_LIMIT);
+                    options.inJustDecodeBounds = true;
+                    BitmapFactory.decodeStream(inputStream, null, options);
+                    options.inJustDecodeBounds = false;
+                    inputStream = rewind(inputStream, context, uri);
+                    width = options.outWidth;
+                    height = options.outHeight;
+                    if (width <= 0 || height <= 0) return null;
+                }
+                
+                // Sample down while the result still covers the final size, then let the
+                // decoder scale the rest, so the decoded bitmap already has the final size
+                float scale = fitScale(width, height, header.rotation);
+                options.inSampleSize = 1;
+                while (width / (options.inSampleSize * 2) >= width * scale
+                        && height / (options.inSampleSize * 2) >= height * scale) {
+                    options.inSampleSize *= 2;
+                }
+                setDecodeScale(options, width, height, scale);
+                
+                options.outWidth = width;
+                options.outHeight = height;
+                if (reuseBitmap) {
+                    BitmapPool.getInstance().prepareForDecode(options);
+                }
+                Bitmap bitmap;
+                try {
+                    bitmap = BitmapFactory.decodeStream(inputStream, null, options);
+                } catch (IllegalArgumentException e) {
+                    // The decoder did not accept the pooled bitmap; the stream is used up
+                    BitmapPool.getInstance().put(options.inBitmap);
+                    return loadAndResizeBitmap(context, uri, false);
+                }
+                if (bitmap == null) {
+                    BitmapPool.getInstance().put(options.inBitmap);
+                    return null;
+                }
+                // The decoder stamps inTargetDensity on the bitmap; draw it like any other
+                bitmap.setDensity(context.getResources().getDisplayMetrics().densityDpi);
+                return orientAndScale(bitmap, header);
+            } finally {
+                inputStream.close();
+            }
         } catch (IOException e) {
             e.printStackTrace();
             return null;
         }
     }
     
+    private static InputStream open(Context context, Uri uri) throws IOException {
+        InputStream raw = context.getContentResolver().openInputStream(uri);
+        return raw != null ? new BufferedInputStream(raw, STREAM_BUFFER_SIZE) : null;
+    }
+    
+    /**
+     * Rewind a stream to its mark, or reopen the URI when more than HEADER_MARK_LIMIT
+     * bytes were read since (e.g. metadata larger than the limit before the frame header)
+     * @return Stream at the start of the image; the given one is closed if replaced
+     */
+    private static InputStream rewind(InputStream stream, Context context, Uri uri) throws IOException {
+        try {
+            stream.reset();
+            return stream;
+        } catch (IOException e) {
+            stream.close();
+            InputStream reopened = open(context, uri);
+            if (reopened == null) {
+                throw new IOException("Cannot reopen " + uri, e);
+            }
+            return reopened;
+        }
+    }
+    
+    /**
+     * Decode with ImageDecoder, which applies the EXIF orientation and scales while decoding
+     */
+    @RequiresApi(Build.VERSION_CODES.P)
+    private static Bitmap decodeWithImageDecoder(Context context, Uri uri) throws IOException {
+        ImageDecoder.Source source = ImageDecoder.createSource(context.getContentResolver(), uri);
+        return ImageDecoder.decodeBitmap(source, (decoder, info, src) -> {
+            // Size is already upright
+            int width = info.getSize().getWidth();
+            int height = info.getSize().getHeight();
+            float scale = fitScale(width, height, 0);
+            if (scale < 1f) {
+                decoder.setTargetSize(Math.max(1, Math.round(width * scale)),
+                    Math.max(1, Math.round(height * scale)));
+            }
+            // Saving compresses the pixels, which hardware bitmaps do not allow
+            decoder.setAllocator(ImageDecoder.ALLOCATOR_SOFTWARE);
+        });
+    }
+    
+    /**
+     * Scale (at most 1) that fits an image into MAX_IMAGE_WIDTH x MAX_IMAGE_HEIGHT once rotated
+     */
+    private static float fitScale(int width, int height, int rotation) {
+        boolean sideways = rotation == 90 || rotation == 270;
+        int uprightWidth = sideways ? height : width;
+        int uprightHeight = sideways ? width : height;
+        return Math.min(1f, Math.min((float) Constants.MAX_IMAGE_WIDTH / uprightWidth,
+            (float) Constants.MAX_IMAGE_HEIGHT / uprightHeight));
+    }
+    
+    /**
+     * Scale the sampled decode the rest of the way to the final size
+     * BitmapFactory scales by inTargetDensity / inDensity while decoding. Densities are
+     * integers, so they are taken from the sampled long side in pixels; the result may
+     * still be a pixel off, which orientAndScale corrects.
+     */
+    private static void setDecodeScale(BitmapFactory.Options options, int width, int height,
+                                       float scale) {
+        int longSide = Math.max(width, height);
+        int sampled = (longSide + options.inSampleSize - 1) / options.inSampleSize;
+        int target = Math.max(1, (int) (longSide * scale));
+        if (target < sampled) {
+            options.inScaled = true;
+            options.inDensity = sampled;
+            options.inTargetDensity = target;
+        }
+    }
+    
     /**
      * Calculate sample size for bitmap loading
      */
-    private static int calculateInSampleSize(BitmapFactory.Options options, 
+    static int calculateInSampleSize(BitmapFactory.Options options, 
                                             int reqWidth, int reqHeight) {
         final int height = options.outHeight;
         final int width = options.outWidth;
@@ -140,44 +302,36 @@ public class ImageHelper {
     }
     
     /**
-     * Rotate image based on EXIF orientation
+     * Rotate and mirror a decoded bitmap, fixing its size if the decode came out a
+     * pixel too large
+     * The decode already has the final size, so the rotated copy is the only second
+     * buffer. The source is recycled as soon as the copy exists rather than pooled, so
+     * it does not stay alive next to the result.
      */
-    private static Bitmap rotateImageIfRequired(Context context, Bitmap bitmap, Uri uri) {
-        try {
-            InputStream inputStream = context.getContentResolver().openInputStream(uri);
-            if (inputStream == null) return bitmap;
-            
-            ExifInterface exif = new ExifInterface(inputStream);
-            int orientation = exif.getAttributeInt(
-                ExifInterface.TAG_ORIENTATION,
-                ExifInterface.ORIENTATION_NORMAL
-            );
-            inputStream.close();
-            
-            int rotation = 0;
-            switch (orientation) {
-                case ExifInterface.ORIENTATION_ROTATE_90:
-                    rotation = 90;
-                    break;
-                case ExifInterface.ORIENTATION_ROTATE_180:
-                    rotation = 180;
-                    break;
-                case ExifInterface.ORIENTATION_ROTATE_270:
-                    rotation = 270;
-                    break;
-            }
-            
-            if (rotation != 0) {
-                Matrix matrix = new Matrix();
-                matrix.postRotate(rotation);
-                return Bitmap.createBitmap(bitmap, 0, 0, 
-                    bitmap.getWidth(), bitmap.getHeight(), matrix, true);
-            }
-            
-        } catch (IOException e) {
-            e.printStackTrace();
+    private static Bitmap orientAndScale(Bitmap bitmap, ImageHeader header) {
+        float scale = fitScale(bitmap.getWidth(), bitmap.getHeight(), header.rotation);
+        if (header.isNormal() && scale >= 1f) {
+            return bitmap;
         }
         
-        return bitmap;
+        Matrix matrix = new Matrix();
+        matrix.setScale(scale, scale);
+        matrix.postRotate(header.rotation);
+        if (header.flipped) {
+            matrix.postScale(-1, 1);
+        }
+        Bitmap result = Bitmap.createBitmap(bitmap, 0, 0,
+            bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        if (result != bitmap) {
+            bitmap.recycle();
+        }
+        return result;
+    }
+    
+    /**
+     * Receives a bitmap loaded in the background
+     */
+    public interface OnImageLoadedListener {
+        void onImageLoaded(Bitmap bitmap);
     }
 }
@@ -0,0 +1,449 @@
+package com.fitlife.app.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.DisplayMetrics;
+import android.util.LruCache;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import androidx.annotation.DrawableRes;
+
+import com.fitlife.app.R;
+import com.fitlife.app.database.ImageStore;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous, view-size-aware loader for workout images
+ * Images are decoded from the smallest stored rendition that covers the view. Decoded
+ * bitmaps are kept in a memory LruCache, and the downscaled result is also written to
+ * a thumbnail file in the cache directory so that later loads at the same size skip
+ * decoding the larger stored file. Use through ImageHelper.
+ * Cached bitmaps are reference counted: the cache holds one reference and every view
+ * showing the bitmap holds another. Once a bitmap has left the cache and no view shows
+ * it any more it goes to the BitmapPool, and later decodes reuse its memory.
+ */
+public class ImageLoader {
+
+    private static final long MAX_DISK_CACHE_BYTES = 20L * 1024 * 1024;
+    // A trim goes below the limit, so the next few thumbnails do not trigger another
+    private static final long TRIM_TARGET_BYTES = MAX_DISK_CACHE_BYTES * 3 / 4;
+    private static final int THUMBNAIL_QUALITY = 80;
+    private static final Paint SCALE_PAINT = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    private static ImageLoader instance;
+
+    private final File thumbnailDir;
+    private final LruCache<String, Entry> memoryCache;
+    private final BitmapPool pool = BitmapPool.getInstance();
+    private final Executor executor = AppExecutors.getInstance().computation();
+    private final Executor mainThread = AppExecutors.getInstance().mainThread();
+    // Size of the thumbnail directory as of the last trim plus thumbnails written since
+    private final AtomicLong diskCacheBytes = new AtomicLong();
+    private final AtomicBoolean trimScheduled = new AtomicBoolean();
+
+    private ImageLoader(Context context) {
+        thumbnailDir = new File(context.getCacheDir(), Constants.THUMBNAIL_DIRECTORY);
+
+        // Use an eighth of the heap, measured in kilobytes
+        int cacheSizeKb = (int) (Runtime.getRuntime().maxMemory() / 1024 / 8);
+        memoryCache = new LruCache<String, Entry>(cacheSizeKb) {
+            @Override
+            protected int sizeOf(String key, Entry entry) {
+                return entry.bitmap.getAllocationByteCount() / 1024;
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Entry oldEntry, Entry newEntry) {
+                release(oldEntry);
+            }
+        };
+
+        scheduleTrim();
+    }
+
+    /**
+     * Get the singleton instance
+     * @param context Any context
+     * @return ImageLoader instance
+     */
+    public static synchronized ImageLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new ImageLoader(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Load an image into a view, replacing any load already pending for it
+     * Must be called on the main thread.
+     * @param imageView Target view
+     * @param path Absolute path to image file
+     * @param renditions Bitmask of renditions of the image (see ImageRenditions)
+     * @param placeholderResId Drawable shown while loading and on failure, or 0 to keep the current one
+     */
+    public void load(ImageView imageView, String path, int renditions, @DrawableRes int placeholderResId) {
+        cancel(imageView);
+
+        if (path == null || path.isEmpty()) {
+            showPlaceholder(imageView, placeholderResId);
+            return;
+        }
+
+        int[] size = getTargetSize(imageView);
+        path = ImageRenditions.select(path, renditions, size[0], size[1]);
+        String key = path + "@" + size[0] + "x" + size[1];
+
+        Entry cached = acquireCached(key);
+        if (cached != null) {
+            show(imageView, cached);
+            return;
+        }
+
+        showPlaceholder(imageView, placeholderResId);
+        Request request = new Request(imageView, path, key, size[0], size[1], placeholderResId);
+        imageView.setTag(R.id.tag_image_request, request);
+        executor.execute(request);
+    }
+
+    /**
+     * Cancel the pending load for a view, if any
+     * Must be called on the main thread.
+     * @param imageView Target view
+     */
+    public void cancel(ImageView imageView) {
+        Object tag = imageView.getTag(R.id.tag_image_request);
+        if (tag instanceof Request) {
+            ((Request) tag).cancelled = true;
+        }
+        imageView.setTag(R.id.tag_image_request, null);
+    }
+
+    /**
+     * Cancel the pending load for a view and clear the image it shows, so the bitmap
+     * can be reused once nothing else shows it (e.g. when its ViewHolder is recycled)
+     * Must be called on the main thread.
+     * @param imageView Target view
+     */
+    public void release(ImageView imageView) {
+        cancel(imageView);
+        Object shown = imageView.getTag(R.id.tag_image_entry);
+        if (shown instanceof Entry) {
+            imageView.setImageDrawable(null);
+            imageView.setTag(R.id.tag_image_entry, null);
+            release((Entry) shown);
+        }
+    }
+
+    /**
+     * Show a bitmap, handing the caller's reference to it over to the view
+     */
+    private void show(ImageView imageView, Entry entry) {
+        Object previous = imageView.getTag(R.id.tag_image_entry);
+        imageView.setImageBitmap(entry.bitmap);
+        imageView.setTag(R.id.tag_image_entry, entry);
+        if (previous instanceof Entry) {
+            release((Entry) previous);
+        }
+    }
+
+    private void showPlaceholder(ImageView imageView, @DrawableRes int placeholderResId) {
+        if (placeholderResId == 0) {
+            return;
+        }
+        Object previous = imageView.getTag(R.id.tag_image_entry);
+        imageView.setImageResource(placeholderResId);
+        imageView.setTag(R.id.tag_image_entry, null);
+        if (previous instanceof Entry) {
+            release((Entry) previous);
+        }
+    }
+
+    /**
+     * Look up a cached bitmap and take a reference to it
+     */
+    private synchronized Entry acquireCached(String key) {
+        Entry entry = memoryCache.get(key);
+        if (entry != null) {
+            entry.references++;
+        }
+        return entry;
+    }
+
+    /**
+     * Cache a freshly decoded bitmap; the caller keeps one reference, the cache the other
+     */
+    private synchronized Entry cache(String key, Bitmap bitmap) {
+        Entry entry = new Entry(bitmap);
+        entry.references = 2;
+        memoryCache.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Drop a reference, pooling the bitmap when it was the last one
+     */
+    private synchronized void release(Entry entry) {
+        if (--entry.references == 0) {
+            pool.put(entry.bitmap);
+        }
+    }
+
+    /**
+     * Size the decoded bitmap should cover: the view's size, its layout size
+     * before the first layout pass, or the screen size as a last resort
+     */
+    private static int[] getTargetSize(ImageView imageView) {
+        DisplayMetrics metrics = imageView.getResources().getDisplayMetrics();
+        ViewGroup.LayoutParams params = imageView.getLayoutParams();
+
+        int width = resolveSize(imageView.getWidth(),
+            params != null ? params.width : 0, metrics.widthPixels);
+        int height = resolveSize(imageView.getHeight(),
+            params != null ? params.height : 0, metrics.heightPixels);
+
+        // Stored images are never larger than this
+        return new int[]{
+            Math.min(width, Constants.MAX_IMAGE_WIDTH),
+            Math.min(height, Constants.MAX_IMAGE_HEIGHT)
+        };
+    }
+
+    private static int resolveSize(int measured, int layoutSize, int fallback) {
+        if (measured > 0) return measured;
+        if (layoutSize > 0) return layoutSize;
+        return fallback;
+    }
+
+    /**
+     * Decode an image at the target size, using the disk thumbnail when present
+     * Runs on a background thread.
+     */
+    private Bitmap decode(String path, String key, int width, int height) {
+        File source = new File(path);
+        if (!source.exists()) {
+            return null;
+        }
+
+        File thumbnail = new File(thumbnailDir, thumbnailName(key, sourceVersion(source)));
+        if (thumbnail.exists()) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(thumbnail.getAbsolutePath(), options);
+            options.inJustDecodeBounds = false;
+            Bitmap bitmap = options.outWidth > 0 && options.outHeight > 0
+                ? pool.decodeFile(thumbnail.getAbsolutePath(), options) : null;
+            if (bitmap != null) {
+                thumbnail.setLastModified(System.currentTimeMillis());
+                return bitmap;
+            }
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(path, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inSampleSize = ImageHelper.calculateInSampleSize(options, width, height);
+        options.inJustDecodeBounds = false;
+        Bitmap bitmap = pool.decodeFile(path, options);
+        if (bitmap == null) {
+            return null;
+        }
+
+        // Sampling only halves; scale the rest of the way so the bitmap just covers the view
+        float scale = Math.max((float) width / bitmap.getWidth(), (float) height / bitmap.getHeight());
+        if (scale < 0.75f) {
+            bitmap = scale(bitmap,
+                Math.max(1, Math.round(bitmap.getWidth() * scale)),
+                Math.max(1, Math.round(bitmap.getHeight() * scale)));
+        }
+
+        if (bitmap.getWidth() < options.outWidth) {
+            writeThumbnail(bitmap, thumbnail);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Draw a bitmap scaled into a pooled one, and pool the original
+     */
+    private Bitmap scale(Bitmap bitmap, int width, int height) {
+        Bitmap scaled = pool.get(width, height, Bitmap.Config.ARGB_8888);
+        if (scaled == null) {
+            scaled = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        }
+        new Canvas(scaled).drawBitmap(bitmap, null, new Rect(0, 0, width, height), SCALE_PAINT);
+        pool.put(bitmap);
+        return scaled;
+    }
+
+    private void writeThumbnail(Bitmap bitmap, File thumbnail) {
+        if (!thumbnailDir.exists() && !thumbnailDir.mkdirs()) {
+            return;
+        }
+
+        // Write to a temporary file first so a half-written thumbnail is never read
+        File temp = new File(thumbnailDir, thumbnail.getName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(temp)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, THUMBNAIL_QUALITY, fos);
+        } catch (IOException e) {
+            e.printStackTrace();
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(thumbnail)) {
+            temp.delete();
+            return;
+        }
+        if (diskCacheBytes.addAndGet(thumbnail.length()) > MAX_DISK_CACHE_BYTES) {
+            scheduleTrim();
+        }
+    }
+
+    private void scheduleTrim() {
+        if (trimScheduled.compareAndSet(false, true)) {
+            AppExecutors.getInstance().bulkIO().execute(this::trimDiskCache);
+        }
+    }
+
+    /**
+     * Delete the least recently used thumbnails once the directory exceeds the size
+     * limit, down to TRIM_TARGET_BYTES, and recount the directory
+     */
+    private void trimDiskCache() {
+        // Thumbnails written from here on schedule the next trim
+        trimScheduled.set(false);
+        File[] files = thumbnailDir.listFiles();
+        if (files == null) {
+            diskCacheBytes.set(0);
+            return;
+        }
+
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total > MAX_DISK_CACHE_BYTES) {
+            Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+            for (File file : files) {
+                if (total <= TRIM_TARGET_BYTES) break;
+                long length = file.length();
+                if (file.delete()) {
+                    total -= length;
+                }
+            }
+        }
+        diskCacheBytes.set(total);
+    }
+
+    /**
+     * Version of a source file that its thumbnails are named after
+     * Files stored by content never change, and ImageStore renews their modification
+     * time whenever it reuses them, so only other files are versioned by that time.
+     */
+    private static long sourceVersion(File source) {
+        return ImageStore.isContentAddressed(source.getName()) ? 0 : source.lastModified();
+    }
+
+    private static String thumbnailName(String key, long version) {
+        String input = key + "#" + version;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : hash) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.append(".jpg").toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(input.hashCode()) + ".jpg";
+        }
+    }
+
+    /**
+     * A pending load for one view
+     */
+    private class Request implements Runnable {
+        private final WeakReference<ImageView> viewRef;
+        private final String path;
+        private final String key;
+        private final int width;
+        private final int height;
+        private final int placeholderResId;
+        volatile boolean cancelled;
+
+        Request(ImageView imageView, String path, String key, int width, int height, int placeholderResId) {
+            this.viewRef = new WeakReference<>(imageView);
+            this.path = path;
+            this.key = key;
+            this.width = width;
+            this.height = height;
+            this.placeholderResId = placeholderResId;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) return;
+
+            // Hold a reference until the bitmap is shown so it cannot be pooled meanwhile
+            Entry entry = acquireCached(key);
+            if (entry == null) {
+                Bitmap bitmap = decode(path, key, width, height);
+                if (bitmap != null) {
+                    entry = cache(key, bitmap);
+                }
+            }
+
+            final Entry result = entry;
+            mainThread.execute(() -> deliver(result));
+        }
+
+        private void deliver(Entry entry) {
+            ImageView imageView = viewRef.get();
+            // The view may have been recycled and bound to another image meanwhile
+            if (cancelled || imageView == null || imageView.getTag(R.id.tag_image_request) != this) {
+                if (entry != null) {
+                    release(entry);
+                }
+                return;
+            }
+            imageView.setTag(R.id.tag_image_request, null);
+
+            if (entry != null) {
+                show(imageView, entry);
+            } else {
+                showPlaceholder(imageView, placeholderResId);
+            }
+        }
+    }
+
+    /**
+     * A cached bitmap and the number of holders (cache, views, pending deliveries)
+     */
+    private static class Entry {
+        final Bitmap bitmap;
+        int references;
+
+        Entry(Bitmap bitmap) {
+            this.bitmap = bitmap;
+        }
+    }
+}
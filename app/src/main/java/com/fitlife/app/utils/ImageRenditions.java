@@ -0,0 +1,145 @@
+package com.fitlife.app.utils;
+
+import android.graphics.Bitmap;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Smaller copies of a stored workout image, written next to it when it is saved
+ * A rendition of size S is the image scaled so that it just covers an S x S box, so it
+ * can fill any view up to S pixels in both directions. Renditions live beside the
+ * original as {@code <name>@<size>.jpg}; which of them exist is recorded as a bitmask
+ * (bit i for SIZES[i]) in the workout's image_renditions column.
+ */
+public final class ImageRenditions {
+
+    // List thumbnail (80dp at xxxhdpi) and detail header; ascending
+    public static final int[] SIZES = {320, 768};
+
+    private static final char SEPARATOR = '@';
+
+    private ImageRenditions() {
+    }
+
+    /**
+     * Write every rendition smaller than the image in one pass, each scaled from the
+     * previous one; runs on a background thread
+     * @param bitmap Image as it was stored at path
+     * @param path Absolute path of the stored original
+     * @return Bitmask of renditions written
+     */
+    public static int write(Bitmap bitmap, String path) {
+        int renditions = 0;
+        Bitmap source = bitmap;
+        for (int i = SIZES.length - 1; i >= 0; i--) {
+            int size = SIZES[i];
+            int shortSide = Math.min(source.getWidth(), source.getHeight());
+            if (shortSide <= size) continue;
+
+            float scale = (float) size / shortSide;
+            Bitmap scaled = Bitmap.createScaledBitmap(source,
+                Math.max(size, Math.round(source.getWidth() * scale)),
+                Math.max(size, Math.round(source.getHeight() * scale)), true);
+            if (source != bitmap) {
+                source.recycle();
+            }
+            source = scaled;
+
+            if (save(scaled, pathFor(path, size))) {
+                renditions |= 1 << i;
+            }
+        }
+        if (source != bitmap) {
+            source.recycle();
+        }
+        return renditions;
+    }
+
+    /**
+     * Pick the smallest stored file that covers a view
+     * @param path Absolute path of the original
+     * @param renditions Bitmask of renditions that exist
+     * @param width Target width in pixels
+     * @param height Target height in pixels
+     * @return Path of a rendition, or the original when none is large enough
+     */
+    public static String select(String path, int renditions, int width, int height) {
+        int needed = Math.max(width, height);
+        for (int i = 0; i < SIZES.length; i++) {
+            if ((renditions & (1 << i)) != 0 && SIZES[i] >= needed) {
+                return pathFor(path, SIZES[i]);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Path of the rendition of an original at a given size
+     */
+    public static String pathFor(String path, int size) {
+        int dot = path.lastIndexOf('.');
+        int slash = path.lastIndexOf(File.separatorChar);
+        String stem = dot > slash ? path.substring(0, dot) : path;
+        String extension = dot > slash ? path.substring(dot) : "";
+        return stem + SEPARATOR + size + extension;
+    }
+
+    /**
+     * Name of the original a file name belongs to
+     * @param name File name, e.g. {@code photo@320.jpg}
+     * @return Name of the original ({@code photo.jpg}), or the name itself if it is not
+     *     a rendition
+     */
+    public static String originalOf(String name) {
+        int separator = name.lastIndexOf(SEPARATOR);
+        if (separator < 0) {
+            return name;
+        }
+        int dot = name.indexOf('.', separator);
+        int end = dot < 0 ? name.length() : dot;
+        if (end == separator + 1) {
+            return name;
+        }
+        for (int i = separator + 1; i < end; i++) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return name;
+            }
+        }
+        return name.substring(0, separator) + name.substring(end);
+    }
+
+    /**
+     * Bitmask of the renditions of an original found on disk, e.g. for an image that
+     * was stored earlier and is reused
+     */
+    public static int existing(String path) {
+        int renditions = 0;
+        for (int i = 0; i < SIZES.length; i++) {
+            if (new File(pathFor(path, SIZES[i])).exists()) {
+                renditions |= 1 << i;
+            }
+        }
+        return renditions;
+    }
+
+    /**
+     * Delete all renditions of an original, whichever exist
+     */
+    public static void delete(String path) {
+        for (int size : SIZES) {
+            new File(pathFor(path, size)).delete();
+        }
+    }
+
+    private static boolean save(Bitmap bitmap, String path) {
+        try (FileOutputStream fos = new FileOutputStream(path)) {
+            return bitmap.compress(Bitmap.CompressFormat.JPEG, Constants.IMAGE_COMPRESSION_QUALITY, fos);
+        } catch (IOException e) {
+            e.printStackTrace();
+            new File(path).delete();
+            return false;
+        }
+    }
+}
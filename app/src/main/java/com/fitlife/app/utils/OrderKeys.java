@@ -0,0 +1,141 @@
+package com.fitlife.app.utils;
+
+/**
+ * Sparse ordering keys for exercise lists
+ * Keys are spaced GAP apart, so an item moved or inserted between two neighbours gets a
+ * key in the gap and no other row changes. Keys are only renumbered when a gap is used up.
+ */
+public final class OrderKeys {
+
+    /** Distance between neighbouring keys after (re)numbering */
+    public static final int GAP = 1024;
+
+    /** Marks an item that has no key yet, or whose key must be replaced */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private OrderKeys() {
+    }
+
+    /**
+     * Key of the item at a position in a freshly numbered list
+     */
+    public static int initial(int position) {
+        return (position + 1) * GAP;
+    }
+
+    /**
+     * Assign keys so that they increase along the list, changing as few as possible
+     * The longest run of keys that is already in order is kept; every other item gets a
+     * key between its kept neighbours. If some gap is too small, the whole list is
+     * renumbered.
+     * @param current Current keys in the new list order, NONE for items without a key
+     * @return New keys, in the same order
+     */
+    public static int[] assign(long[] current) {
+        int n = current.length;
+        boolean[] kept = longestIncreasing(current);
+        int[] keys = new int[n];
+
+        int start = 0;
+        while (start < n) {
+            if (kept[start]) {
+                keys[start] = (int) current[start];
+                start++;
+                continue;
+            }
+
+            // Fill the run of items between two kept keys (or the ends of the list)
+            int end = start;
+            while (end < n && !kept[end]) {
+                end++;
+            }
+            long lower = start > 0 ? current[start - 1] : NONE;
+            long upper = end < n ? current[end] : NONE;
+            if (!fill(keys, start, end, lower, upper)) {
+                return renumber(n);
+            }
+            start = end;
+        }
+        return keys;
+    }
+
+    /**
+     * Fill keys[start, end) strictly between lower and upper (either may be NONE)
+     * @return false if the gap is too small
+     */
+    private static boolean fill(int[] keys, int start, int end, long lower, long upper) {
+        int count = end - start;
+        long first;
+        long step;
+        if (lower == NONE && upper == NONE) {
+            first = GAP;
+            step = GAP;
+        } else if (upper == NONE) {
+            first = lower + GAP;
+            step = GAP;
+        } else if (lower == NONE) {
+            first = upper - (long) GAP * count;
+            step = GAP;
+        } else {
+            step = (upper - lower) / (count + 1);
+            if (step < 1) {
+                return false;
+            }
+            first = lower + step;
+        }
+
+        long last = first + step * (count - 1);
+        if (first < Integer.MIN_VALUE || last > Integer.MAX_VALUE) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            keys[start + i] = (int) (first + step * i);
+        }
+        return true;
+    }
+
+    private static int[] renumber(int n) {
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = initial(i);
+        }
+        return keys;
+    }
+
+    /**
+     * Mark one longest strictly increasing subsequence of the present keys, O(n log n)
+     */
+    private static boolean[] longestIncreasing(long[] values) {
+        int n = values.length;
+        // tails[k]: index of the smallest possible last element of a run of length k + 1
+        int[] tails = new int[n];
+        int[] previous = new int[n];
+        int length = 0;
+
+        for (int i = 0; i < n; i++) {
+            if (values[i] == NONE) continue;
+
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[tails[mid]] < values[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        boolean[] kept = new boolean[n];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            kept[i] = true;
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,91 @@
+package com.fitlife.app.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Turns free text typed by the user into FTS4 match expressions
+ * Input is split into words on anything that is not a letter or digit, so quotes,
+ * dashes and other query syntax never reach SQLite. Words are lowercased (which also
+ * keeps AND/OR/NOT/NEAR from acting as operators) and matched as prefixes, so results
+ * update while a word is still being typed. All words must match.
+ */
+public class SearchQueryBuilder {
+    
+    // Longer queries add little and make every lookup slower
+    static final int MAX_TERMS = 8;
+    
+    private final List<String> terms;
+    
+    private SearchQueryBuilder(List<String> terms) {
+        this.terms = terms;
+    }
+    
+    /**
+     * Parse user input
+     * @param input Text from the search box (may be null)
+     * @return Builder; check isEmpty() before querying
+     */
+    public static SearchQueryBuilder parse(String input) {
+        if (input == null) {
+            return new SearchQueryBuilder(Collections.emptyList());
+        }
+        
+        List<String> terms = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= input.length() && terms.size() < MAX_TERMS; i++) {
+            char c = i < input.length() ? input.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (word.length() > 0) {
+                String term = word.toString().toLowerCase(Locale.ROOT);
+                if (!terms.contains(term)) {
+                    terms.add(term);
+                }
+                word.setLength(0);
+            }
+        }
+        return new SearchQueryBuilder(terms);
+    }
+    
+    /**
+     * Check if the input contained no searchable words
+     */
+    public boolean isEmpty() {
+        return terms.isEmpty();
+    }
+    
+    /**
+     * Get the parsed words
+     */
+    public List<String> getTerms() {
+        return Collections.unmodifiableList(terms);
+    }
+    
+    /**
+     * Build a match expression over all indexed columns, e.g. {@code push* up*}
+     */
+    public String build() {
+        return build(null);
+    }
+    
+    /**
+     * Build a match expression restricted to one column, e.g. {@code workout_name:push*}
+     * @param column FTS column name, or null for all columns
+     */
+    public String build(String column) {
+        StringBuilder sb = new StringBuilder();
+        for (String term : terms) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            if (column != null) {
+                sb.append(column).append(':');
+            }
+            sb.append(term).append('*');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.fitlife.app.backup;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for Varint
+ */
+public class VarintTest {
+
+    private static final long[] VALUES = {
+        0, 1, 127, 128, 300, 16383, 16384, Integer.MAX_VALUE, 1_700_000_000_000L, Long.MAX_VALUE
+    };
+
+    @Test
+    public void testUnsignedRoundTrip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (long value : VALUES) {
+            Varint.write(out, value);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        for (long value : VALUES) {
+            assertEquals(value, Varint.read(buffer));
+        }
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testSignedRoundTrip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (long value : VALUES) {
+            Varint.writeSigned(out, value);
+            Varint.writeSigned(out, -value);
+        }
+        Varint.writeSigned(out, Long.MIN_VALUE);
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        for (long value : VALUES) {
+            assertEquals(value, Varint.readSigned(buffer));
+            assertEquals(-value, Varint.readSigned(buffer));
+        }
+        assertEquals(Long.MIN_VALUE, Varint.readSigned(buffer));
+    }
+
+    @Test
+    public void testSmallValuesAreShort() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Varint.write(out, 127);
+        assertEquals(1, out.size());
+        out.reset();
+        Varint.write(out, 128);
+        assertEquals(2, out.size());
+        out.reset();
+        // Small negative deltas stay one byte
+        Varint.writeSigned(out, -64);
+        assertEquals(1, out.size());
+    }
+
+    @Test(expected = BufferUnderflowException.class)
+    public void testTruncatedValue() {
+        Varint.read(ByteBuffer.wrap(new byte[]{(byte) 0x80}));
+    }
+}
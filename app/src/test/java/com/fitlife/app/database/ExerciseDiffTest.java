@@ -0,0 +1,96 @@
+package com.fitlife.app.database;
+
+import com.fitlife.app.database.entities.Exercise;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ExerciseDiff
+ */
+public class ExerciseDiffTest {
+
+    private static Exercise exercise(int id, String name, int orderIndex) {
+        Exercise exercise = new Exercise(1, name, 3, 10);
+        exercise.setExerciseId(id);
+        exercise.setOrderIndex(orderIndex);
+        return exercise;
+    }
+
+    private static List<Exercise> snapshot(List<Exercise> exercises) {
+        List<Exercise> copies = new ArrayList<>();
+        for (Exercise exercise : exercises) {
+            copies.add(new Exercise(exercise));
+        }
+        return copies;
+    }
+
+    @Test
+    public void testUnchangedListIsEmpty() {
+        List<Exercise> edited = Arrays.asList(exercise(1, "Squat", 0), exercise(2, "Lunge", 1));
+        ExerciseDiff diff = ExerciseDiff.compute(snapshot(edited), edited, 1);
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    public void testOnlyChangedRowIsUpdated() {
+        List<Exercise> edited = Arrays.asList(exercise(1, "Squat", 0), exercise(2, "Lunge", 1));
+        List<Exercise> original = snapshot(edited);
+        edited.get(1).setReps(12);
+
+        ExerciseDiff diff = ExerciseDiff.compute(original, edited, 1);
+        assertEquals(1, diff.updates.size());
+        assertEquals(2, diff.updates.get(0).getExerciseId());
+        assertTrue(diff.inserts.isEmpty());
+        assertTrue(diff.deletes.isEmpty());
+    }
+
+    @Test
+    public void testInsertsAndDeletes() {
+        List<Exercise> loaded = Arrays.asList(exercise(1, "Squat", 0), exercise(2, "Lunge", 1));
+        List<Exercise> original = snapshot(loaded);
+        List<Exercise> edited = new ArrayList<>();
+        edited.add(loaded.get(0));
+        edited.add(exercise(0, "Plank", 0));
+
+        ExerciseDiff diff = ExerciseDiff.compute(original, edited, 1);
+        assertEquals(1, diff.inserts.size());
+        assertTrue(diff.inserts.get(0).getOrderIndex() > loaded.get(0).getOrderIndex());
+        assertEquals(1, diff.deletes.size());
+        assertEquals(2, diff.deletes.get(0).getExerciseId());
+        assertTrue(diff.updates.isEmpty());
+    }
+
+    @Test
+    public void testReorderUpdatesOnlyMovedRow() {
+        Exercise first = exercise(1, "Squat", 1024);
+        Exercise second = exercise(2, "Lunge", 2048);
+        Exercise third = exercise(3, "Plank", 3072);
+        List<Exercise> original = snapshot(Arrays.asList(first, second, third));
+
+        ExerciseDiff diff = ExerciseDiff.compute(original, Arrays.asList(first, third, second), 1);
+        assertEquals(1, diff.updates.size());
+        assertEquals(3, diff.updates.get(0).getExerciseId());
+        assertTrue(first.getOrderIndex() < third.getOrderIndex());
+        assertTrue(third.getOrderIndex() < second.getOrderIndex());
+    }
+
+    @Test
+    public void testFullGapRenumbersWorkout() {
+        Exercise first = exercise(1, "Squat", 0);
+        Exercise second = exercise(2, "Lunge", 1);
+        List<Exercise> original = snapshot(Arrays.asList(first, second));
+        List<Exercise> edited = Arrays.asList(first, exercise(0, "Plank", 0), second);
+
+        ExerciseDiff diff = ExerciseDiff.compute(original, edited, 1);
+        assertEquals(2, diff.updates.size());
+        assertEquals(1, diff.inserts.size());
+        assertTrue(first.getOrderIndex() < edited.get(1).getOrderIndex());
+        assertTrue(edited.get(1).getOrderIndex() < second.getOrderIndex());
+    }
+}
@@ -0,0 +1,64 @@
+package com.fitlife.app.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for CompletionPeriods
+ */
+public class CompletionPeriodsTest {
+
+    private static long at(int year, int month, int day, int hour) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month - 1, day, hour, 30);
+        return calendar.getTimeInMillis();
+    }
+
+    @Test
+    public void testWeeksStartOnMonday() {
+        // 2024-05-13 is a Monday, 2024-05-19 a Sunday
+        assertEquals("2024-05-13", CompletionPeriods.weekKey(at(2024, 5, 13, 0)));
+        assertEquals("2024-05-13", CompletionPeriods.weekKey(at(2024, 5, 16, 12)));
+        assertEquals("2024-05-13", CompletionPeriods.weekKey(at(2024, 5, 19, 23)));
+        assertEquals("2024-05-20", CompletionPeriods.weekKey(at(2024, 5, 20, 1)));
+        // Across a year boundary
+        assertEquals("2024-12-30", CompletionPeriods.weekKey(at(2025, 1, 2, 8)));
+    }
+
+    @Test
+    public void testDayMonthAndPreviousWeeks() {
+        assertEquals("2024-02-29", CompletionPeriods.dayKey(at(2024, 2, 29, 23)));
+        assertEquals("2024-02-01", CompletionPeriods.monthKey(at(2024, 2, 29, 23)));
+        assertEquals("2024-02-26", CompletionPeriods.weekKeyBefore(at(2024, 5, 16, 12), 11));
+    }
+
+    @Test
+    public void testStreakEndingToday() {
+        long now = at(2024, 5, 16, 18);
+        assertEquals(3, CompletionPeriods.countStreak(
+            Arrays.asList("2024-05-16", "2024-05-15", "2024-05-14", "2024-05-12"), now));
+    }
+
+    @Test
+    public void testStreakEndingYesterdayStillCounts() {
+        long now = at(2024, 5, 16, 18);
+        assertEquals(2, CompletionPeriods.countStreak(
+            Arrays.asList("2024-05-15", "2024-05-14", "2024-05-01"), now));
+        assertEquals(0, CompletionPeriods.countStreak(
+            Arrays.asList("2024-05-14", "2024-05-13"), now));
+        assertEquals(0, CompletionPeriods.countStreak(Collections.emptyList(), now));
+    }
+
+    @Test
+    public void testStreakAcrossMonthBoundary() {
+        long now = at(2024, 3, 1, 9);
+        assertEquals(3, CompletionPeriods.countStreak(
+            Arrays.asList("2024-03-01", "2024-02-29", "2024-02-28"), now));
+    }
+}
@@ -0,0 +1,60 @@
+package com.fitlife.app.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ContentHash
+ */
+public class ContentHashTest {
+
+    private static ContentHash legs() {
+        return new ContentHash("Legs", "Leg day", 1000L)
+            .addExercise("Squat", 3, 10, null).addEquipment("Barbell").addEquipment("Rack")
+            .addExercise("Lunge", 3, 12, "Alternate legs");
+    }
+
+    @Test
+    public void testSameContentSameHash() {
+        assertEquals(legs().build(), legs().build());
+        assertEquals(64, legs().build().length());
+    }
+
+    @Test
+    public void testOrderOfExercisesAndEquipmentIsIgnored() {
+        String reordered = new ContentHash("Legs", "Leg day", 1000L)
+            .addExercise("Lunge", 3, 12, "Alternate legs")
+            .addExercise("Squat", 3, 10, null).addEquipment("Rack").addEquipment("Barbell")
+            .build();
+        assertEquals(legs().build(), reordered);
+    }
+
+    @Test
+    public void testContentChangesHash() {
+        String base = legs().build();
+        assertNotEquals(base, new ContentHash("Legs", "Leg day", 1001L)
+            .addExercise("Squat", 3, 10, null).addEquipment("Barbell").addEquipment("Rack")
+            .addExercise("Lunge", 3, 12, "Alternate legs").build());
+        assertNotEquals(base, new ContentHash("Legs", "Leg day", 1000L)
+            .addExercise("Squat", 3, 10, null).addEquipment("Barbell")
+            .addExercise("Lunge", 3, 12, "Alternate legs").build());
+        // Equipment moved to another exercise
+        assertNotEquals(base, new ContentHash("Legs", "Leg day", 1000L)
+            .addExercise("Squat", 3, 10, null).addEquipment("Barbell")
+            .addExercise("Lunge", 3, 12, "Alternate legs").addEquipment("Rack").build());
+    }
+
+    @Test
+    public void testNullAndEmptyDiffer() {
+        assertNotEquals(new ContentHash("Legs", null, 0).build(),
+            new ContentHash("Legs", "", 0).build());
+        assertNotEquals(new ContentHash("ab", "c", 0).build(),
+            new ContentHash("a", "bc", 0).build());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEquipmentNeedsExercise() {
+        new ContentHash("Legs", null, 0).addEquipment("Barbell");
+    }
+}
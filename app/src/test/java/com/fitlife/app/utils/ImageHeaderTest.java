@@ -0,0 +1,143 @@
+package com.fitlife.app.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ImageHeader
+ */
+public class ImageHeaderTest {
+
+    private static ImageHeader read(byte[] bytes) throws IOException {
+        return ImageHeader.read(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * JPEG with an optional EXIF orientation, some other segment, then a baseline frame header
+     */
+    private static byte[] jpeg(int width, int height, int orientation, boolean bigEndian) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xFF);
+        out.write(0xD8);
+
+        // JFIF segment, skipped
+        segment(out, 0xE0, new byte[]{'J', 'F', 'I', 'F', 0, 1, 1, 0, 0, 1, 0, 1, 0, 0});
+
+        if (orientation > 0) {
+            ByteArrayOutputStream exif = new ByteArrayOutputStream();
+            exif.write('E'); exif.write('x'); exif.write('i'); exif.write('f'); exif.write(0); exif.write(0);
+            exif.write(bigEndian ? 'M' : 'I');
+            exif.write(bigEndian ? 'M' : 'I');
+            writeShort(exif, 42, bigEndian);
+            writeInt(exif, 8, bigEndian);
+            // IFD0 with an unrelated entry before the orientation
+            writeShort(exif, 2, bigEndian);
+            writeShort(exif, 0x010F, bigEndian);
+            writeShort(exif, 2, bigEndian);
+            writeInt(exif, 4, bigEndian);
+            writeInt(exif, 0, bigEndian);
+            writeShort(exif, 0x0112, bigEndian);
+            writeShort(exif, 3, bigEndian);
+            writeInt(exif, 1, bigEndian);
+            writeShort(exif, orientation, bigEndian);
+            writeShort(exif, 0, bigEndian);
+            writeInt(exif, 0, bigEndian);
+            segment(out, 0xE1, exif.toByteArray());
+        }
+
+        segment(out, 0xC0, new byte[]{8, (byte) (height >> 8), (byte) height,
+            (byte) (width >> 8), (byte) width, 3});
+        // Scan data that must not be needed
+        segment(out, 0xDA, new byte[]{0});
+        return out.toByteArray();
+    }
+
+    private static void segment(ByteArrayOutputStream out, int marker, byte[] payload) {
+        out.write(0xFF);
+        out.write(marker);
+        writeShort(out, payload.length + 2, true);
+        out.write(payload, 0, payload.length);
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value, boolean bigEndian) {
+        out.write(bigEndian ? value >> 8 : value);
+        out.write(bigEndian ? value : value >> 8);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value, boolean bigEndian) {
+        writeShort(out, bigEndian ? value >>> 16 : value & 0xFFFF, bigEndian);
+        writeShort(out, bigEndian ? value & 0xFFFF : value >>> 16, bigEndian);
+    }
+
+    @Test
+    public void testJpegWithoutExif() throws IOException {
+        ImageHeader header = read(jpeg(4032, 3024, 0, true));
+        assertEquals(4032, header.width);
+        assertEquals(3024, header.height);
+        assertTrue(header.isNormal());
+    }
+
+    @Test
+    public void testExifOrientationInBothByteOrders() throws IOException {
+        for (boolean bigEndian : new boolean[]{true, false}) {
+            ImageHeader header = read(jpeg(4032, 3024, 6, bigEndian));
+            assertEquals(4032, header.width);
+            assertEquals(3024, header.height);
+            assertEquals(90, header.rotation);
+            assertFalse(header.flipped);
+
+            assertEquals(180, read(jpeg(10, 10, 3, bigEndian)).rotation);
+            assertEquals(270, read(jpeg(10, 10, 8, bigEndian)).rotation);
+        }
+    }
+
+    @Test
+    public void testMirroredOrientations() throws IOException {
+        ImageHeader mirrored = read(jpeg(10, 10, 2, true));
+        assertEquals(0, mirrored.rotation);
+        assertTrue(mirrored.flipped);
+
+        ImageHeader transverse = read(jpeg(10, 10, 7, true));
+        assertEquals(270, transverse.rotation);
+        assertTrue(transverse.flipped);
+    }
+
+    @Test
+    public void testInvalidOrientationIsNormal() throws IOException {
+        assertTrue(read(jpeg(10, 10, 42, false)).isNormal());
+    }
+
+    @Test
+    public void testPngDimensions() throws IOException {
+        byte[] png = {
+            (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n',
+            0, 0, 0, 13, 'I', 'H', 'D', 'R',
+            0, 0, 0x02, (byte) 0x80, 0, 0, 0x01, (byte) 0xE0
+        };
+        ImageHeader header = read(png);
+        assertEquals(640, header.width);
+        assertEquals(480, header.height);
+        assertTrue(header.isNormal());
+    }
+
+    @Test
+    public void testUnknownFormat() throws IOException {
+        ImageHeader header = read(new byte[]{'G', 'I', 'F', '8', '9', 'a'});
+        assertEquals(0, header.width);
+        assertEquals(0, header.height);
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedJpeg() throws IOException {
+        byte[] full = jpeg(100, 100, 6, true);
+        byte[] truncated = new byte[30];
+        System.arraycopy(full, 0, truncated, 0, truncated.length);
+        read(truncated);
+    }
+}
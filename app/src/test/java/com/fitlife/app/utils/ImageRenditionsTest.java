@@ -0,0 +1,50 @@
+package com.fitlife.app.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ImageRenditions
+ */
+public class ImageRenditionsTest {
+
+    private static final String PATH = "/data/workout_images/workout_1_1700000000000.jpg";
+    private static final int ALL = (1 << ImageRenditions.SIZES.length) - 1;
+
+    @Test
+    public void testPathForKeepsExtension() {
+        assertEquals("/data/workout_images/workout_1_1700000000000@320.jpg",
+            ImageRenditions.pathFor(PATH, 320));
+        assertEquals("/data/images.v2/photo@320", ImageRenditions.pathFor("/data/images.v2/photo", 320));
+    }
+
+    @Test
+    public void testSelectsSmallestCoveringRendition() {
+        int small = ImageRenditions.SIZES[0];
+        int large = ImageRenditions.SIZES[1];
+        assertEquals(ImageRenditions.pathFor(PATH, small), ImageRenditions.select(PATH, ALL, small, small / 2));
+        assertEquals(ImageRenditions.pathFor(PATH, large), ImageRenditions.select(PATH, ALL, small + 1, small));
+        assertEquals(PATH, ImageRenditions.select(PATH, ALL, large + 1, 10));
+    }
+
+    @Test
+    public void testSkipsMissingRenditions() {
+        int small = ImageRenditions.SIZES[0];
+        // Only the larger rendition was written, e.g. for a narrow image
+        assertEquals(ImageRenditions.pathFor(PATH, ImageRenditions.SIZES[1]),
+            ImageRenditions.select(PATH, 1 << 1, small, small));
+        // Images saved before renditions existed load from the original
+        assertEquals(PATH, ImageRenditions.select(PATH, 0, small, small));
+    }
+
+    @Test
+    public void testOriginalOfRendition() {
+        assertEquals("workout_1_1700000000000.jpg", ImageRenditions.originalOf("workout_1_1700000000000@320.jpg"));
+        assertEquals("photo", ImageRenditions.originalOf("photo@768"));
+        // Not renditions
+        assertEquals("photo.jpg", ImageRenditions.originalOf("photo.jpg"));
+        assertEquals("me@home.jpg", ImageRenditions.originalOf("me@home.jpg"));
+        assertEquals("photo@.jpg", ImageRenditions.originalOf("photo@.jpg"));
+    }
+}
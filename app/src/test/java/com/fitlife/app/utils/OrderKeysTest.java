@@ -0,0 +1,74 @@
+package com.fitlife.app.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for OrderKeys
+ */
+public class OrderKeysTest {
+
+    private static final long NONE = OrderKeys.NONE;
+
+    private static void assertIncreasing(int[] keys) {
+        for (int i = 1; i < keys.length; i++) {
+            assertTrue(keys[i - 1] < keys[i]);
+        }
+    }
+
+    @Test
+    public void testOrderedKeysAreKept() {
+        assertArrayEquals(new int[]{5, 9, 100}, OrderKeys.assign(new long[]{5, 9, 100}));
+    }
+
+    @Test
+    public void testMoveChangesOneKey() {
+        // Last item dragged to the front
+        int[] keys = OrderKeys.assign(new long[]{4096, 1024, 2048, 3072});
+        assertIncreasing(keys);
+        assertEquals(1024, keys[1]);
+        assertEquals(2048, keys[2]);
+        assertEquals(3072, keys[3]);
+
+        // First item dragged to the end
+        keys = OrderKeys.assign(new long[]{2048, 3072, 4096, 1024});
+        assertIncreasing(keys);
+        assertEquals(2048, keys[0]);
+        assertEquals(3072, keys[1]);
+        assertEquals(4096, keys[2]);
+    }
+
+    @Test
+    public void testNewItemsFillTheGap() {
+        int[] keys = OrderKeys.assign(new long[]{NONE, 1024, NONE, NONE, 2048, NONE});
+        assertIncreasing(keys);
+        assertEquals(1024, keys[1]);
+        assertEquals(2048, keys[4]);
+    }
+
+    @Test
+    public void testRenumbersOnlyWhenGapRunsOut() {
+        int[] keys = OrderKeys.assign(new long[]{1, NONE, 2});
+        assertArrayEquals(new int[]{OrderKeys.initial(0), OrderKeys.initial(1), OrderKeys.initial(2)}, keys);
+
+        // Repeated inserts at the same spot halve the gap each time
+        long[] current = {1024, 2048};
+        int moves = 0;
+        while (true) {
+            long[] next = {current[0], NONE, current[1]};
+            int[] assigned = OrderKeys.assign(next);
+            if (assigned[2] != current[1]) break;
+            current = new long[]{current[0], assigned[1]};
+            moves++;
+        }
+        assertEquals(10, moves);
+    }
+
+    @Test
+    public void testEmptyAndUnkeyedLists() {
+        assertEquals(0, OrderKeys.assign(new long[0]).length);
+        assertArrayEquals(new int[]{OrderKeys.initial(0), OrderKeys.initial(1)},
+            OrderKeys.assign(new long[]{NONE, NONE}));
+    }
+}
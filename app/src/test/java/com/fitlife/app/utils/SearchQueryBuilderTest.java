@@ -0,0 +1,48 @@
+package com.fitlife.app.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for SearchQueryBuilder
+ */
+public class SearchQueryBuilderTest {
+
+    @Test
+    public void testBuildsPrefixTerms() {
+        SearchQueryBuilder query = SearchQueryBuilder.parse("  Push   Ups ");
+        assertFalse(query.isEmpty());
+        assertEquals(Arrays.asList("push", "ups"), query.getTerms());
+        assertEquals("push* ups*", query.build());
+        assertEquals("workout_name:push* workout_name:ups*", query.build("workout_name"));
+    }
+
+    @Test
+    public void testStripsQuerySyntax() {
+        SearchQueryBuilder query = SearchQueryBuilder.parse("\"leg\" -day OR core*");
+        assertEquals("leg* day* or* core*", query.build());
+    }
+
+    @Test
+    public void testEmptyInput() {
+        assertTrue(SearchQueryBuilder.parse(null).isEmpty());
+        assertTrue(SearchQueryBuilder.parse("").isEmpty());
+        assertTrue(SearchQueryBuilder.parse(" -*\" ").isEmpty());
+    }
+
+    @Test
+    public void testDropsDuplicatesAndLimitsTerms() {
+        assertEquals("abs*", SearchQueryBuilder.parse("abs ABS Abs").build());
+        
+        SearchQueryBuilder query = SearchQueryBuilder.parse("a b c d e f g h i j");
+        assertEquals(SearchQueryBuilder.MAX_TERMS, query.getTerms().size());
+    }
+
+    @Test
+    public void testKeepsNonAsciiLetters() {
+        assertEquals("\u00fcbung* 30s*", SearchQueryBuilder.parse("\u00dcbung, 30s").build());
+    }
+}